@@ -0,0 +1,251 @@
+package structures.graph;
+
+import structures.lists.Stack;
+
+/*************************************************************************
+ *  Compilation:  javac AStarSP.java
+ *  Execution:    java AStarSP s t [k]
+ *  Dependencies: EdgeWeightedDigraph.java Landmarks.java IndexDaryMinPQ.java
+ *                DijkstraSP.java Stack.java
+ *  Data files:   http://algs4.cs.princeton.edu/44sp/tinyEWD.txt
+ *
+ *  A* search with landmark lower bounds (ALT). Computes a shortest
+ *  path from s to t. Assumes all weights are nonnegative.
+ *
+ *  % java AStarSP 0 6 2
+ *  0 to 6 (1.51)  0->2->7->3->6
+ *  settled 5 vertices, DijkstraSP settled 8, saved 3
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>AStarSP</tt> class represents a data type for solving the
+ *  point-to-point shortest path problem in edge-weighted digraphs
+ *  where the edge weights are nonnegative.
+ *  <p>
+ *  This implementation is the query of the ALT algorithm of Goldberg and
+ *  Harrelson: A* search, with the lower bounds on the distance to the target
+ *  given by a {@link Landmarks} table. The priority of a vertex <tt>v</tt> is
+ *  <tt>distTo[v]</tt> plus the bound from <tt>v</tt> to <tt>t</tt>, so the search
+ *  grows towards the target instead of in a ball around the source, and
+ *  vertices from which the target is provably unreachable are never queued.
+ *  The bound of a vertex is computed once per search, when it is first reached.
+ *  <p>
+ *  The bounds are rounded down, but they are not exactly consistent, so a
+ *  vertex whose distance drops after it was settled is queued again; the
+ *  length found is then the same as that of {@link DijkstraSP}, bit for bit.
+ *  {@link #settledCount()}, to be compared with that of <tt>DijkstraSP</tt>,
+ *  counts every removal from the priority queue.
+ *  <p>
+ *  Like <tt>DijkstraSP</tt>, one <tt>AStarSP</tt> answers any number of
+ *  searches, and each one resets only the vertices the previous one reached.
+ *  It must not be shared by several threads; the <tt>Landmarks</tt> may be.
+ *  <p>
+ *  For additional documentation, see <a href="/algs4/44sp">Section 4.4</a> of
+ *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
+ */
+public class AStarSP {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private final EdgeWeightedDigraph G;
+    private final Landmarks landmarks;
+    private final double[] distTo;     // distTo[v] = length of the shortest s->v path found
+    private final int[] edgeTo;        // edgeTo[v] = previous vertex on that path, -1 if none
+    private final double[] bound;      // bound[v] = lower bound on the v->t distance, if v was reached
+    private final IndexDaryMinPQ pq;   // priority queue of vertices, by distTo + bound
+    private final int[] reached;       // vertices with a finite distTo, in order of discovery
+    private int reachedCount;
+    private int settledCount;          // removals from pq in the last search
+    private final double[] fromT;      // landmark table rows of the current target
+    private final double[] toT;
+
+    /**
+     * Initializes a reusable search over <tt>G</tt> with the bounds of <tt>landmarks</tt>.
+     * @param G the edge-weighted digraph
+     * @param landmarks the landmarks of <tt>G</tt>
+     * @throws IllegalArgumentException if an edge weight is negative,
+     *    or if <tt>landmarks</tt> were computed for a digraph of another size
+     */
+    public AStarSP(EdgeWeightedDigraph G, Landmarks landmarks) {
+        if (G.minWeight() < 0)
+            throw new IllegalArgumentException("edge weight " + G.minWeight() + " is negative");
+        if (landmarks.V() != G.V())
+            throw new IllegalArgumentException("landmarks of a digraph with " + landmarks.V() + " vertices, not " + G.V());
+        this.G = G;
+        this.landmarks = landmarks;
+        distTo = new double[G.V()];
+        edgeTo = new int[G.V()];
+        bound = new double[G.V()];
+        reached = new int[G.V()];
+        pq = new IndexDaryMinPQ(G.V());
+        fromT = new double[landmarks.count()];
+        toT = new double[landmarks.count()];
+        for (int v = 0; v < G.V(); v++) {
+            distTo[v] = INFINITY;
+            edgeTo[v] = -1;
+        }
+    }
+
+    /**
+     * Computes a shortest path from <tt>s</tt> to <tt>t</tt>, replacing the previous search.
+     * Afterwards only <tt>distTo(t)</tt> and <tt>pathTo(t)</tt> are final.
+     * @param s the source vertex
+     * @param t the destination vertex
+     * @return true if there is a path from <tt>s</tt> to <tt>t</tt>
+     * @throws IllegalArgumentException if an edge weight is negative
+     * @throws IndexOutOfBoundsException unless both vertices are between 0 and <tt>V</tt> - 1
+     */
+    public boolean search(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        if (G.minWeight() < 0)
+            throw new IllegalArgumentException("edge weight " + G.minWeight() + " is negative");
+        reset();
+        landmarks.target(t, fromT, toT);
+        distTo[s] = 0.0;
+        reached[reachedCount++] = s;
+        bound[s] = landmarks.lowerBound(s, fromT, toT);
+        if (bound[s] == INFINITY) return false;
+
+        // relax vertices in order of distTo plus the bound to t
+        pq.insert(s, bound[s]);
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            settledCount++;
+            if (v == t) break;
+            double dv = distTo[v];
+            for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                int w = G.target(i);
+                double dw = dv + G.weight(i);
+                if (dw < distTo[w]) {
+                    if (distTo[w] == INFINITY) {
+                        reached[reachedCount++] = w;
+                        bound[w] = landmarks.lowerBound(w, fromT, toT);
+                    }
+                    distTo[w] = dw;
+                    edgeTo[w] = v;
+                    if (bound[w] < INFINITY) pq.insertOrDecrease(w, dw + bound[w]);
+                }
+            }
+        }
+        pq.clear();
+        return distTo[t] < INFINITY;
+    }
+
+    // forget the previous search, touching only the vertices it reached
+    private void reset() {
+        for (int k = 0; k < reachedCount; k++) {
+            int v = reached[k];
+            distTo[v] = INFINITY;
+            edgeTo[v] = -1;
+        }
+        reachedCount = 0;
+        settledCount = 0;
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= G.V()) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (G.V()-1));
+    }
+
+    /**
+     * Returns the length of the shortest path to <tt>v</tt> found by the last search.
+     * @param v the destination vertex
+     * @return the length of a shortest path from the source to the target,
+     *    an upper bound for other vertices, <tt>Double.POSITIVE_INFINITY</tt> if no path was found
+     */
+    public double distTo(int v) {
+        return distTo[v];
+    }
+
+    /**
+     * Did the last search find a path to vertex <tt>v</tt>?
+     * @param v the destination vertex
+     * @return <tt>true</tt> if a path from the source to <tt>v</tt> was found
+     */
+    public boolean hasPathTo(int v) {
+        return distTo[v] < INFINITY;
+    }
+
+    /**
+     * Returns the vertex before <tt>v</tt> on the path found to <tt>v</tt>.
+     * @param v the destination vertex
+     * @return the previous vertex, or -1 if <tt>v</tt> is the source or was not reached
+     */
+    public int edgeTo(int v) {
+        return edgeTo[v];
+    }
+
+    /**
+     * Returns the number of vertices the last search removed from its priority
+     * queue, counting a vertex again each time it was queued again.
+     * @return the number of settled vertices
+     */
+    public int settledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Copies the path found to vertex <tt>v</tt> into <tt>path</tt>, source first, without allocating.
+     * @param v the destination vertex
+     * @param path the array to fill, long enough for the path
+     * @return the number of vertices on the path, or 0 if there is no path
+     * @throws ArrayIndexOutOfBoundsException if <tt>path</tt> is too short
+     */
+    public int pathTo(int v, int[] path) {
+        if (!hasPathTo(v)) return 0;
+        int length = 0;
+        for (int x = v; x != -1; x = edgeTo[x]) length++;
+        if (length > path.length) throw new ArrayIndexOutOfBoundsException("path has " + length + " vertices");
+        int k = length;
+        for (int x = v; x != -1; x = edgeTo[x]) path[--k] = x;
+        return length;
+    }
+
+    /**
+     * Returns the path found to vertex <tt>v</tt>.
+     * @param v the destination vertex
+     * @return the path from the source to <tt>v</tt> as an iterable of vertices,
+     *    and <tt>null</tt> if no path was found
+     */
+    public Iterable<Integer> pathTo(int v) {
+        if (!hasPathTo(v)) return null;
+        Stack<Integer> path = new Stack<Integer>();
+        for (int x = v; x != -1; x = edgeTo[x]) {
+            path.push(x);
+        }
+        return path;
+    }
+
+
+    /**
+     * Unit tests the <tt>AStarSP</tt> data type.
+     */
+    public static void main(String[] args) {
+        // tinyEWD.txt
+        int[] mas = {4, 5, 5, 4, 4, 7, 5, 7, 7, 5, 5, 1, 0, 4, 0, 2, 7, 3, 1, 3, 2, 7, 6, 2, 3, 6, 6, 0, 6, 4};
+        double[] weights = {0.35, 0.35, 0.37, 0.28, 0.28, 0.32, 0.38, 0.26, 0.39, 0.29, 0.34, 0.40, 0.52, 0.58, 0.93};
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(8, 15, mas, weights);
+        int s = Integer.parseInt(args[0]);
+        int t = Integer.parseInt(args[1]);
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        AStarSP sp = new AStarSP(G, new Landmarks(G, k));
+        if (sp.search(s, t)) {
+            System.out.printf("%d to %d (%.2f)  ", s, t, sp.distTo(t));
+            for (int x : sp.pathTo(t)) {
+                if (x == s) System.out.print(x);
+                else        System.out.print("->" + x);
+            }
+            System.out.println();
+        }
+        else {
+            System.out.printf("%d to %d         no path\n", s, t);
+        }
+
+        DijkstraSP dijkstra = new DijkstraSP(G);
+        dijkstra.search(s, t);
+        System.out.printf("settled %d vertices, DijkstraSP settled %d, saved %d%n",
+                          sp.settledCount(), dijkstra.settledCount(), dijkstra.settledCount() - sp.settledCount());
+    }
+}
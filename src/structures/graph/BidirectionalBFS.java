@@ -0,0 +1,269 @@
+package structures.graph;
+
+import structures.graph.directed.Digraph;
+import structures.graph.undirected.Graph;
+import structures.lists.Stack;
+
+import java.util.Arrays;
+
+/*************************************************************************
+ *  Compilation:  javac BidirectionalBFS.java
+ *  Execution:    java BidirectionalBFS s t
+ *  Dependencies: IntGraph.java CSRGraph.java Digraph.java Graph.java Stack.java
+ *
+ *  Point-to-point shortest paths (number of edges) by breadth-first search
+ *  from both endpoints at once.
+ *
+ *  % java BidirectionalBFS 6 3
+ *  6 to 3 (2):  6->4->3
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>BidirectionalBFS</tt> class represents a data type for answering
+ *  many <em>s</em>-<em>t</em> shortest path queries (number of edges) on one
+ *  graph, without building a whole shortest paths tree for each query as
+ *  {@link structures.graph.directed.BreadthFirstDirectedPaths} and
+ *  {@link structures.graph.undirected.BreadthFirstPaths} do.
+ *  <p>
+ *  A query grows one search forward from <em>s</em> and one backward from
+ *  <em>t</em>, over the reverse digraph. The side whose frontier has fewer
+ *  edges expands one whole level at a time, and the query stops after the
+ *  first level in which the two searches meet. On graphs where the ball of
+ *  radius <em>d</em> grows quickly, this explores two balls of radius about
+ *  <em>d</em>/2 instead of one of radius <em>d</em>.
+ *  <p>
+ *  All scratch arrays are allocated once. Vertices are marked with the
+ *  number of the current query instead of a boolean, so a new query
+ *  starts by incrementing a counter rather than clearing <em>V</em> entries,
+ *  and a query does no allocation and work proportional only to the part of
+ *  the graph it explores. An instance is not thread-safe; use one per thread.
+ */
+public class BidirectionalBFS {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final IntGraph G;        // forward graph
+    private final IntGraph R;        // reverse graph, the same object as G for undirected graphs
+    private final int[] stampF;      // stampF[v] == epoch iff v was reached from s by the current query
+    private final int[] stampB;      // stampB[v] == epoch iff t was reached from v by the current query
+    private final int[] edgeToF;     // edgeToF[v] = previous vertex on the s->v path
+    private final int[] edgeToB;     // edgeToB[v] = next vertex on the v->t path
+    private final int[] distF;       // distF[v] = length of the s->v path found
+    private final int[] distB;       // distB[v] = length of the v->t path found
+    private final int[] queueF;      // forward frontiers, level after level
+    private final int[] queueB;      // backward frontiers, level after level
+    private int epoch;
+
+    // result of the last query
+    private int s = -1, t = -1;
+    private int meet = -1;
+    private int distance = INFINITY;
+
+    /**
+     * Prepares point-to-point queries on the digraph <tt>G</tt>, freezing it and its reverse.
+     * @param G the digraph
+     */
+    public BidirectionalBFS(Digraph G) {
+        this(new CSRGraph(G));
+    }
+
+    /**
+     * Prepares point-to-point queries on the undirected graph <tt>G</tt>, freezing it.
+     * @param G the graph
+     */
+    public BidirectionalBFS(Graph G) {
+        this(new CSRGraph(G));
+    }
+
+    /**
+     * Prepares point-to-point queries on the CSR graph <tt>G</tt>.
+     * @param G the graph; its reverse is computed once if it is directed
+     */
+    public BidirectionalBFS(CSRGraph G) {
+        this(G, G.reverse());
+    }
+
+    /**
+     * Prepares point-to-point queries on the CSR graph <tt>G</tt> with reverse <tt>R</tt>.
+     * @param G the graph
+     * @param R the reverse of <tt>G</tt>, or <tt>G</tt> itself if it is undirected
+     * @throws IllegalArgumentException if <tt>G</tt> and <tt>R</tt> differ in size
+     */
+    public BidirectionalBFS(IntGraph G, IntGraph R) {
+        if (G.V() != R.V() || G.E() != R.E())
+            throw new IllegalArgumentException("R must be the reverse of G");
+        int V = G.V();
+        this.G = G;
+        this.R = R;
+        stampF = new int[V];
+        stampB = new int[V];
+        edgeToF = new int[V];
+        edgeToB = new int[V];
+        distF = new int[V];
+        distB = new int[V];
+        queueF = new int[V];
+        queueB = new int[V];
+    }
+
+    /**
+     * Finds a shortest path from <tt>s</tt> to <tt>t</tt>.
+     * @param s the source vertex
+     * @param t the destination vertex
+     * @return the number of edges on a shortest path, <tt>Integer.MAX_VALUE</tt> if there is none
+     * @throws IndexOutOfBoundsException unless both 0 <= s < V and 0 <= t < V
+     */
+    public int search(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        if (++epoch == INFINITY) {
+            Arrays.fill(stampF, 0);
+            Arrays.fill(stampB, 0);
+            epoch = 1;
+        }
+        this.s = s;
+        this.t = t;
+        meet = -1;
+        distance = INFINITY;
+
+        stampF[s] = epoch;
+        distF[s] = 0;
+        queueF[0] = s;
+        stampB[t] = epoch;
+        distB[t] = 0;
+        queueB[0] = t;
+        if (s == t) {
+            meet = s;
+            distance = 0;
+            return 0;
+        }
+
+        // [headF, tailF) and [headB, tailB) are the current levels of the two searches
+        int headF = 0, tailF = 1, headB = 0, tailB = 1;
+        long edgesF = G.degree(s), edgesB = R.degree(t);
+        while (headF < tailF && headB < tailB) {
+            if (edgesF <= edgesB) {
+                int end = tailF;
+                edgesF = 0;
+                for (; headF < end; headF++) {
+                    int v = queueF[headF];
+                    for (int i = G.begin(v), last = G.end(v); i < last; i++) {
+                        int w = G.target(i);
+                        if (stampF[w] == epoch) continue;
+                        stampF[w] = epoch;
+                        edgeToF[w] = v;
+                        distF[w] = distF[v] + 1;
+                        queueF[tailF++] = w;
+                        edgesF += G.degree(w);
+                        if (stampB[w] == epoch && distF[w] + distB[w] < distance) {
+                            distance = distF[w] + distB[w];
+                            meet = w;
+                        }
+                    }
+                }
+            }
+            else {
+                int end = tailB;
+                edgesB = 0;
+                for (; headB < end; headB++) {
+                    int v = queueB[headB];
+                    for (int i = R.begin(v), last = R.end(v); i < last; i++) {
+                        int w = R.target(i);
+                        if (stampB[w] == epoch) continue;
+                        stampB[w] = epoch;
+                        edgeToB[w] = v;
+                        distB[w] = distB[v] + 1;
+                        queueB[tailB++] = w;
+                        edgesB += R.degree(w);
+                        if (stampF[w] == epoch && distF[w] + distB[w] < distance) {
+                            distance = distF[w] + distB[w];
+                            meet = w;
+                        }
+                    }
+                }
+            }
+            // the first level in which the searches meet contains a shortest path
+            if (meet != -1) break;
+        }
+        return distance;
+    }
+
+    /**
+     * Is there a path between the endpoints of the last query?
+     * @return <tt>true</tt> if there is a path, <tt>false</tt> otherwise
+     */
+    public boolean hasPath() {
+        return meet != -1;
+    }
+
+    /**
+     * Returns the number of edges on a shortest path between the endpoints of the last query.
+     * @return the number of edges on a shortest path, <tt>Integer.MAX_VALUE</tt> if there is none
+     */
+    public int distance() {
+        return distance;
+    }
+
+    /**
+     * Copies a shortest path found by the last query into <tt>path</tt>, <tt>s</tt> first, without allocating.
+     * @param path the array to fill, with room for at least <tt>distance() + 1</tt> vertices
+     * @return the number of vertices on the path, or 0 if there is none
+     */
+    public int path(int[] path) {
+        if (!hasPath()) return 0;
+        int n = distance + 1;
+        int k = distF[meet];
+        for (int x = meet; ; x = edgeToF[x]) {
+            path[k--] = x;
+            if (x == s) break;
+        }
+        k = distF[meet];
+        for (int x = meet; x != t; ) {
+            x = edgeToB[x];
+            path[++k] = x;
+        }
+        return n;
+    }
+
+    /**
+     * Returns a shortest path found by the last query, or <tt>null</tt> if there is none.
+     * @return the sequence of vertices on a shortest path, as an Iterable
+     */
+    public Iterable<Integer> path() {
+        if (!hasPath()) return null;
+        int[] vertices = new int[distance + 1];
+        int n = path(vertices);
+        Stack<Integer> path = new Stack<Integer>();
+        for (int k = n - 1; k >= 0; k--) {
+            path.push(vertices[k]);
+        }
+        return path;
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= G.V()) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (G.V()-1));
+    }
+
+    /**
+     * Unit tests the <tt>BidirectionalBFS</tt> data type.
+     */
+    public static void main(String[] args) {
+        // 0 5 4 3 0 1 9 12 6 4 5 4 0 2 11 12 9 10 0 6 7 8 9 11 5 3
+        int[] mas={0, 5, 4, 3, 0, 1, 9, 12, 6, 4, 5, 4, 0, 2, 11, 12, 9, 10, 0, 6, 7, 8, 9, 11, 5, 3};
+        Digraph G = new Digraph(13, 13, mas);
+        int s = Integer.parseInt(args[0]);
+        int t = Integer.parseInt(args[1]);
+
+        BidirectionalBFS bfs = new BidirectionalBFS(G);
+        if (bfs.search(s, t) != INFINITY) {
+            System.out.printf("%d to %d (%d):  ", s, t, bfs.distance());
+            for (int x : bfs.path()) {
+                if (x == s) System.out.print(x);
+                else        System.out.print("->" + x);
+            }
+            System.out.println();
+        } else {
+            System.out.printf("%d to %d (-):  not connected\n", s, t);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package structures.graph;
+
+import structures.graph.directed.Digraph;
+import structures.graph.undirected.Graph;
+
+/*************************************************************************
+ *  Compilation:  javac CSRGraph.java
+ *  Execution:    java CSRGraph
+ *  Dependencies: IntGraph.java Digraph.java Graph.java
+ *
+ *  An immutable graph in compressed sparse row form: the adjacency list of
+ *  vertex v is targets[offsets[v]] .. targets[offsets[v+1] - 1].
+ *
+ *  % java CSRGraph
+ *  13 vertices, 13 edges
+ *  0: 6 2 1 5
+ *  1:
+ *  2:
+ *  ...
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>CSRGraph</tt> class represents an immutable graph of vertices
+ *  named 0 through <em>V</em> - 1, stored as two primitive arrays:
+ *  <tt>offsets</tt> of length <em>V</em> + 1 and <tt>targets</tt> holding
+ *  every adjacency list back to back.
+ *  <p>
+ *  A <tt>CSRGraph</tt> is either frozen from an existing {@link Digraph} or
+ *  {@link Graph}, or built directly from an edge array. Adjacency lists keep
+ *  the order of the {@link Bag}-based classes (most recently added edge
+ *  first), so every search over a frozen graph visits vertices in the same
+ *  order as over the original one.
+ *  <p>
+ *  The graph uses 4(<em>V</em> + 1) + 4<em>E</em> bytes for a digraph and
+ *  4(<em>V</em> + 1) + 8<em>E</em> bytes for an undirected graph, with no
+ *  per-edge objects. All operations take constant time; iterating over
+ *  the neighbors of a vertex through {@link #begin(int)}, {@link #end(int)}
+ *  and {@link #target(int)} allocates nothing.
+ */
+public class CSRGraph implements IntGraph {
+
+    private final int V;
+    private final int E;
+    private final boolean directed;
+    private final int[] offsets;    // offsets[v] = first slot of v in targets, offsets[V] = targets.length
+    private final int[] targets;    // adjacency lists of all vertices, back to back
+
+    /**
+     * Initializes a graph from already built CSR arrays. The arrays are not copied.
+     * @param offsets the <em>V</em> + 1 adjacency offsets, nondecreasing and starting at 0
+     * @param targets the concatenated adjacency lists
+     * @param directed true if <tt>targets</tt> stores each edge once, false if it stores each edge in both directions
+     * @throws IllegalArgumentException if the arrays do not describe a valid CSR graph
+     */
+    public CSRGraph(int[] offsets, int[] targets, boolean directed) {
+        if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != targets.length)
+            throw new IllegalArgumentException("Offsets must start at 0 and end at the number of targets");
+        if (!directed && targets.length % 2 != 0)
+            throw new IllegalArgumentException("An undirected graph must store every edge twice");
+        this.V = offsets.length - 1;
+        this.E = directed ? targets.length : targets.length / 2;
+        this.directed = directed;
+        this.offsets = offsets;
+        this.targets = targets;
+        for (int v = 0; v < V; v++) {
+            if (offsets[v] > offsets[v + 1]) throw new IllegalArgumentException("Offsets must be nondecreasing");
+        }
+        for (int w : targets) {
+            validateVertex(w);
+        }
+    }
+
+    /**
+     * Initializes a digraph with <em>V</em> vertices from the first <em>E</em>
+     * pairs of <tt>mas</tt>, the same edge array {@link Digraph#Digraph(int, int, int[])} takes.
+     * @param V the number of vertices
+     * @param E the number of edges
+     * @param mas the edges as tail, head pairs
+     * @throws IllegalArgumentException if the number of vertices or edges is negative
+     * @throws IndexOutOfBoundsException if the endpoints of any edge are not in prescribed range
+     */
+    public CSRGraph(int V, int E, int[] mas) {
+        this(V, E, mas, true);
+    }
+
+    /**
+     * Initializes a graph with <em>V</em> vertices from the first <em>E</em> pairs of <tt>mas</tt>.
+     * @param V the number of vertices
+     * @param E the number of edges
+     * @param mas the edges as pairs of endpoints
+     * @param directed true for a digraph, false for an undirected graph
+     * @throws IllegalArgumentException if the number of vertices or edges is negative
+     * @throws IndexOutOfBoundsException if the endpoints of any edge are not in prescribed range
+     */
+    public CSRGraph(int V, int E, int[] mas, boolean directed) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be nonnegative");
+        if (E < 0) throw new IllegalArgumentException("Number of edges must be nonnegative");
+        this.V = V;
+        this.E = E;
+        this.directed = directed;
+        this.offsets = new int[V + 1];
+        this.targets = new int[directed ? E : 2 * E];
+
+        for (int i = 0; i < E; i++) {
+            int v = mas[2*i];
+            int w = mas[2*i+1];
+            validateVertex(v);
+            validateVertex(w);
+            offsets[v + 1]++;
+            if (!directed) offsets[w + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        // fill every list from its end so that the last edge added comes first, as in Bag
+        int[] next = new int[V];
+        for (int v = 0; v < V; v++) {
+            next[v] = offsets[v + 1];
+        }
+        for (int i = 0; i < E; i++) {
+            int v = mas[2*i];
+            int w = mas[2*i+1];
+            targets[--next[v]] = w;
+            if (!directed) targets[--next[w]] = v;
+        }
+    }
+
+    /**
+     * Freezes the digraph <tt>G</tt>.
+     * @param G the digraph to copy
+     */
+    public CSRGraph(Digraph G) {
+        this.V = G.V();
+        this.E = G.E();
+        this.directed = true;
+        this.offsets = new int[V + 1];
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] = offsets[v] + G.outdegree(v);
+        }
+        this.targets = new int[offsets[V]];
+        for (int v = 0; v < V; v++) {
+            int i = offsets[v];
+            for (int w : G.adj(v)) {
+                targets[i++] = w;
+            }
+        }
+    }
+
+    /**
+     * Freezes the undirected graph <tt>G</tt>.
+     * @param G the graph to copy
+     */
+    public CSRGraph(Graph G) {
+        this.V = G.V();
+        this.E = G.E();
+        this.directed = false;
+        this.offsets = new int[V + 1];
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] = offsets[v] + G.degree(v);
+        }
+        this.targets = new int[offsets[V]];
+        for (int v = 0; v < V; v++) {
+            int i = offsets[v];
+            for (int w : G.adj(v)) {
+                targets[i++] = w;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     * @return the number of vertices in the graph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     * @return the number of edges in the graph
+     */
+    public int E() {
+        return E;
+    }
+
+    /**
+     * Is this a directed graph?
+     * @return true if every edge is stored once, false if it is stored in both directions
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Returns the first adjacency slot of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the index of the first neighbor of <tt>v</tt>
+     */
+    public int begin(int v) {
+        return offsets[v];
+    }
+
+    /**
+     * Returns one past the last adjacency slot of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the index after the last neighbor of <tt>v</tt>
+     */
+    public int end(int v) {
+        return offsets[v + 1];
+    }
+
+    /**
+     * Returns the vertex stored in adjacency slot <tt>i</tt>.
+     * @param i the adjacency slot
+     * @return the neighbor stored in slot <tt>i</tt>
+     */
+    public int target(int i) {
+        return targets[i];
+    }
+
+    /**
+     * Returns the reverse of the graph: a digraph with every edge v->w turned into w->v.
+     * The reverse of an undirected graph is the graph itself.
+     * @return the reverse of the graph
+     */
+    public CSRGraph reverse() {
+        if (!directed) return this;
+        int[] rOffsets = new int[V + 1];
+        for (int w : targets) {
+            rOffsets[w + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            rOffsets[v + 1] += rOffsets[v];
+        }
+        int[] next = new int[V];
+        System.arraycopy(rOffsets, 0, next, 0, V);
+        int[] rTargets = new int[targets.length];
+        for (int v = 0; v < V; v++) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                rTargets[next[targets[i]]++] = v;
+            }
+        }
+        return new CSRGraph(V, rOffsets, rTargets, true);
+    }
+
+    // trusted arrays, skips validation
+    private CSRGraph(int V, int[] offsets, int[] targets, boolean directed) {
+        this.V = V;
+        this.E = directed ? targets.length : targets.length / 2;
+        this.directed = directed;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Returns a string representation of the graph.
+     * This method takes time proportional to <em>E</em> + <em>V</em>.
+     * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
+     *    followed by the <em>V</em> adjacency lists
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        String NEWLINE = System.getProperty("line.separator");
+        s.append(V + " vertices, " + E + " edges " + NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(v + ": ");
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                s.append(targets[i] + " ");
+            }
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+
+    /**
+     * Unit tests the <tt>CSRGraph</tt> data type.
+     */
+    public static void main(String[] args) {
+        // 0 5 4 3 0 1 9 12 6 4 5 4 0 2 11 12 9 10 0 6 7 8 9 11 5 3
+        int[] mas={0, 5, 4, 3, 0, 1, 9, 12, 6, 4, 5, 4, 0, 2, 11, 12, 9, 10, 0, 6, 7, 8, 9, 11, 5, 3};
+        CSRGraph G = new CSRGraph(13, 13, mas);
+        System.out.println(G);
+        System.out.println(new CSRGraph(new Digraph(13, 13, mas)));
+        System.out.println(new CSRGraph(new Graph(13, 13, mas)));
+    }
+}
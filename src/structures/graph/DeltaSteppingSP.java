@@ -0,0 +1,585 @@
+package structures.graph;
+
+/*************************************************************************
+ *  Compilation:  javac DeltaSteppingSP.java
+ *  Execution:    java DeltaSteppingSP s [delta]
+ *  Dependencies: EdgeWeightedDigraph.java DijkstraSP.java Stack.java
+ *  Data files:   http://algs4.cs.princeton.edu/44sp/tinyEWD.txt
+ *
+ *  Delta-stepping. Computes the shortest path tree on a ForkJoinPool.
+ *  Assumes all weights are nonnegative.
+ *
+ *  % java DeltaSteppingSP 0 0.3
+ *  0 to 0 (0.00)  0
+ *  0 to 1 (1.05)  0->4->5->1
+ *  0 to 2 (0.26)  0->2
+ *  0 to 3 (0.99)  0->2->7->3
+ *  0 to 4 (0.38)  0->4
+ *  0 to 5 (0.73)  0->4->5
+ *  0 to 6 (1.51)  0->2->7->3->6
+ *  0 to 7 (0.60)  0->2->7
+ *  delta 0.30, 5 buckets, 11 phases, same distances as DijkstraSP
+ *
+ *************************************************************************/
+
+import structures.lists.Stack;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *  The <tt>DeltaSteppingSP</tt> class represents a data type for solving the
+ *  single-source shortest paths problem in edge-weighted digraphs
+ *  where the edge weights are nonnegative, with several threads.
+ *  <p>
+ *  This implementation uses the delta-stepping algorithm of Meyer and Sanders.
+ *  Tentative distances are kept in buckets of width <em>delta</em>, and the
+ *  buckets are settled in increasing order. Edges of weight at most <em>delta</em>
+ *  are <em>light</em>: the vertices of the current bucket relax their light
+ *  edges in parallel phases, until no relaxation lands in the bucket again.
+ *  Then the vertices settled in the bucket relax their <em>heavy</em> edges
+ *  once, since those can only reach later buckets. Every phase splits its
+ *  vertices into chunks on a {@link ForkJoinPool}; a relaxation lowers the
+ *  distance of the head with a compare-and-set on the bits of the double, and
+ *  stale bucket entries are skipped when they are reached instead of being deleted.
+ *  <p>
+ *  A small <em>delta</em> settles few vertices per bucket and behaves like
+ *  Dijkstra's algorithm; a large one gives long light phases that relax edges
+ *  many times, like Bellman-Ford. The default is the largest edge weight over
+ *  the average outdegree.
+ *  <p>
+ *  The distances are the same as those of {@link DijkstraSP}, bit for bit:
+ *  with nonnegative weights both compute the least solution of
+ *  <tt>distTo[w] = min(distTo[v] + weight(v->w))</tt>. When a vertex has
+ *  several shortest paths, which one <tt>pathTo()</tt> returns is not specified.
+ *  The tree is built after the search from the tight edges, taking for every
+ *  vertex a parent that is closer to the source or got its final distance in an
+ *  earlier phase, so it has no cycles even when there are edges of weight 0.
+ *  <p>
+ *  For additional documentation, see <a href="/algs4/44sp">Section 4.4</a> of
+ *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
+ */
+public class DeltaSteppingSP {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final long INFINITY_BITS = Double.doubleToRawLongBits(INFINITY);
+    private static final int GRAIN = 512;          // fewest bucket entries worth a task
+
+    private final EdgeWeightedDigraph G;
+    private final int s;
+    private final double delta;
+    private final ForkJoinPool pool;
+
+    private final double[] distTo;                 // distTo[v] = distance of shortest s->v path
+    private final int[] edgeTo;                    // edgeTo[v] = previous vertex on shortest s->v path, -1 if none
+
+    // state of the search
+    private final AtomicLongArray dist;            // bits of the tentative distances
+    private final long[] done;                     // bits of the distance v was last expanded with, -1 if never
+    private final int[] writtenIn;                 // writtenIn[v] = last phase that tried to lower distTo[v]
+    private final boolean[] heavyDone;             // heavy edges of v relaxed
+    private final TreeMap<Long, Bucket> buckets = new TreeMap<Long, Bucket>();
+    private long current;                          // index of the bucket being settled
+    private int phase;                             // number of the running phase, from 1
+    private int bucketCount;
+
+    // per-chunk output buffers, reused by every phase
+    private final int chunks;
+    private final int[][] same;                    // heads that landed in the current bucket
+    private final int[] sameSize;
+    private final int[][] later;                   // heads that landed in a later bucket
+    private final int[] laterSize;
+    private final int[][] expanded;                // vertices expanded by a light phase
+    private final int[] expandedSize;
+
+    /**
+     * Computes a shortest paths tree from <tt>s</tt> to every other vertex in
+     * the edge-weighted digraph <tt>G</tt>, with the default <em>delta</em>.
+     * @param G the edge-weighted digraph
+     * @param s the source vertex
+     * @param pool the pool to run the search on
+     * @throws IllegalArgumentException if an edge weight is negative
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public DeltaSteppingSP(EdgeWeightedDigraph G, int s, ForkJoinPool pool) {
+        this(G, s, defaultDelta(G), pool);
+    }
+
+    /**
+     * Computes a shortest paths tree from <tt>s</tt> to every other vertex in
+     * the edge-weighted digraph <tt>G</tt>, with buckets of width <tt>delta</tt>.
+     * @param G the edge-weighted digraph
+     * @param s the source vertex
+     * @param delta the bucket width, also the heaviest light edge
+     * @param pool the pool to run the search on
+     * @throws IllegalArgumentException if an edge weight is negative,
+     *    or unless <tt>delta</tt> is positive and finite
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public DeltaSteppingSP(EdgeWeightedDigraph G, int s, double delta, ForkJoinPool pool) {
+        if (s < 0 || s >= G.V()) throw new IndexOutOfBoundsException("vertex " + s + " is not between 0 and " + (G.V()-1));
+        if (G.minWeight() < 0)
+            throw new IllegalArgumentException("edge weight " + G.minWeight() + " is negative");
+        if (!(delta > 0) || delta == INFINITY)
+            throw new IllegalArgumentException("delta " + delta + " is not positive and finite");
+        this.G = G;
+        this.s = s;
+        this.delta = delta;
+        this.pool = pool;
+        int V = G.V();
+        distTo = new double[V];
+        edgeTo = new int[V];
+        dist = new AtomicLongArray(V);
+        done = new long[V];
+        writtenIn = new int[V];
+        heavyDone = new boolean[V];
+        for (int v = 0; v < V; v++) {
+            dist.set(v, INFINITY_BITS);
+            done[v] = -1;
+        }
+        chunks = 4 * pool.getParallelism();
+        same = new int[chunks][16];
+        sameSize = new int[chunks];
+        later = new int[chunks][16];
+        laterSize = new int[chunks];
+        expanded = new int[chunks][16];
+        expandedSize = new int[chunks];
+
+        search();
+        tree();
+
+        // check optimality conditions
+        assert check();
+    }
+
+    /**
+     * Returns the default bucket width for <tt>G</tt>: the largest edge weight
+     * divided by the average outdegree, or 1.0 if there are no finite weights.
+     * @param G the edge-weighted digraph
+     * @return the default <em>delta</em>
+     */
+    public static double defaultDelta(EdgeWeightedDigraph G) {
+        double max = 0.0;
+        for (int v = 0; v < G.V(); v++) {
+            for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                double weight = G.weight(i);
+                if (weight > max && weight < INFINITY) max = weight;
+            }
+        }
+        if (max == 0.0) return 1.0;
+        double degree = Math.max(1.0, (double) G.E() / Math.max(1, G.V()));
+        return max / degree;
+    }
+
+    // settle the buckets in increasing order
+    private void search() {
+        dist.set(s, Double.doubleToRawLongBits(0.0));
+        bucket(0).add(s);
+        int[] frontier = new int[16];
+        int[] settled = new int[16];
+        while (!buckets.isEmpty()) {
+            current = buckets.firstKey();
+            Bucket b = buckets.remove(current);
+            bucketCount++;
+            frontier = b.items;
+            int n = b.size;
+            int m = 0;
+
+            // light phases until nothing lands in the current bucket
+            while (n > 0) {
+                run(frontier, n, true);
+                int next = 0;
+                for (int c = 0; c < chunks; c++) next += sameSize[c];
+                int[] following = new int[Math.max(next, 16)];
+                next = 0;
+                for (int c = 0; c < chunks; c++) {
+                    System.arraycopy(same[c], 0, following, next, sameSize[c]);
+                    next += sameSize[c];
+                    if (m + expandedSize[c] > settled.length)
+                        settled = Arrays.copyOf(settled, Math.max(2 * settled.length, m + expandedSize[c]));
+                    System.arraycopy(expanded[c], 0, settled, m, expandedSize[c]);
+                    m += expandedSize[c];
+                }
+                distribute();
+                frontier = following;
+                n = next;
+            }
+
+            // one heavy phase over everything settled in the bucket
+            if (m > 0) {
+                run(settled, m, false);
+                distribute();
+            }
+        }
+    }
+
+    // relax the light or heavy edges of items[0, n) in parallel
+    private void run(int[] items, int n, boolean light) {
+        phase++;
+        int used = Math.min(chunks, (n + GRAIN - 1) / GRAIN);
+        Relax[] tasks = new Relax[used];
+        for (int c = 0; c < used; c++) {
+            tasks[c] = new Relax(items, (int) ((long) n * c / used), (int) ((long) n * (c + 1) / used), light, c);
+        }
+        for (int c = used; c < chunks; c++) {
+            sameSize[c] = 0;
+            laterSize[c] = 0;
+            expandedSize[c] = 0;
+        }
+        if (used == 1) tasks[0].compute();
+        else           pool.invoke(new Phase(tasks));
+    }
+
+    // file the heads that landed in later buckets
+    private void distribute() {
+        long last = -1;
+        Bucket b = null;
+        for (int c = 0; c < chunks; c++) {
+            int[] buffer = later[c];
+            for (int k = 0; k < laterSize[c]; k++) {
+                int w = buffer[k];
+                // rounding may put a heavy relaxation in the current bucket; settle it again then
+                long index = Math.max(current, indexOf(Double.longBitsToDouble(dist.get(w))));
+                if (index != last) {
+                    b = bucket(index);
+                    last = index;
+                }
+                b.add(w);
+            }
+        }
+    }
+
+    private long indexOf(double d) {
+        return (long) (d / delta);
+    }
+
+    private Bucket bucket(long index) {
+        Bucket b = buckets.get(index);
+        if (b == null) {
+            b = new Bucket();
+            buckets.put(index, b);
+        }
+        return b;
+    }
+
+    // the entries of one bucket, stale ones included
+    private static class Bucket {
+        int[] items = new int[16];
+        int size;
+
+        void add(int v) {
+            if (size == items.length) items = Arrays.copyOf(items, 2 * size);
+            items[size++] = v;
+        }
+    }
+
+    // runs the chunks of one phase and waits for all of them
+    private static class Phase extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Relax[] tasks;
+
+        Phase(Relax[] tasks) {
+            this.tasks = tasks;
+        }
+
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    // relaxes the light or heavy edges of items[lo, hi) into the buffers of chunk
+    private class Relax extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] items;
+        private final int lo, hi;
+        private final boolean light;
+        private final int chunk;
+        private int[] sameBuffer, laterBuffer;
+        private int sameCount, laterCount;
+
+        Relax(int[] items, int lo, int hi, boolean light, int chunk) {
+            this.items = items;
+            this.lo = lo;
+            this.hi = hi;
+            this.light = light;
+            this.chunk = chunk;
+        }
+
+        protected void compute() {
+            sameBuffer = same[chunk];
+            laterBuffer = later[chunk];
+            int[] settled = expanded[chunk];
+            int settledCount = 0;
+            for (int k = lo; k < hi; k++) {
+                int v = items[k];
+                long bits = dist.get(v);
+                double dv = Double.longBitsToDouble(bits);
+                if (light) {
+                    // skip entries left behind by a later improvement and repeated entries;
+                    // a distance lowered in this phase has a new entry and waits for the next one
+                    if (indexOf(dv) != current || done[v] == bits || writtenIn[v] == phase) continue;
+                    done[v] = bits;
+                    if (settledCount == settled.length) settled = Arrays.copyOf(settled, 2 * settledCount);
+                    settled[settledCount++] = v;
+                    for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                        double weight = G.weight(i);
+                        if (weight <= delta) relax(G.target(i), dv + weight);
+                    }
+                }
+                else {
+                    if (heavyDone[v]) continue;
+                    heavyDone[v] = true;
+                    for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                        double weight = G.weight(i);
+                        if (weight > delta) relax(G.target(i), dv + weight);
+                    }
+                }
+            }
+            same[chunk] = sameBuffer;
+            sameSize[chunk] = sameCount;
+            later[chunk] = laterBuffer;
+            laterSize[chunk] = laterCount;
+            expanded[chunk] = settled;
+            expandedSize[chunk] = settledCount;
+        }
+
+        // lower distTo[w] to dw unless another thread got it lower
+        private void relax(int w, double dw) {
+            long bits = Double.doubleToRawLongBits(dw);
+            long old = dist.get(w);
+            while (dw < Double.longBitsToDouble(old)) {
+                // marked before the compare-and-set, so a thread that reads the new distance sees it
+                writtenIn[w] = phase;
+                if (dist.compareAndSet(w, old, bits)) {
+                    if (light && indexOf(dw) == current) {
+                        if (sameCount == sameBuffer.length) sameBuffer = Arrays.copyOf(sameBuffer, 2 * sameCount);
+                        sameBuffer[sameCount++] = w;
+                    }
+                    else {
+                        if (laterCount == laterBuffer.length) laterBuffer = Arrays.copyOf(laterBuffer, 2 * laterCount);
+                        laterBuffer[laterCount++] = w;
+                    }
+                    return;
+                }
+                old = dist.get(w);
+            }
+        }
+    }
+
+    // pick a parent along a tight edge: one with a smaller distance, or with the same
+    // distance (weight 0, or lost to rounding) but final since an earlier phase. The vertex
+    // that wrote the final distance of w is such a parent, and the order rules out cycles
+    private void tree() {
+        int V = G.V();
+        AtomicIntegerArray parent = new AtomicIntegerArray(V);
+        for (int v = 0; v < V; v++) {
+            parent.set(v, -1);
+            distTo[v] = Double.longBitsToDouble(dist.get(v));
+        }
+        int used = Math.min(chunks, (V + GRAIN - 1) / GRAIN);
+        Parents[] tasks = new Parents[used];
+        for (int c = 0; c < used; c++) {
+            tasks[c] = new Parents(parent, (int) ((long) V * c / used), (int) ((long) V * (c + 1) / used));
+        }
+        if (used == 1)      tasks[0].compute();
+        else if (used > 1)  pool.invoke(new Parents(tasks));
+        for (int v = 0; v < V; v++) {
+            edgeTo[v] = parent.get(v);
+        }
+    }
+
+    // offers every vertex in [lo, hi) as a parent to its tight heads
+    private class Parents extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final AtomicIntegerArray parent;
+        private final int lo, hi;
+        private final Parents[] tasks;
+
+        Parents(AtomicIntegerArray parent, int lo, int hi) {
+            this.parent = parent;
+            this.lo = lo;
+            this.hi = hi;
+            this.tasks = null;
+        }
+
+        Parents(Parents[] tasks) {
+            this.parent = null;
+            this.lo = 0;
+            this.hi = 0;
+            this.tasks = tasks;
+        }
+
+        protected void compute() {
+            if (tasks != null) {
+                invokeAll(tasks);
+                return;
+            }
+            for (int v = lo; v < hi; v++) {
+                double dv = distTo[v];
+                if (dv == INFINITY) continue;
+                for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                    int w = G.target(i);
+                    if (w == s || dv + G.weight(i) != distTo[w] || distTo[w] == INFINITY) continue;
+                    if (dv == distTo[w] && writtenIn[v] >= writtenIn[w]) continue;
+                    if (parent.get(w) == -1) parent.compareAndSet(w, -1, v);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>.
+     * @param v the destination vertex
+     * @return the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>;
+     *    <tt>Double.POSITIVE_INFINITY</tt> if no such path
+     */
+    public double distTo(int v) {
+        return distTo[v];
+    }
+
+    /**
+     * Is there a path from the source vertex <tt>s</tt> to vertex <tt>v</tt>?
+     * @param v the destination vertex
+     * @return <tt>true</tt> if there is a path from the source vertex
+     *    <tt>s</tt> to vertex <tt>v</tt>, and <tt>false</tt> otherwise
+     */
+    public boolean hasPathTo(int v) {
+        return distTo[v] < INFINITY;
+    }
+
+    /**
+     * Returns the vertex before <tt>v</tt> on the shortest path from the source.
+     * @param v the destination vertex
+     * @return the previous vertex on the shortest path, or -1 if <tt>v</tt> is the source or unreachable
+     */
+    public int edgeTo(int v) {
+        return edgeTo[v];
+    }
+
+    /**
+     * Returns a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>.
+     * @param v the destination vertex
+     * @return a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>
+     *    as an iterable of vertices, and <tt>null</tt> if no such path
+     */
+    public Iterable<Integer> pathTo(int v) {
+        if (!hasPathTo(v)) return null;
+        Stack<Integer> path = new Stack<Integer>();
+        for (int x = v; x != -1; x = edgeTo[x]) {
+            path.push(x);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the bucket width of the search.
+     * @return <em>delta</em>
+     */
+    public double delta() {
+        return delta;
+    }
+
+    /**
+     * Returns the number of buckets the search settled; a bucket that received
+     * entries again after it was settled counts again.
+     * @return the number of buckets
+     */
+    public int buckets() {
+        return bucketCount;
+    }
+
+    /**
+     * Returns the number of parallel light and heavy phases of the search.
+     * Each phase ends with all threads waiting for each other.
+     * @return the number of phases
+     */
+    public int phases() {
+        return phase;
+    }
+
+
+    // check optimality conditions:
+    // (i) for all edges v->w:            distTo[w] <= distTo[v] + weight
+    // (ii) for all edges v->w on the SPT: distTo[w] == distTo[v] + weight
+    private boolean check() {
+        if (distTo[s] != 0.0 || edgeTo[s] != -1) {
+            System.err.println("distTo[s] and edgeTo[s] inconsistent");
+            return false;
+        }
+        for (int v = 0; v < G.V(); v++) {
+            if (v == s) continue;
+            if ((edgeTo[v] == -1) != (distTo[v] == INFINITY)) {
+                System.err.println("distTo[] and edgeTo[] inconsistent");
+                return false;
+            }
+        }
+        for (int v = 0; v < G.V(); v++) {
+            for (int i = G.begin(v); i < G.end(v); i++) {
+                int w = G.target(i);
+                if (distTo[v] + G.weight(i) < distTo[w]) {
+                    System.err.println("edge " + v + "->" + w + " not relaxed");
+                    return false;
+                }
+            }
+        }
+        for (int w = 0; w < G.V(); w++) {
+            int v = edgeTo[w];
+            if (v == -1) continue;
+            boolean tight = false;
+            for (int i = G.begin(v); i < G.end(v); i++) {
+                if (G.target(i) == w && distTo[v] + G.weight(i) == distTo[w]) tight = true;
+            }
+            if (!tight) {
+                System.err.println("edge " + v + "->" + w + " on shortest path not tight");
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Unit tests the <tt>DeltaSteppingSP</tt> data type.
+     */
+    public static void main(String[] args) {
+        // tinyEWD.txt
+        int[] mas = {4, 5, 5, 4, 4, 7, 5, 7, 7, 5, 5, 1, 0, 4, 0, 2, 7, 3, 1, 3, 2, 7, 6, 2, 3, 6, 6, 0, 6, 4};
+        double[] weights = {0.35, 0.35, 0.37, 0.28, 0.28, 0.32, 0.38, 0.26, 0.39, 0.29, 0.34, 0.40, 0.52, 0.58, 0.93};
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(8, 15, mas, weights);
+        int s = Integer.parseInt(args[0]);
+        ForkJoinPool pool = new ForkJoinPool();
+
+        // compute shortest paths
+        DeltaSteppingSP sp = args.length > 1 ? new DeltaSteppingSP(G, s, Double.parseDouble(args[1]), pool)
+                                             : new DeltaSteppingSP(G, s, pool);
+
+        // print shortest path
+        for (int t = 0; t < G.V(); t++) {
+            if (sp.hasPathTo(t)) {
+                System.out.printf("%d to %d (%.2f)  ", s, t, sp.distTo(t));
+                for (int x : sp.pathTo(t)) {
+                    if (x == s) System.out.print(x);
+                    else        System.out.print("->" + x);
+                }
+                System.out.println();
+            }
+            else {
+                System.out.printf("%d to %d         no path\n", s, t);
+            }
+        }
+
+        // compare with Dijkstra's algorithm
+        DijkstraSP dijkstra = new DijkstraSP(G, s);
+        boolean same = true;
+        for (int v = 0; v < G.V(); v++) {
+            if (sp.distTo(v) != dijkstra.distTo(v)) same = false;
+        }
+        System.out.printf("delta %.2f, %d buckets, %d phases, %s distances as DijkstraSP%n",
+                          sp.delta(), sp.buckets(), sp.phases(), same ? "same" : "different");
+        pool.shutdown();
+    }
+}
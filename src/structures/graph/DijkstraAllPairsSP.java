@@ -1,80 +1,214 @@
-package structures.graph;//package graph;
-//
-///*************************************************************************
-// *  Compilation:  javac DijkstraAllPairsSP.java
-// *  Dependencies: EdgeWeightedDigraph.java Dijkstra.java
-// *
-// *  Dijkstra's algorithm run from each vertex.
-// *  Takes time proportional to E V log V and space proportional to EV.
-// *
-// *************************************************************************/
-//
-///**
-// *  The <tt>DijkstraAllPairsSP</tt> class represents a data type for solving the
-// *  all-pairs shortest paths problem in edge-weighted digraphs
-// *  where the edge weights are nonnegative.
-// *  <p>
-// *  This implementation runs Dijkstra's algorithm from each vertex.
-// *  The constructor takes time proportional to <em>V</em> (<em>E</em> log <em>V</em>)
-// *  and uses space proprtional to <em>V</em><sup>2</sup>,
-// *  where <em>V</em> is the number of vertices and <em>E</em> is the number of edges.
-// *  Afterwards, the <tt>dist()</tt> and <tt>hasPath()</tt> methods take
-// *  constant time and the <tt>path()</tt> method takes time proportional to the
-// *  number of edges in the shortest path returned.
-// *  <p>
-// *  For additional documentation, see <a href="/algs4/44sp">Section 4.4</a> of
-// *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
-// *
-// *  @author Robert Sedgewick
-// *  @author Kevin Wayne
-// */
-//public class DijkstraAllPairsSP {
-//
-//    private DijkstraSP[] all;
-//
-//    /**
-//     * Computes a shortest paths tree from each vertex to to every other vertex in
-//     * the edge-weighted digraph <tt>G</tt>.
-//     * @param G the edge-weighted digraph
-//     * @throws IllegalArgumentException if an edge weight is negative
-//     * @throws IllegalArgumentException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
-//     */
-//    public DijkstraAllPairsSP(EdgeWeightedDigraph G) {
-//        all  = new DijkstraSP[G.V()];
-//        for (int v = 0; v < G.V(); v++)
-//            all[v] = new DijkstraSP(G, v);
-//    }
-//
-//    /**
-//     * Returns a shortest path from vertex <tt>s</tt> to vertex <tt>t</tt>.
-//     * @param s the source vertex
-//     * @param t the destination vertex
-//     * @return a shortest path from vertex <tt>s</tt> to vertex <tt>t</tt>
-//     *    as an iterable of edges, and <tt>null</tt> if no such path
-//     */
-//    public Iterable<DirectedEdge> path(int s, int t) {
-//        return all[s].pathTo(t);
-//    }
-//
-//    /**
-//     * Is there a path from the vertex <tt>s</tt> to vertex <tt>t</tt>?
-//     * @param s the source vertex
-//     * @param t the destination vertex
-//     * @return <tt>true</tt> if there is a path from vertex <tt>s</tt>
-//     *    to vertex <tt>t</tt>, and <tt>false</tt> otherwise
-//     */
-//    public boolean hasPath(int s, int t) {
-//        return dist(s, t) < Double.POSITIVE_INFINITY;
-//    }
-//
-//    /**
-//     * Returns the length of a shortest path from vertex <tt>s</tt> to vertex <tt>t</tt>.
-//     * @param s the source vertex
-//     * @param t the destination vertex
-//     * @return the length of a shortest path from vertex <tt>s</tt> to vertex <tt>t</tt>;
-//     *    <tt>Double.POSITIVE_INFINITY</tt> if no such path
-//     */
-//    public double dist(int s, int t) {
-//        return all[s].distTo(t);
-//    }
-//}
+package structures.graph;
+
+import structures.lists.Stack;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*************************************************************************
+ *  Compilation:  javac DijkstraAllPairsSP.java
+ *  Execution:    java DijkstraAllPairsSP
+ *  Dependencies: EdgeWeightedDigraph.java DijkstraSP.java
+ *
+ *  Dijkstra's algorithm run from each vertex, in parallel.
+ *  Takes time proportional to E V log V and space proportional to V^2.
+ *
+ *  % java DijkstraAllPairsSP
+ *           0     1     2     3     4     5     6     7
+ *    0:   0.00  1.05  0.26  0.99  0.38  0.73  1.51  0.60
+ *    1:   1.39  0.00  1.21  0.29  1.74  1.83  0.81  1.55
+ *  ...
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>DijkstraAllPairsSP</tt> class represents a data type for solving the
+ *  all-pairs shortest paths problem in edge-weighted digraphs
+ *  where the edge weights are nonnegative.
+ *  <p>
+ *  This implementation runs Dijkstra's algorithm from each vertex, splitting
+ *  the sources across a {@link ForkJoinPool} in chunks of consecutive
+ *  sources. Every chunk gets one {@link DijkstraSP} and reuses its heap and
+ *  distance arrays for all its sources, so a search allocates nothing, and
+ *  the searchers are garbage once the call returns. Results go into a
+ *  <tt>float</tt> distance matrix and, optionally, an <tt>int</tt> matrix of
+ *  previous vertices: 4<em>V</em><sup>2</sup> or 8<em>V</em><sup>2</sup>
+ *  bytes instead of <em>V</em> full <tt>DijkstraSP</tt> objects.
+ *  Distances are rounded to the nearest <tt>float</tt>.
+ *  <p>
+ *  When even the matrix is too large, {@link #stream} runs the same
+ *  searches and hands each source's tree to a callback instead of keeping it.
+ *  <p>
+ *  The constructor takes time proportional to <em>V</em> (<em>E</em> log <em>V</em>)
+ *  divided by the parallelism of the pool.
+ *  Afterwards, the <tt>dist()</tt> and <tt>hasPath()</tt> methods take
+ *  constant time and the <tt>path()</tt> method takes time proportional to the
+ *  number of edges in the shortest path returned.
+ *  <p>
+ *  For additional documentation, see <a href="/algs4/44sp">Section 4.4</a> of
+ *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
+ *
+ *  @author Robert Sedgewick
+ *  @author Kevin Wayne
+ */
+public class DijkstraAllPairsSP {
+
+    /**
+     * Receives the shortest paths tree of one source in streaming mode.
+     * Called from worker threads, possibly at the same time for different
+     * sources; the tree is only valid until the call returns.
+     */
+    public interface RowConsumer {
+        void accept(int s, DijkstraSP tree);
+    }
+
+    private final float[][] dist;    // dist[s][t] = length of shortest s->t path
+    private final int[][] edgeTo;    // edgeTo[s][t] = previous vertex on shortest s->t path, null if paths are not kept
+
+    /**
+     * Computes shortest paths between every pair of vertices in <tt>G</tt>
+     * on the common fork-join pool.
+     * @param G the edge-weighted digraph
+     * @throws IllegalArgumentException if an edge weight is negative
+     */
+    public DijkstraAllPairsSP(EdgeWeightedDigraph G) {
+        this(G, ForkJoinPool.commonPool(), true);
+    }
+
+    /**
+     * Computes shortest paths between every pair of vertices in <tt>G</tt>.
+     * @param G the edge-weighted digraph
+     * @param pool the pool to run the searches on
+     * @param keepPaths true to keep the previous-vertex matrix needed by <tt>path()</tt>
+     * @throws IllegalArgumentException if an edge weight is negative
+     */
+    public DijkstraAllPairsSP(EdgeWeightedDigraph G, ForkJoinPool pool, boolean keepPaths) {
+        int V = G.V();
+        dist = new float[V][];
+        edgeTo = keepPaths ? new int[V][] : null;
+        stream(G, pool, (s, tree) -> {
+            float[] row = new float[V];
+            for (int t = 0; t < V; t++) row[t] = (float) tree.distTo(t);
+            dist[s] = row;
+            if (edgeTo != null) {
+                int[] prev = new int[V];
+                for (int t = 0; t < V; t++) prev[t] = tree.edgeTo(t);
+                edgeTo[s] = prev;
+            }
+        });
+    }
+
+    /**
+     * Computes the shortest paths tree of every vertex of <tt>G</tt> and passes
+     * each one to <tt>consumer</tt> instead of storing it.
+     * Returns once every source has been handed over.
+     * @param G the edge-weighted digraph
+     * @param pool the pool to run the searches on
+     * @param consumer receives each source and its tree, from several threads at once
+     * @throws IllegalArgumentException if an edge weight is negative
+     */
+    public static void stream(EdgeWeightedDigraph G, ForkJoinPool pool, RowConsumer consumer) {
+        if (G.minWeight() < 0)
+            throw new IllegalArgumentException("edge weight " + G.minWeight() + " is negative");
+        if (G.V() == 0) return;
+        G.begin(0);    // compile the adjacency arrays before the workers share them
+        int grain = Math.max(1, G.V() / (8 * pool.getParallelism()));
+        pool.invoke(new Sources(G, consumer, 0, G.V(), grain));
+    }
+
+    // searches from every source in [lo, hi), splitting the range while it is larger than grain
+    private static class Sources extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final EdgeWeightedDigraph G;
+        private final RowConsumer consumer;
+        private final int lo, hi, grain;
+
+        Sources(EdgeWeightedDigraph G, RowConsumer consumer, int lo, int hi, int grain) {
+            this.G = G;
+            this.consumer = consumer;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        protected void compute() {
+            if (hi - lo <= grain) {
+                DijkstraSP tree = new DijkstraSP(G);
+                for (int s = lo; s < hi; s++) {
+                    tree.search(s);
+                    consumer.accept(s, tree);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Sources(G, consumer, lo, mid, grain),
+                      new Sources(G, consumer, mid, hi, grain));
+        }
+    }
+
+    /**
+     * Returns a shortest path from vertex <tt>s</tt> to vertex <tt>t</tt>.
+     * @param s the source vertex
+     * @param t the destination vertex
+     * @return a shortest path from vertex <tt>s</tt> to vertex <tt>t</tt>
+     *    as an iterable of vertices, and <tt>null</tt> if no such path
+     * @throws UnsupportedOperationException if paths were not kept
+     */
+    public Iterable<Integer> path(int s, int t) {
+        if (edgeTo == null) throw new UnsupportedOperationException("paths were not kept");
+        if (!hasPath(s, t)) return null;
+        int[] prev = edgeTo[s];
+        Stack<Integer> path = new Stack<Integer>();
+        for (int x = t; x != -1; x = prev[x]) {
+            path.push(x);
+        }
+        return path;
+    }
+
+    /**
+     * Is there a path from the vertex <tt>s</tt> to vertex <tt>t</tt>?
+     * @param s the source vertex
+     * @param t the destination vertex
+     * @return <tt>true</tt> if there is a path from vertex <tt>s</tt>
+     *    to vertex <tt>t</tt>, and <tt>false</tt> otherwise
+     */
+    public boolean hasPath(int s, int t) {
+        return dist[s][t] < Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the length of a shortest path from vertex <tt>s</tt> to vertex <tt>t</tt>.
+     * @param s the source vertex
+     * @param t the destination vertex
+     * @return the length of a shortest path from vertex <tt>s</tt> to vertex <tt>t</tt>;
+     *    <tt>Float.POSITIVE_INFINITY</tt> if no such path
+     */
+    public float dist(int s, int t) {
+        return dist[s][t];
+    }
+
+    /**
+     * Unit tests the <tt>DijkstraAllPairsSP</tt> data type.
+     */
+    public static void main(String[] args) {
+        // tinyEWD.txt
+        int[] mas = {4, 5, 5, 4, 4, 7, 5, 7, 7, 5, 5, 1, 0, 4, 0, 2, 7, 3, 1, 3, 2, 7, 6, 2, 3, 6, 6, 0, 6, 4};
+        double[] weights = {0.35, 0.35, 0.37, 0.28, 0.28, 0.32, 0.38, 0.26, 0.39, 0.29, 0.34, 0.40, 0.52, 0.58, 0.93};
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(8, 15, mas, weights);
+        DijkstraAllPairsSP spt = new DijkstraAllPairsSP(G);
+
+        System.out.print("    ");
+        for (int v = 0; v < G.V(); v++) {
+            System.out.printf("%6d", v);
+        }
+        System.out.println();
+        for (int v = 0; v < G.V(); v++) {
+            System.out.printf("%3d: ", v);
+            for (int w = 0; w < G.V(); w++) {
+                if (spt.hasPath(v, w)) System.out.printf("%6.2f", spt.dist(v, w));
+                else                   System.out.printf("   Inf");
+            }
+            System.out.println();
+        }
+    }
+}
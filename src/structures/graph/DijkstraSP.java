@@ -1,219 +1,314 @@
-package structures.graph;//package graph;
-//
-///*************************************************************************
-// *  Compilation:  javac DijkstraSP.java
-// *  Execution:    java DijkstraSP input.txt s
-// *  Dependencies: EdgeWeightedDigraph.java IndexMinPQ.java Stack.java DirectedEdge.java
-// *  Data files:   http://algs4.cs.princeton.edu/44sp/tinyEWD.txt
-// *                http://algs4.cs.princeton.edu/44sp/mediumEWD.txt
-// *                http://algs4.cs.princeton.edu/44sp/largeEWD.txt
-// *
-// *  Dijkstra's algorithm. Computes the shortest path tree.
-// *  Assumes all weights are nonnegative.
-// *
-// *  % java DijkstraSP tinyEWD.txt 0
-// *  0 to 0 (0.00)
-// *  0 to 1 (1.05)  0->4  0.38   4->5  0.35   5->1  0.32
-// *  0 to 2 (0.26)  0->2  0.26
-// *  0 to 3 (0.99)  0->2  0.26   2->7  0.34   7->3  0.39
-// *  0 to 4 (0.38)  0->4  0.38
-// *  0 to 5 (0.73)  0->4  0.38   4->5  0.35
-// *  0 to 6 (1.51)  0->2  0.26   2->7  0.34   7->3  0.39   3->6  0.52
-// *  0 to 7 (0.60)  0->2  0.26   2->7  0.34
-// *
-// *  % java DijkstraSP mediumEWD.txt 0
-// *  0 to 0 (0.00)
-// *  0 to 1 (0.71)  0->44  0.06   44->93  0.07   ...  107->1  0.07
-// *  0 to 2 (0.65)  0->44  0.06   44->231  0.10  ...  42->2  0.11
-// *  0 to 3 (0.46)  0->97  0.08   97->248  0.09  ...  45->3  0.12
-// *  0 to 4 (0.42)  0->44  0.06   44->93  0.07   ...  77->4  0.11
-// *  ...
-// *
-// *************************************************************************/
-//
-//
-///**
-// *  The <tt>DijkstraSP</tt> class represents a data type for solving the
-// *  single-source shortest paths problem in edge-weighted digraphs
-// *  where the edge weights are nonnegative.
-// *  <p>
-// *  This implementation uses Dijkstra's algorithm with a binary heap.
-// *  The constructor takes time proportional to <em>E</em> log <em>V</em>,
-// *  where <em>V</em> is the number of vertices and <em>E</em> is the number of edges.
-// *  Afterwards, the <tt>distTo()</tt> and <tt>hasPathTo()</tt> methods take
-// *  constant time and the <tt>pathTo()</tt> method takes time proportional to the
-// *  number of edges in the shortest path returned.
-// *  <p>
-// *  For additional documentation, see <a href="/algs4/44sp">Section 4.4</a> of
-// *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
-// *
-// *  @author Robert Sedgewick
-// *  @author Kevin Wayne
-// */
-//public class DijkstraSP {
-//
-//    private double[] distTo;          // distTo[v] = distance  of shortest s->v path
-//    private DirectedEdge[] edgeTo;    // edgeTo[v] = last edge on shortest s->v path
-//    private IndexMinPQ<Double> pq;    // priority queue of vertices
-//
-//    /**
-//     * Computes a shortest paths tree from <tt>s</tt> to every other vertex in
-//     * the edge-weighted digraph <tt>G</tt>.
-//     * @param G the edge-weighted digraph
-//     * @param s the source vertex
-//     * @throws IllegalArgumentException if an edge weight is negative
-//     * @throws IllegalArgumentException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
-//     */
-//    public DijkstraSP(EdgeWeightedDigraph G, int s) {
-//        for (DirectedEdge e : G.edges()) {
-//            if (e.weight() < 0)
-//                throw new IllegalArgumentException("edge " + e + " has negative weight");
-//        }
-//
-//        distTo = new double[G.V()];
-//        edgeTo = new DirectedEdge[G.V()];
-//        for (int v = 0; v < G.V(); v++)
-//            distTo[v] = Double.POSITIVE_INFINITY;
-//        distTo[s] = 0.0;
-//
-//        // relax vertices in order of distance from s
-//        pq = new IndexMinPQ<Double>(G.V());
-//        pq.insert(s, distTo[s]);
-//        while (!pq.isEmpty()) {
-//            int v = pq.delMin();
-//            for (DirectedEdge e : G.adj(v))
-//                relax(e);
-//        }
-//
-//        // check optimality conditions
-//        assert check(G, s);
-//    }
-//
-//    // relax edge e and update pq if changed
-//    private void relax(DirectedEdge e) {
-//        int v = e.from(), w = e.to();
-//        if (distTo[w] > distTo[v] + e.weight()) {
-//            distTo[w] = distTo[v] + e.weight();
-//            edgeTo[w] = e;
-//            if (pq.contains(w)) pq.decreaseKey(w, distTo[w]);
-//            else                pq.insert(w, distTo[w]);
-//        }
-//    }
-//
-//    /**
-//     * Returns the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>.
-//     * @param v the destination vertex
-//     * @return the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>;
-//     *    <tt>Double.POSITIVE_INFINITY</tt> if no such path
-//     */
-//    public double distTo(int v) {
-//        return distTo[v];
-//    }
-//
-//    /**
-//     * Is there a path from the source vertex <tt>s</tt> to vertex <tt>v</tt>?
-//     * @param v the destination vertex
-//     * @return <tt>true</tt> if there is a path from the source vertex
-//     *    <tt>s</tt> to vertex <tt>v</tt>, and <tt>false</tt> otherwise
-//     */
-//    public boolean hasPathTo(int v) {
-//        return distTo[v] < Double.POSITIVE_INFINITY;
-//    }
-//
-//    /**
-//     * Returns a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>.
-//     * @param v the destination vertex
-//     * @return a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>
-//     *    as an iterable of edges, and <tt>null</tt> if no such path
-//     */
-//    public Iterable<DirectedEdge> pathTo(int v) {
-//        if (!hasPathTo(v)) return null;
-//        Stack<DirectedEdge> path = new Stack<DirectedEdge>();
-//        for (DirectedEdge e = edgeTo[v]; e != null; e = edgeTo[e.from()]) {
-//            path.push(e);
-//        }
-//        return path;
-//    }
-//
-//
-//    // check optimality conditions:
-//    // (i) for all edges e:            distTo[e.to()] <= distTo[e.from()] + e.weight()
-//    // (ii) for all edge e on the SPT: distTo[e.to()] == distTo[e.from()] + e.weight()
-//    private boolean check(EdgeWeightedDigraph G, int s) {
-//
-//        // check that edge weights are nonnegative
-//        for (DirectedEdge e : G.edges()) {
-//            if (e.weight() < 0) {
-//                System.err.println("negative edge weight detected");
-//                return false;
-//            }
-//        }
-//
-//        // check that distTo[v] and edgeTo[v] are consistent
-//        if (distTo[s] != 0.0 || edgeTo[s] != null) {
-//            System.err.println("distTo[s] and edgeTo[s] inconsistent");
-//            return false;
-//        }
-//        for (int v = 0; v < G.V(); v++) {
-//            if (v == s) continue;
-//            if (edgeTo[v] == null && distTo[v] != Double.POSITIVE_INFINITY) {
-//                System.err.println("distTo[] and edgeTo[] inconsistent");
-//                return false;
-//            }
-//        }
-//
-//        // check that all edges e = v->w satisfy distTo[w] <= distTo[v] + e.weight()
-//        for (int v = 0; v < G.V(); v++) {
-//            for (DirectedEdge e : G.adj(v)) {
-//                int w = e.to();
-//                if (distTo[v] + e.weight() < distTo[w]) {
-//                    System.err.println("edge " + e + " not relaxed");
-//                    return false;
-//                }
-//            }
-//        }
-//
-//        // check that all edges e = v->w on SPT satisfy distTo[w] == distTo[v] + e.weight()
-//        for (int w = 0; w < G.V(); w++) {
-//            if (edgeTo[w] == null) continue;
-//            DirectedEdge e = edgeTo[w];
-//            int v = e.from();
-//            if (w != e.to()) return false;
-//            if (distTo[v] + e.weight() != distTo[w]) {
-//                System.err.println("edge " + e + " on shortest path not tight");
-//                return false;
-//            }
-//        }
-//        return true;
-//    }
-//
-//
-//    /**
-//     * Unit tests the <tt>DijkstraSP</tt> data type.
-//     */
-//    public static void main(String[] args) {
-//        In in = new In(args[0]);
-//        EdgeWeightedDigraph G = new EdgeWeightedDigraph(in);
-//        int s = Integer.parseInt(args[1]);
-//
-//        // compute shortest paths
-//        DijkstraSP sp = new DijkstraSP(G, s);
-//
-//
-//        // print shortest path
-//        for (int t = 0; t < G.V(); t++) {
-//            if (sp.hasPathTo(t)) {
-//                StdOut.printf("%d to %d (%.2f)  ", s, t, sp.distTo(t));
-//                if (sp.hasPathTo(t)) {
-//                    for (DirectedEdge e : sp.pathTo(t)) {
-//                        StdOut.print(e + "   ");
-//                    }
-//                }
-//                StdOut.println();
-//            }
-//            else {
-//                StdOut.printf("%d to %d         no path\n", s, t);
-//            }
-//        }
-//    }
-//}
+package structures.graph;
+
+import structures.lists.Stack;
+
+/*************************************************************************
+ *  Compilation:  javac DijkstraSP.java
+ *  Execution:    java DijkstraSP s
+ *  Dependencies: EdgeWeightedDigraph.java IndexDaryMinPQ.java Stack.java
+ *  Data files:   http://algs4.cs.princeton.edu/44sp/tinyEWD.txt
+ *
+ *  Dijkstra's algorithm. Computes the shortest path tree.
+ *  Assumes all weights are nonnegative.
+ *
+ *  % java DijkstraSP 0
+ *  0 to 0 (0.00)  0
+ *  0 to 1 (1.05)  0->4->5->1
+ *  0 to 2 (0.26)  0->2
+ *  0 to 3 (0.99)  0->2->7->3
+ *  0 to 4 (0.38)  0->4
+ *  0 to 5 (0.73)  0->4->5
+ *  0 to 6 (1.51)  0->2->7->3->6
+ *  0 to 7 (0.60)  0->2->7
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>DijkstraSP</tt> class represents a data type for solving the
+ *  single-source shortest paths problem in edge-weighted digraphs
+ *  where the edge weights are nonnegative.
+ *  <p>
+ *  This implementation uses Dijkstra's algorithm with an {@link IndexDaryMinPQ}.
+ *  A search takes time proportional to <em>E</em> log <em>V</em>,
+ *  where <em>V</em> is the number of vertices and <em>E</em> is the number of edges.
+ *  Afterwards, the <tt>distTo()</tt> and <tt>hasPathTo()</tt> methods take
+ *  constant time and the <tt>pathTo()</tt> methods take time proportional to the
+ *  number of edges in the shortest path returned.
+ *  <p>
+ *  Edges are relaxed straight from the primitive adjacency arrays of the
+ *  digraph and the tree is kept as a parent array, so the search creates no
+ *  objects. One <tt>DijkstraSP</tt> can answer any number of searches: each
+ *  {@link #search(int)} or {@link #search(int, int)} only resets the vertices
+ *  the previous search reached, so a point-to-point search that stops early
+ *  does work proportional to the part of the graph it explores, not to <em>V</em>.
+ *  <p>
+ *  For additional documentation, see <a href="/algs4/44sp">Section 4.4</a> of
+ *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
+ *
+ *  @author Robert Sedgewick
+ *  @author Kevin Wayne
+ */
+public class DijkstraSP {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private final EdgeWeightedDigraph G;
+    private final double[] distTo;     // distTo[v] = distance of shortest s->v path
+    private final int[] edgeTo;        // edgeTo[v] = previous vertex on shortest s->v path, -1 if none
+    private final IndexDaryMinPQ pq;   // priority queue of vertices
+    private final int[] reached;       // vertices with a finite distTo, in order of discovery
+    private int reachedCount;
+    private int settledCount;          // vertices removed from pq by the last search
+    private int s = -1;                // source of the last search
+
+    /**
+     * Computes a shortest paths tree from <tt>s</tt> to every other vertex in
+     * the edge-weighted digraph <tt>G</tt>.
+     * @param G the edge-weighted digraph
+     * @param s the source vertex
+     * @throws IllegalArgumentException if an edge weight is negative
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public DijkstraSP(EdgeWeightedDigraph G, int s) {
+        this(G);
+        search(s);
+
+        // check optimality conditions
+        assert check(s);
+    }
+
+    /**
+     * Initializes a reusable search over the edge-weighted digraph <tt>G</tt>
+     * without running it.
+     * @param G the edge-weighted digraph
+     * @throws IllegalArgumentException if an edge weight is negative
+     */
+    public DijkstraSP(EdgeWeightedDigraph G) {
+        if (G.minWeight() < 0)
+            throw new IllegalArgumentException("edge weight " + G.minWeight() + " is negative");
+        this.G = G;
+        distTo = new double[G.V()];
+        edgeTo = new int[G.V()];
+        reached = new int[G.V()];
+        pq = new IndexDaryMinPQ(G.V());
+        for (int v = 0; v < G.V(); v++) {
+            distTo[v] = INFINITY;
+            edgeTo[v] = -1;
+        }
+    }
+
+    /**
+     * Computes a shortest paths tree from <tt>s</tt>, replacing the previous one.
+     * @param s the source vertex
+     * @throws IllegalArgumentException if an edge weight is negative
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     */
+    public void search(int s) {
+        search(s, -1);
+    }
+
+    /**
+     * Computes a shortest path from <tt>s</tt> to <tt>t</tt>, stopping as soon as
+     * <tt>t</tt> is settled. Afterwards only <tt>distTo(t)</tt> and <tt>pathTo(t)</tt>
+     * (and the answers for vertices settled before <tt>t</tt>) are final.
+     * @param s the source vertex
+     * @param t the destination vertex, or -1 to build the whole tree
+     * @return true if there is a path from <tt>s</tt> to <tt>t</tt>
+     * @throws IllegalArgumentException if an edge weight is negative
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>s</tt> &le; <tt>V</tt> - 1
+     *    and <tt>t</tt> is -1 or 0 &le; <tt>t</tt> &le; <tt>V</tt> - 1
+     */
+    public boolean search(int s, int t) {
+        validateVertex(s);
+        if (t != -1) validateVertex(t);
+        if (G.minWeight() < 0)
+            throw new IllegalArgumentException("edge weight " + G.minWeight() + " is negative");
+        reset();
+        this.s = s;
+        distTo[s] = 0.0;
+        reached[reachedCount++] = s;
+
+        // relax vertices in order of distance from s
+        pq.insert(s, 0.0);
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            settledCount++;
+            if (v == t) break;
+            double dv = distTo[v];
+            for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                int w = G.target(i);
+                double dw = dv + G.weight(i);
+                if (dw < distTo[w]) {
+                    if (distTo[w] == INFINITY) reached[reachedCount++] = w;
+                    distTo[w] = dw;
+                    edgeTo[w] = v;
+                    pq.insertOrDecrease(w, dw);
+                }
+            }
+        }
+        pq.clear();
+        return t >= 0 && distTo[t] < INFINITY;
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= G.V()) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (G.V()-1));
+    }
+
+    // forget the previous search, touching only the vertices it reached
+    private void reset() {
+        for (int k = 0; k < reachedCount; k++) {
+            int v = reached[k];
+            distTo[v] = INFINITY;
+            edgeTo[v] = -1;
+        }
+        reachedCount = 0;
+        settledCount = 0;
+    }
+
+    /**
+     * Returns the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>.
+     * @param v the destination vertex
+     * @return the length of a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>;
+     *    <tt>Double.POSITIVE_INFINITY</tt> if no such path
+     */
+    public double distTo(int v) {
+        return distTo[v];
+    }
+
+    /**
+     * Is there a path from the source vertex <tt>s</tt> to vertex <tt>v</tt>?
+     * @param v the destination vertex
+     * @return <tt>true</tt> if there is a path from the source vertex
+     *    <tt>s</tt> to vertex <tt>v</tt>, and <tt>false</tt> otherwise
+     */
+    public boolean hasPathTo(int v) {
+        return distTo[v] < INFINITY;
+    }
+
+    /**
+     * Returns the vertex before <tt>v</tt> on the shortest path from the source.
+     * @param v the destination vertex
+     * @return the previous vertex on the shortest path, or -1 if <tt>v</tt> is the source or unreachable
+     */
+    public int edgeTo(int v) {
+        return edgeTo[v];
+    }
+
+    /**
+     * Returns the number of vertices the last search removed from its priority queue.
+     * @return the number of settled vertices
+     */
+    public int settledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Copies a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>
+     * into <tt>path</tt>, source first, without allocating.
+     * @param v the destination vertex
+     * @param path the array to fill, long enough for the path
+     * @return the number of vertices on the path, or 0 if there is no path
+     * @throws ArrayIndexOutOfBoundsException if <tt>path</tt> is too short
+     */
+    public int pathTo(int v, int[] path) {
+        if (!hasPathTo(v)) return 0;
+        int length = 0;
+        for (int x = v; x != -1; x = edgeTo[x]) length++;
+        if (length > path.length) throw new ArrayIndexOutOfBoundsException("path has " + length + " vertices");
+        int k = length;
+        for (int x = v; x != -1; x = edgeTo[x]) path[--k] = x;
+        return length;
+    }
+
+    /**
+     * Returns a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>.
+     * @param v the destination vertex
+     * @return a shortest path from the source vertex <tt>s</tt> to vertex <tt>v</tt>
+     *    as an iterable of vertices, and <tt>null</tt> if no such path
+     */
+    public Iterable<Integer> pathTo(int v) {
+        if (!hasPathTo(v)) return null;
+        Stack<Integer> path = new Stack<Integer>();
+        for (int x = v; x != -1; x = edgeTo[x]) {
+            path.push(x);
+        }
+        return path;
+    }
+
+
+    // check optimality conditions:
+    // (i) for all edges v->w:            distTo[w] <= distTo[v] + weight
+    // (ii) for all edges v->w on the SPT: distTo[w] == distTo[v] + weight
+    private boolean check(int s) {
+
+        // check that distTo[v] and edgeTo[v] are consistent
+        if (distTo[s] != 0.0 || edgeTo[s] != -1) {
+            System.err.println("distTo[s] and edgeTo[s] inconsistent");
+            return false;
+        }
+        for (int v = 0; v < G.V(); v++) {
+            if (v == s) continue;
+            if (edgeTo[v] == -1 && distTo[v] != INFINITY) {
+                System.err.println("distTo[] and edgeTo[] inconsistent");
+                return false;
+            }
+        }
+
+        // check that all edges v->w satisfy distTo[w] <= distTo[v] + weight
+        for (int v = 0; v < G.V(); v++) {
+            for (int i = G.begin(v); i < G.end(v); i++) {
+                int w = G.target(i);
+                if (distTo[v] + G.weight(i) < distTo[w]) {
+                    System.err.println("edge " + v + "->" + w + " not relaxed");
+                    return false;
+                }
+            }
+        }
+
+        // check that all edges v->w on SPT satisfy distTo[w] == distTo[v] + weight
+        for (int w = 0; w < G.V(); w++) {
+            int v = edgeTo[w];
+            if (v == -1) continue;
+            boolean tight = false;
+            for (int i = G.begin(v); i < G.end(v); i++) {
+                if (G.target(i) == w && distTo[v] + G.weight(i) == distTo[w]) tight = true;
+            }
+            if (!tight) {
+                System.err.println("edge " + v + "->" + w + " on shortest path not tight");
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Unit tests the <tt>DijkstraSP</tt> data type.
+     */
+    public static void main(String[] args) {
+        // tinyEWD.txt
+        int[] mas = {4, 5, 5, 4, 4, 7, 5, 7, 7, 5, 5, 1, 0, 4, 0, 2, 7, 3, 1, 3, 2, 7, 6, 2, 3, 6, 6, 0, 6, 4};
+        double[] weights = {0.35, 0.35, 0.37, 0.28, 0.28, 0.32, 0.38, 0.26, 0.39, 0.29, 0.34, 0.40, 0.52, 0.58, 0.93};
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(8, 15, mas, weights);
+        int s = Integer.parseInt(args[0]);
+
+        // compute shortest paths
+        DijkstraSP sp = new DijkstraSP(G, s);
+
+
+        // print shortest path
+        for (int t = 0; t < G.V(); t++) {
+            if (sp.hasPathTo(t)) {
+                System.out.printf("%d to %d (%.2f)  ", s, t, sp.distTo(t));
+                for (int x : sp.pathTo(t)) {
+                    if (x == s) System.out.print(x);
+                    else        System.out.print("->" + x);
+                }
+                System.out.println();
+            }
+            else {
+                System.out.printf("%d to %d         no path\n", s, t);
+            }
+        }
+    }
+}
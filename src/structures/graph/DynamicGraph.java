@@ -0,0 +1,518 @@
+package structures.graph;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*************************************************************************
+ *  Compilation:  javac DynamicGraph.java
+ *  Execution:    java DynamicGraph
+ *  Dependencies: CSRGraph.java
+ *
+ *  A mutable graph with edge ids, constant time edge insertion and
+ *  deletion over per-vertex primitive arrays, fail-fast iteration and
+ *  compaction of the edge ids.
+ *
+ *  % java DynamicGraph
+ *  13 vertices, 13 edges
+ *  0: 5 1 2 6
+ *  1: 0
+ *  2: 0
+ *  3: 4 5
+ *  4: 3 6 5
+ *  5: 0 4 3
+ *  6: 4 0
+ *  7: 8
+ *  8: 7
+ *  9: 12 10 11
+ *  10: 9
+ *  11: 12 9
+ *  12: 9 11
+ *
+ *  removed 0-5 (edge 0), 4-6 (edge 4) and 9-12 (edge 3)
+ *  13 vertices, 10 edges
+ *  0: 6 1 2
+ *  1: 0
+ *  2: 0
+ *  3: 4 5
+ *  4: 3 5
+ *  5: 3 4
+ *  6: 0
+ *  7: 8
+ *  8: 7
+ *  9: 11 10
+ *  10: 9
+ *  11: 12 9
+ *  12: 11
+ *
+ *  re-added 6-4 as edge 3, iterator of adj(0) then threw ConcurrentModificationException
+ *  star of 100000 edges: 331072 adjacency slots, 0 after removing them
+ *  compacted ids: 11 edges in ids 0 to 10
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>DynamicGraph</tt> class represents a directed or undirected graph of
+ *  vertices named 0 through <em>V</em> - 1 whose edges can be removed as well as added.
+ *  Every edge gets an <em>edge id</em> when it is added; the id stays the same
+ *  until the edge is removed, after which it may be given to a new edge.
+ *  Parallel edges and self-loops are permitted.
+ *  <p>
+ *  The adjacency list of each vertex is a primitive array of <em>half-edges</em>:
+ *  edge <tt>e</tt> from <tt>v</tt> to <tt>w</tt> is half-edge 2<tt>e</tt> in the list
+ *  of <tt>v</tt> and, in an undirected graph, half-edge 2<tt>e</tt> + 1 in the list of
+ *  <tt>w</tt>. Every half-edge remembers its position in its list, so
+ *  {@link #removeEdge(int)} moves the last half-edge of the list into the hole
+ *  (swap-remove) in constant time. Lists are not kept in any particular order.
+ *  <p>
+ *  A list doubles when it is full and halves when it is a quarter full, like a
+ *  resizing array stack, so adding and removing edges take constant amortized
+ *  time and a vertex that loses most of its edges gives the memory back at once;
+ *  an empty list takes no memory at all.
+ *  The arrays indexed by edge id can only shrink by renumbering the edges, which
+ *  {@link #compact()} does on request after mass deletions.
+ *  <p>
+ *  Every change increments {@link #version()}. The iterators of {@link #adj(int)}
+ *  are fail-fast: they throw a <tt>ConcurrentModificationException</tt> once the
+ *  graph has changed. The index loop over {@link #degree(int)} and
+ *  {@link #neighbor(int, int)} allocates nothing; a caller holding a position
+ *  across changes can compare versions itself. {@link #freeze()} copies the
+ *  graph into a {@link CSRGraph} for the searches that take an {@link IntGraph}.
+ *  <p>
+ *  This class is not thread-safe.
+ */
+public class DynamicGraph {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int V;
+    private int E;
+    private final boolean directed;
+    private final int[][] adj;    // adj[v][0..size[v]) = half-edges in the list of v
+    private final int[] size;
+    private int[] node;           // node[2e] = tail of edge e, node[2e+1] = head, -1 if e is free
+    private int[] pos;            // pos[h] = position of half-edge h in its list
+    private int[] free;           // stack of free edge ids below the high-water mark
+    private int freeCount;
+    private int ids;              // edge ids ever used, the high-water mark
+    private long version;
+
+    /**
+     * Initializes an empty graph with <tt>V</tt> vertices and 0 edges.
+     * @param V the number of vertices
+     * @param directed true for a digraph, false for an undirected graph
+     * @throws IllegalArgumentException if <tt>V</tt> &lt; 0
+     */
+    public DynamicGraph(int V, boolean directed) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be nonnegative");
+        this.V = V;
+        this.directed = directed;
+        adj = new int[V][];
+        size = new int[V];
+        for (int v = 0; v < V; v++) {
+            adj[v] = EMPTY;
+        }
+        node = new int[2];
+        pos = new int[2];
+        free = new int[1];
+    }
+
+    /**
+     * Initializes a graph with <em>V</em> vertices from the first <em>E</em> pairs
+     * of <tt>mas</tt>; edge <tt>i</tt> gets the id <tt>i</tt>.
+     * @param V the number of vertices
+     * @param E the number of edges
+     * @param mas the edges as pairs of endpoints
+     * @param directed true for a digraph, false for an undirected graph
+     * @throws IllegalArgumentException if the number of vertices or edges is negative
+     * @throws IndexOutOfBoundsException if the endpoints of any edge are not in prescribed range
+     */
+    public DynamicGraph(int V, int E, int[] mas, boolean directed) {
+        this(V, directed);
+        if (E < 0) throw new IllegalArgumentException("Number of edges must be nonnegative");
+        for (int i = 0; i < E; i++) {
+            addEdge(mas[2*i], mas[2*i+1]);
+        }
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     * @return the number of vertices in the graph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     * @return the number of edges in the graph
+     */
+    public int E() {
+        return E;
+    }
+
+    /**
+     * Is this a directed graph?
+     * @return true if every edge is stored once, false if it is stored in both directions
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Returns the number of changes made to the graph so far.
+     * @return the version of the graph
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Adds the edge v-w (or v->w in a digraph) to the graph.
+     * @param v one vertex in the edge
+     * @param w the other vertex in the edge
+     * @return the id of the new edge
+     * @throws IndexOutOfBoundsException unless both 0 &le; v &lt; V and 0 &le; w &lt; V
+     */
+    public int addEdge(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        int e;
+        if (freeCount > 0) e = free[--freeCount];
+        else {
+            if (2 * ids == node.length) resizeEdges(2 * node.length);
+            e = ids++;
+        }
+        node[2*e] = v;
+        node[2*e+1] = w;
+        append(v, 2*e);
+        if (!directed) append(w, 2*e+1);
+        E++;
+        version++;
+        return e;
+    }
+
+    /**
+     * Removes the edge with id <tt>e</tt>.
+     * @param e the edge id
+     * @throws IllegalArgumentException unless <tt>e</tt> is the id of an edge of the graph
+     */
+    public void removeEdge(int e) {
+        validateEdge(e);
+        remove(2*e);
+        if (!directed) remove(2*e+1);
+        node[2*e] = -1;
+        node[2*e+1] = -1;
+        if (freeCount == free.length) {
+            int[] copy = new int[2 * free.length];
+            System.arraycopy(free, 0, copy, 0, freeCount);
+            free = copy;
+        }
+        free[freeCount++] = e;
+        E--;
+        version++;
+    }
+
+    /**
+     * Removes one edge v-w (or v->w in a digraph), if there is one. Takes time
+     * proportional to the degree of <tt>v</tt>.
+     * @param v one vertex in the edge
+     * @param w the other vertex in the edge
+     * @return the id the removed edge had, or -1 if there is no such edge
+     * @throws IndexOutOfBoundsException unless both 0 &le; v &lt; V and 0 &le; w &lt; V
+     */
+    public int removeEdge(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        int[] list = adj[v];
+        for (int k = 0; k < size[v]; k++) {
+            int h = list[k];
+            if (node[h ^ 1] == w) {
+                removeEdge(h >> 1);
+                return h >> 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Is <tt>e</tt> the id of an edge of the graph?
+     * @param e the edge id
+     * @return true if the graph has an edge with id <tt>e</tt>
+     */
+    public boolean hasEdge(int e) {
+        return e >= 0 && e < ids && node[2*e] != -1;
+    }
+
+    /**
+     * Returns the tail of edge <tt>e</tt>, the vertex it was added from.
+     * @param e the edge id
+     * @return the first endpoint of the edge
+     * @throws IllegalArgumentException unless <tt>e</tt> is the id of an edge of the graph
+     */
+    public int from(int e) {
+        validateEdge(e);
+        return node[2*e];
+    }
+
+    /**
+     * Returns the head of edge <tt>e</tt>, the vertex it was added to.
+     * @param e the edge id
+     * @return the second endpoint of the edge
+     * @throws IllegalArgumentException unless <tt>e</tt> is the id of an edge of the graph
+     */
+    public int to(int e) {
+        validateEdge(e);
+        return node[2*e+1];
+    }
+
+    /**
+     * Returns the number of edges in the list of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the degree of <tt>v</tt> (the out-degree in a digraph)
+     * @throws IndexOutOfBoundsException unless 0 &le; v &lt; V
+     */
+    public int degree(int v) {
+        validateVertex(v);
+        return size[v];
+    }
+
+    /**
+     * Returns the neighbor at position <tt>k</tt> in the list of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @param k the position, between 0 and <tt>degree(v)</tt> - 1
+     * @return the other endpoint of the <tt>k</tt>th edge of <tt>v</tt>
+     * @throws IndexOutOfBoundsException unless both arguments are in range
+     */
+    public int neighbor(int v, int k) {
+        return node[half(v, k) ^ 1];
+    }
+
+    /**
+     * Returns the id of the edge at position <tt>k</tt> in the list of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @param k the position, between 0 and <tt>degree(v)</tt> - 1
+     * @return the id of the <tt>k</tt>th edge of <tt>v</tt>
+     * @throws IndexOutOfBoundsException unless both arguments are in range
+     */
+    public int edge(int v, int k) {
+        return half(v, k) >> 1;
+    }
+
+    private int half(int v, int k) {
+        validateVertex(v);
+        if (k < 0 || k >= size[v]) throw new IndexOutOfBoundsException("position " + k + " is not between 0 and " + (size[v]-1));
+        return adj[v][k];
+    }
+
+    /**
+     * Returns the vertices adjacent to vertex <tt>v</tt>. The iterator throws a
+     * <tt>ConcurrentModificationException</tt> if the graph changes while it is in use.
+     * @param v the vertex
+     * @return the vertices adjacent to vertex <tt>v</tt> as an Iterable
+     * @throws IndexOutOfBoundsException unless 0 &le; v &lt; V
+     */
+    public Iterable<Integer> adj(int v) {
+        validateVertex(v);
+        return () -> new AdjIterator(v);
+    }
+
+    private class AdjIterator implements Iterator<Integer> {
+        private final int v;
+        private final long expected = version;
+        private int k;
+
+        AdjIterator(int v) {
+            this.v = v;
+        }
+
+        public boolean hasNext() {
+            if (version != expected) throw new ConcurrentModificationException();
+            return k < size[v];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Integer next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return node[adj[v][k++] ^ 1];
+        }
+    }
+
+    /**
+     * Renumbers the edges with ids 0 through <em>E</em> - 1, keeping their order,
+     * and shrinks the arrays indexed by edge id and every adjacency list to fit.
+     * Takes time proportional to <em>V</em> plus the largest id ever used.
+     * @return an array mapping every old id to its new id, or to -1 if it was free
+     */
+    public int[] compact() {
+        int[] map = new int[ids];
+        int next = 0;
+        for (int e = 0; e < ids; e++) {
+            map[e] = node[2*e] == -1 ? -1 : next++;
+        }
+        int[] newNode = new int[2 * Math.max(1, E)];
+        int[] newPos = new int[2 * Math.max(1, E)];
+        for (int e = 0; e < ids; e++) {
+            if (map[e] == -1) continue;
+            int f = map[e];
+            newNode[2*f] = node[2*e];
+            newNode[2*f+1] = node[2*e+1];
+            newPos[2*f] = pos[2*e];
+            newPos[2*f+1] = pos[2*e+1];
+        }
+        for (int v = 0; v < V; v++) {
+            int n = size[v];
+            int[] list = n == 0 ? EMPTY : new int[n];
+            for (int k = 0; k < n; k++) {
+                int h = adj[v][k];
+                list[k] = 2 * map[h >> 1] | h & 1;
+            }
+            adj[v] = list;
+        }
+        node = newNode;
+        pos = newPos;
+        free = new int[1];
+        freeCount = 0;
+        ids = E;
+        version++;
+        return map;
+    }
+
+    /**
+     * Returns an immutable copy of the graph in compressed sparse row form, with
+     * every adjacency list in the order of {@link #neighbor(int, int)}.
+     * @return the graph as a <tt>CSRGraph</tt>
+     */
+    public CSRGraph freeze() {
+        int[] offsets = new int[V + 1];
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] = offsets[v] + size[v];
+        }
+        int[] targets = new int[offsets[V]];
+        for (int v = 0; v < V; v++) {
+            int i = offsets[v];
+            for (int k = 0; k < size[v]; k++) {
+                targets[i++] = node[adj[v][k] ^ 1];
+            }
+        }
+        return new CSRGraph(offsets, targets, directed);
+    }
+
+    /**
+     * Returns the number of edge slots allocated for the adjacency lists,
+     * at least the number of half-edges stored.
+     * @return the total capacity of the adjacency lists
+     */
+    public long capacity() {
+        long total = 0;
+        for (int v = 0; v < V; v++) total += adj[v].length;
+        return total;
+    }
+
+    // appends half-edge h to the list of v
+    private void append(int v, int h) {
+        if (size[v] == adj[v].length) resize(v, Math.max(2, 2 * size[v]));
+        pos[h] = size[v];
+        adj[v][size[v]++] = h;
+    }
+
+    // swap-removes half-edge h from its list
+    private void remove(int h) {
+        int v = node[h];
+        int[] list = adj[v];
+        int k = pos[h];
+        int last = list[--size[v]];
+        list[k] = last;
+        pos[last] = k;
+        if (size[v] > 0 && size[v] == list.length / 4) resize(v, list.length / 2);
+        else if (size[v] == 0) adj[v] = EMPTY;
+    }
+
+    private void resize(int v, int capacity) {
+        int[] list = new int[capacity];
+        System.arraycopy(adj[v], 0, list, 0, size[v]);
+        adj[v] = list;
+    }
+
+    private void resizeEdges(int capacity) {
+        int[] newNode = new int[capacity];
+        int[] newPos = new int[capacity];
+        System.arraycopy(node, 0, newNode, 0, 2 * ids);
+        System.arraycopy(pos, 0, newPos, 0, 2 * ids);
+        node = newNode;
+        pos = newPos;
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    private void validateEdge(int e) {
+        if (!hasEdge(e)) throw new IllegalArgumentException(e + " is not the id of an edge");
+    }
+
+    /**
+     * Returns a string representation of the graph.
+     * This method takes time proportional to <em>E</em> + <em>V</em>.
+     * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
+     *    followed by the <em>V</em> adjacency lists
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        String NEWLINE = System.getProperty("line.separator");
+        s.append(V + " vertices, " + E + " edges " + NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(v + ": ");
+            for (int k = 0; k < size[v]; k++) {
+                s.append(node[adj[v][k] ^ 1] + " ");
+            }
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+
+
+    /**
+     * Unit tests the <tt>DynamicGraph</tt> data type.
+     */
+    public static void main(String[] args) {
+        // 0 5 4 3 0 1 9 12 6 4 5 4 0 2 11 12 9 10 0 6 7 8 9 11 5 3
+        int[] mas={0, 5, 4, 3, 0, 1, 9, 12, 6, 4, 5, 4, 0, 2, 11, 12, 9, 10, 0, 6, 7, 8, 9, 11, 5, 3};
+        DynamicGraph G = new DynamicGraph(13, 13, mas, false);
+        System.out.println(G);
+
+        int a = G.removeEdge(0, 5);
+        int b = G.removeEdge(4, 6);
+        int c = G.removeEdge(12, 9);
+        System.out.printf("removed 0-5 (edge %d), 4-6 (edge %d) and 9-12 (edge %d)%n", a, b, c);
+        System.out.println(G);
+
+        Iterator<Integer> it = G.adj(0).iterator();
+        it.next();
+        int e = G.addEdge(6, 4);
+        try {
+            it.next();
+            System.out.println("iterator of adj(0) missed the change");
+        }
+        catch (ConcurrentModificationException ex) {
+            System.out.printf("re-added 6-4 as edge %d, iterator of adj(0) then threw ConcurrentModificationException%n", e);
+        }
+
+        // a star that grows and is torn down again
+        DynamicGraph star = new DynamicGraph(100001, false);
+        int[] ids = new int[100000];
+        for (int i = 0; i < ids.length; i++) ids[i] = star.addEdge(0, i + 1);
+        long peak = star.capacity();
+        for (int i = 0; i < ids.length; i++) star.removeEdge(ids[i]);
+        System.out.printf("star of %d edges: %d adjacency slots, %d after removing them%n",
+                          ids.length, peak, star.capacity());
+
+        int[] map = G.compact();
+        int max = -1;
+        for (int id : map) max = Math.max(max, id);
+        System.out.printf("compacted ids: %d edges in ids 0 to %d%n", G.E(), max);
+    }
+}
@@ -0,0 +1,276 @@
+package structures.graph;
+
+/*************************************************************************
+ *  Compilation:  javac EdgeWeightedDigraph.java
+ *  Execution:    java EdgeWeightedDigraph
+ *  Dependencies: IntGraph.java
+ *
+ *  An edge-weighted digraph, implemented using primitive edge arrays that
+ *  are compiled into compressed sparse row form on first traversal.
+ *  Parallel edges and self-loops are permitted.
+ *
+ *  % java EdgeWeightedDigraph
+ *  8 vertices, 15 edges
+ *  0: 0->2 0.26  0->4 0.38
+ *  1: 1->3 0.29
+ *  2: 2->7 0.34
+ *  3: 3->6 0.52
+ *  4: 4->7 0.37  4->5 0.35
+ *  5: 5->1 0.32  5->7 0.28  5->4 0.35
+ *  6: 6->4 0.93  6->0 0.58  6->2 0.40
+ *  7: 7->3 0.39  7->5 0.28
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>EdgeWeightedDigraph</tt> class represents an edge-weighted
+ *  digraph of vertices named 0 through <em>V</em> - 1, where each
+ *  directed edge has a real-valued weight.
+ *  It supports adding an edge and iterating over the edges leaving a vertex.
+ *  Parallel edges and self-loops are permitted.
+ *  <p>
+ *  Edges are kept in three primitive arrays (tail, head, weight) instead of
+ *  one <tt>DirectedEdge</tt> object each. The first traversal after a
+ *  change compiles them into the {@link IntGraph} layout, so the edges
+ *  leaving <tt>v</tt> are the slots <tt>begin(v)</tt> to <tt>end(v)</tt>
+ *  with heads {@link #target(int)} and weights {@link #weight(int)},
+ *  most recently added edge first. Adding an edge takes constant amortized
+ *  time; every other operation takes constant time once the graph is compiled.
+ *  <p>
+ *  The graph may be read by several threads at once, but must not be
+ *  modified while it is being read.
+ */
+public class EdgeWeightedDigraph implements IntGraph {
+
+    private final int V;
+    private int E;
+    private int[] from;             // from[e] = tail of the e-th edge added
+    private int[] to;               // to[e] = head of the e-th edge added
+    private double[] weight;        // weight[e] = weight of the e-th edge added
+    private double minWeight = Double.POSITIVE_INFINITY;
+
+    // compiled adjacency, valid while dirty is false
+    private int[] offsets;
+    private int[] targets;
+    private double[] weights;
+    private volatile boolean dirty = true;
+
+    /**
+     * Initializes an empty edge-weighted digraph with <em>V</em> vertices and 0 edges.
+     * @param V the number of vertices
+     * @throws IllegalArgumentException if V < 0
+     */
+    public EdgeWeightedDigraph(int V) {
+        this(V, 16);
+    }
+
+    /**
+     * Initializes an empty edge-weighted digraph with room for <tt>capacity</tt> edges.
+     * @param V the number of vertices
+     * @param capacity the expected number of edges
+     * @throws IllegalArgumentException if V < 0 or capacity < 0
+     */
+    public EdgeWeightedDigraph(int V, int capacity) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices in a Digraph must be nonnegative");
+        if (capacity < 0) throw new IllegalArgumentException("Capacity must be nonnegative");
+        this.V = V;
+        this.E = 0;
+        from = new int[Math.max(capacity, 1)];
+        to = new int[from.length];
+        weight = new double[from.length];
+    }
+
+    /**
+     * Initializes an edge-weighted digraph from the first <em>E</em> pairs of <tt>mas</tt>,
+     * where the <em>i</em>-th edge has weight <tt>weights[i]</tt>.
+     * @param V the number of vertices
+     * @param E the number of edges
+     * @param mas the edges as tail, head pairs
+     * @param weights the edge weights
+     * @throws IllegalArgumentException if the number of vertices or edges is negative
+     * @throws IndexOutOfBoundsException if the endpoints of any edge are not in prescribed range
+     */
+    public EdgeWeightedDigraph(int V, int E, int[] mas, double[] weights) {
+        this(V, Math.max(E, 0));
+        if (E < 0) throw new IllegalArgumentException("Number of edges must be nonnegative");
+        for (int i = 0; i < E; i++) {
+            addEdge(mas[2*i], mas[2*i+1], weights[i]);
+        }
+    }
+
+    /**
+     * Returns the number of vertices in the edge-weighted digraph.
+     * @return the number of vertices in the edge-weighted digraph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in the edge-weighted digraph.
+     * @return the number of edges in the edge-weighted digraph
+     */
+    public int E() {
+        return E;
+    }
+
+    /**
+     * Returns the smallest edge weight, or positive infinity if there are no edges.
+     * @return the smallest edge weight
+     */
+    public double minWeight() {
+        return minWeight;
+    }
+
+    /**
+     * Adds the directed edge v->w with the given weight to the edge-weighted digraph.
+     * @param v the tail vertex
+     * @param w the head vertex
+     * @param weight the weight of the edge
+     * @throws IndexOutOfBoundsException unless both 0 <= v < V and 0 <= w < V
+     * @throws IllegalArgumentException if the weight is NaN
+     */
+    public void addEdge(int v, int w, double weight) {
+        if (v < 0 || v >= V) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V-1));
+        if (w < 0 || w >= V) throw new IndexOutOfBoundsException("vertex " + w + " is not between 0 and " + (V-1));
+        if (Double.isNaN(weight)) throw new IllegalArgumentException("Weight is NaN");
+        if (E == from.length) resize(2 * E);
+        from[E] = v;
+        to[E] = w;
+        this.weight[E] = weight;
+        E++;
+        if (weight < minWeight) minWeight = weight;
+        dirty = true;
+    }
+
+    // resize the edge arrays
+    private void resize(int capacity) {
+        int[] newFrom = new int[capacity];
+        int[] newTo = new int[capacity];
+        double[] newWeight = new double[capacity];
+        System.arraycopy(from, 0, newFrom, 0, E);
+        System.arraycopy(to, 0, newTo, 0, E);
+        System.arraycopy(weight, 0, newWeight, 0, E);
+        from = newFrom;
+        to = newTo;
+        weight = newWeight;
+    }
+
+    // compile the edge arrays into offsets/targets/weights
+    private synchronized void compile() {
+        if (!dirty) return;
+        int[] offsets = new int[V + 1];
+        for (int e = 0; e < E; e++) {
+            offsets[from[e] + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = new int[V];
+        for (int v = 0; v < V; v++) {
+            next[v] = offsets[v + 1];
+        }
+        int[] targets = new int[E];
+        double[] weights = new double[E];
+        // fill every list from its end so that the last edge added comes first, as in Bag
+        for (int e = 0; e < E; e++) {
+            int i = --next[from[e]];
+            targets[i] = to[e];
+            weights[i] = weight[e];
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        dirty = false;
+    }
+
+    /**
+     * Returns the first adjacency slot of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the index of the first edge leaving <tt>v</tt>
+     */
+    public int begin(int v) {
+        if (dirty) compile();
+        return offsets[v];
+    }
+
+    /**
+     * Returns one past the last adjacency slot of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the index after the last edge leaving <tt>v</tt>
+     */
+    public int end(int v) {
+        if (dirty) compile();
+        return offsets[v + 1];
+    }
+
+    /**
+     * Returns the head of the edge in adjacency slot <tt>i</tt>.
+     * @param i the adjacency slot
+     * @return the head vertex of the edge
+     */
+    public int target(int i) {
+        return targets[i];
+    }
+
+    /**
+     * Returns the weight of the edge in adjacency slot <tt>i</tt>.
+     * @param i the adjacency slot
+     * @return the weight of the edge
+     */
+    public double weight(int i) {
+        return weights[i];
+    }
+
+    /**
+     * Returns the number of directed edges incident from vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the outdegree of vertex <tt>v</tt>
+     */
+    public int outdegree(int v) {
+        return end(v) - begin(v);
+    }
+
+    /**
+     * Returns the reverse of the edge-weighted digraph.
+     * @return the edge-weighted digraph with every edge v->w of weight x turned into w->v of weight x
+     */
+    public EdgeWeightedDigraph reverse() {
+        EdgeWeightedDigraph R = new EdgeWeightedDigraph(V, E);
+        for (int e = 0; e < E; e++) {
+            R.addEdge(to[e], from[e], weight[e]);
+        }
+        return R;
+    }
+
+    /**
+     * Returns a string representation of the edge-weighted digraph.
+     * This method takes time proportional to <em>E</em> + <em>V</em>.
+     * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
+     *   followed by the <em>V</em> adjacency lists of edges
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        String NEWLINE = System.getProperty("line.separator");
+        s.append(V + " vertices, " + E + " edges " + NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(v + ": ");
+            for (int i = begin(v); i < end(v); i++) {
+                s.append(String.format("%d->%d %.2f  ", v, targets[i], weights[i]));
+            }
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+
+    /**
+     * Unit tests the <tt>EdgeWeightedDigraph</tt> data type.
+     */
+    public static void main(String[] args) {
+        // tinyEWD.txt
+        int[] mas = {4, 5, 5, 4, 4, 7, 5, 7, 7, 5, 5, 1, 0, 4, 0, 2, 7, 3, 1, 3, 2, 7, 6, 2, 3, 6, 6, 0, 6, 4};
+        double[] weights = {0.35, 0.35, 0.37, 0.28, 0.28, 0.32, 0.38, 0.26, 0.39, 0.29, 0.34, 0.40, 0.52, 0.58, 0.93};
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(8, 15, mas, weights);
+        System.out.println(G);
+    }
+}
@@ -0,0 +1,257 @@
+package structures.graph;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*************************************************************************
+ *  Compilation:  javac GraphFile.java
+ *  Execution:    java GraphFile input.txt output.bin [undirected]
+ *  Dependencies: IntGraph.java MappedGraph.java
+ *
+ *  Converts a text graph (V, then E, then E pairs of vertices, the format
+ *  read by the algs4 Digraph(In) and Graph(In) constructors) into the
+ *  binary CSR format, then maps the result.
+ *
+ *  % java GraphFile tinyDG.txt tinyDG.bin
+ *  tinyDG.bin: 13 vertices, 22 edges, directed
+ *  converted in 23.4 ms, mapped in 1.0 ms
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>GraphFile</tt> class reads and writes graphs in a compact binary
+ *  compressed sparse row format, for use with {@link MappedGraph}.
+ *  A file holds, in little-endian order:
+ *  <pre>
+ *      int   magic        'C' 'S' 'R' 'G'
+ *      int   version      1
+ *      int   flags        bit 0 set for a digraph
+ *      int   V            number of vertices
+ *      long  arcs         number of stored adjacency entries (E, or 2E if undirected)
+ *      int[] offsets      V + 1 entries, offsets[V] = arcs
+ *      int[] targets      arcs entries, the adjacency lists back to back
+ *  </pre>
+ *  Adjacency lists keep the order of {@link CSRGraph} and the
+ *  {@link Bag}-based classes: most recently listed edge first.
+ *  <p>
+ *  {@link #convert(Path, Path, boolean)} turns a text edge list of any size
+ *  into this format in two streaming passes, writing the targets through a
+ *  memory mapping; it needs memory proportional to <em>V</em> only.
+ */
+public class GraphFile {
+
+    static final int MAGIC = 'C' | 'S' << 8 | 'R' << 16 | 'G' << 24;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    private static final int DIRECTED = 1;
+
+    // the fields of a file header
+    static class Header {
+        final int V;
+        final int arcs;
+        final boolean directed;
+
+        Header(int V, int arcs, boolean directed) {
+            this.V = V;
+            this.arcs = arcs;
+            this.directed = directed;
+        }
+    }
+
+    // this class should not be instantiated
+    private GraphFile() { }
+
+    /**
+     * Writes the graph <tt>G</tt> to <tt>file</tt>, replacing it.
+     * @param G the graph
+     * @param directed true if <tt>G</tt> is a digraph, false if it stores every edge in both directions
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(IntGraph G, boolean directed, Path file) throws IOException {
+        int V = G.V();
+        long arcs = 0;
+        for (int v = 0; v < V; v++) {
+            arcs += G.degree(v);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            putHeader(buffer, V, arcs, directed);
+            int offset = 0;
+            buffer = putInt(channel, buffer, offset);
+            for (int v = 0; v < V; v++) {
+                offset += G.degree(v);
+                buffer = putInt(channel, buffer, offset);
+            }
+            for (int v = 0; v < V; v++) {
+                for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                    buffer = putInt(channel, buffer, G.target(i));
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    // appends an int, first writing the buffer out if it is full
+    private static ByteBuffer putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+        return buffer.putInt(value);
+    }
+
+    private static void putHeader(ByteBuffer buffer, int V, long arcs, boolean directed) {
+        if (arcs > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("A graph file holds at most " + Integer.MAX_VALUE + " adjacency entries");
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(directed ? DIRECTED : 0).putInt(V).putLong(arcs);
+    }
+
+    /**
+     * Converts the text graph <tt>text</tt> into the binary graph file <tt>binary</tt>.
+     * The text holds the number of vertices <em>V</em>, the number of edges <em>E</em>
+     * and <em>E</em> pairs of vertices, separated by whitespace.
+     * @param text the text graph
+     * @param binary the file to write
+     * @param directed true to read the pairs as directed edges, false for undirected ones
+     * @throws IOException if a file cannot be read or written, or the text is malformed
+     */
+    public static void convert(Path text, Path binary, boolean directed) throws IOException {
+        // first pass: degrees
+        int V, E;
+        int[] next;
+        try (IntReader in = new IntReader(Files.newInputStream(text))) {
+            V = in.readInt();
+            E = in.readInt();
+            if (V < 0) throw new IOException("Number of vertices must be nonnegative");
+            if (E < 0) throw new IOException("Number of edges must be nonnegative");
+            next = new int[V + 1];
+            for (int e = 0; e < E; e++) {
+                int v = in.readVertex(V);
+                int w = in.readVertex(V);
+                next[v + 1]++;
+                if (!directed) next[w + 1]++;
+            }
+        }
+        long arcs = directed ? E : 2L * E;
+
+        // header and offsets, sequentially
+        try (RandomAccessFile file = new RandomAccessFile(binary.toFile(), "rw")) {
+            file.setLength(0);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            putHeader(buffer, V, arcs, directed);
+            FileChannel channel = file.getChannel();
+            for (int v = 0; v < V; v++) {
+                next[v + 1] += next[v];
+            }
+            for (int v = 0; v <= V; v++) {
+                buffer = putInt(channel, buffer, next[v]);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            file.setLength(HEADER_BYTES + 4L * (V + 1) + 4 * arcs);
+
+            // second pass: targets, each list filled from its end so that the last edge listed comes first
+            IntBuffer[] targets = MappedGraph.map(channel, FileChannel.MapMode.READ_WRITE, HEADER_BYTES + 4L * (V + 1), arcs);
+            for (int v = 0; v < V; v++) {
+                next[v] = next[v + 1];
+            }
+            try (IntReader in = new IntReader(Files.newInputStream(text))) {
+                in.readInt();
+                in.readInt();
+                for (int e = 0; e < E; e++) {
+                    int v = in.readVertex(V);
+                    int w = in.readVertex(V);
+                    int i = --next[v];
+                    targets[i >>> MappedGraph.SHIFT].put(i & MappedGraph.MASK, w);
+                    if (!directed) {
+                        i = --next[w];
+                        targets[i >>> MappedGraph.SHIFT].put(i & MappedGraph.MASK, v);
+                    }
+                }
+            }
+        }
+    }
+
+    // reads and checks the header at the start of the channel
+    static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) throw new IOException("not a graph file: too short");
+        }
+        buffer.flip();
+        if (buffer.getInt() != MAGIC) throw new IOException("not a graph file: bad magic number");
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IOException("unsupported graph file version " + version);
+        int flags = buffer.getInt();
+        int V = buffer.getInt();
+        long arcs = buffer.getLong();
+        if (V < 0 || arcs < 0 || arcs > Integer.MAX_VALUE) throw new IOException("corrupt graph file header");
+        return new Header(V, (int) arcs, (flags & DIRECTED) != 0);
+    }
+
+    // whitespace-separated nonnegative decimal ints, without creating a String per token
+    private static class IntReader implements AutoCloseable {
+        private final InputStream in;
+
+        IntReader(InputStream in) {
+            this.in = new BufferedInputStream(in, 1 << 16);
+        }
+
+        int readInt() throws IOException {
+            int c = in.read();
+            while (c == ' ' || c == '\n' || c == '\r' || c == '\t') c = in.read();
+            if (c < 0) throw new EOFException("unexpected end of graph text");
+            if (c < '0' || c > '9') throw new IOException("unexpected character '" + (char) c + "' in graph text");
+            long value = 0;
+            while (c >= '0' && c <= '9') {
+                value = 10 * value + (c - '0');
+                if (value > Integer.MAX_VALUE) throw new IOException("number too large in graph text");
+                c = in.read();
+            }
+            return (int) value;
+        }
+
+        int readVertex(int V) throws IOException {
+            int v = readInt();
+            if (v >= V) throw new IOException("vertex " + v + " is not between 0 and " + (V-1));
+            return v;
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Converts a text graph to a binary graph file and maps it.
+     */
+    public static void main(String[] args) throws IOException {
+        Path text = Paths.get(args[0]);
+        Path binary = Paths.get(args[1]);
+        boolean directed = !(args.length > 2 && args[2].equals("undirected"));
+
+        long start = System.nanoTime();
+        convert(text, binary, directed);
+        long converted = System.nanoTime();
+        MappedGraph G = MappedGraph.open(binary);
+        long mapped = System.nanoTime();
+
+        System.out.printf("%s: %d vertices, %d edges, %s%n", binary, G.V(), G.E(), G.isDirected() ? "directed" : "undirected");
+        System.out.printf("converted in %.1f ms, mapped in %.1f ms%n", (converted - start) / 1e6, (mapped - converted) / 1e6);
+    }
+}
@@ -0,0 +1,249 @@
+package structures.graph;
+
+import java.util.NoSuchElementException;
+
+/*************************************************************************
+ *  Compilation:  javac IndexDaryMinPQ.java
+ *  Execution:    java IndexDaryMinPQ
+ *
+ *  Indexed d-ary min heap with primitive double keys.
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>IndexDaryMinPQ</tt> class represents an indexed priority queue of
+ *  integers 0 through <em>N</em> - 1, each with a <tt>double</tt> key.
+ *  It supports the usual <em>insert</em> and <em>delete-the-minimum</em>
+ *  operations, along with <em>decrease-key</em> and <em>contains</em>.
+ *  <p>
+ *  This implementation uses a <em>d</em>-ary heap stored in three primitive
+ *  arrays, so no <tt>Double</tt> is boxed. A wider heap (4 is a good default)
+ *  is shallower than a binary heap, which makes the frequent
+ *  <em>decrease-key</em> operations of Dijkstra's algorithm cheaper and
+ *  keeps the children of a node in one cache line.
+ *  The <em>insert</em> and <em>decrease-key</em> operations take time proportional to
+ *  log<sub><em>d</em></sub> <em>n</em>; <em>delete-the-minimum</em> takes time
+ *  proportional to <em>d</em> log<sub><em>d</em></sub> <em>n</em>, where <em>n</em>
+ *  is the number of elements in the queue. {@link #clear()} takes time
+ *  proportional to <em>n</em>, so one queue can serve many searches.
+ */
+public class IndexDaryMinPQ {
+
+    private final int d;         // arity of the heap
+    private final int[] pq;      // pq[k] = index stored at heap position k
+    private final int[] qp;      // qp[i] = heap position of index i, -1 if absent
+    private final double[] keys; // keys[i] = key of index i
+    private int n;               // number of elements on the heap
+
+    /**
+     * Initializes an empty 4-ary indexed priority queue with indices between <tt>0</tt> and <tt>N-1</tt>.
+     * @param N the number of indices
+     * @throws IllegalArgumentException if N < 0
+     */
+    public IndexDaryMinPQ(int N) {
+        this(N, 4);
+    }
+
+    /**
+     * Initializes an empty <tt>d</tt>-ary indexed priority queue with indices between <tt>0</tt> and <tt>N-1</tt>.
+     * @param N the number of indices
+     * @param d the arity of the heap
+     * @throws IllegalArgumentException if N < 0 or d < 2
+     */
+    public IndexDaryMinPQ(int N, int d) {
+        if (N < 0) throw new IllegalArgumentException("Number of indices must be nonnegative");
+        if (d < 2) throw new IllegalArgumentException("Arity must be at least 2");
+        this.d = d;
+        pq = new int[N];
+        qp = new int[N];
+        keys = new double[N];
+        for (int i = 0; i < N; i++) qp[i] = -1;
+    }
+
+    /**
+     * Is the priority queue empty?
+     * @return true if the priority queue is empty; false otherwise
+     */
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Returns the number of keys on the priority queue.
+     * @return the number of keys on the priority queue
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Is <tt>i</tt> an index on the priority queue?
+     * @param i an index
+     * @return true if <tt>i</tt> is on the priority queue; false otherwise
+     */
+    public boolean contains(int i) {
+        return qp[i] != -1;
+    }
+
+    /**
+     * Associates key with index <tt>i</tt>.
+     * @param i an index
+     * @param key the key to associate with index <tt>i</tt>
+     * @throws IllegalArgumentException if there already is an item associated with index <tt>i</tt>
+     */
+    public void insert(int i, double key) {
+        if (contains(i)) throw new IllegalArgumentException("index is already in the priority queue");
+        qp[i] = n;
+        pq[n] = i;
+        keys[i] = key;
+        swim(n++);
+    }
+
+    /**
+     * Decreases the key associated with index <tt>i</tt>.
+     * @param i the index of the key to decrease
+     * @param key decrease the key associated with index <tt>i</tt> to this key
+     * @throws IllegalArgumentException if key &ge; key associated with index <tt>i</tt>
+     * @throws NoSuchElementException if no key is associated with index <tt>i</tt>
+     */
+    public void decreaseKey(int i, double key) {
+        if (!contains(i)) throw new NoSuchElementException("index is not in the priority queue");
+        if (keys[i] <= key) throw new IllegalArgumentException("Calling decreaseKey() with given argument would not strictly decrease the key");
+        keys[i] = key;
+        swim(qp[i]);
+    }
+
+    /**
+     * Inserts index <tt>i</tt> with the given key, or decreases its key if it is already present.
+     * @param i an index
+     * @param key the new key, which must not be greater than the current key of <tt>i</tt>
+     */
+    public void insertOrDecrease(int i, double key) {
+        int k = qp[i];
+        if (k == -1) {
+            k = n++;
+            qp[i] = k;
+            pq[k] = i;
+        }
+        keys[i] = key;
+        swim(k);
+    }
+
+    /**
+     * Returns an index associated with a minimum key.
+     * @return an index associated with a minimum key
+     * @throws NoSuchElementException if priority queue is empty
+     */
+    public int minIndex() {
+        if (n == 0) throw new NoSuchElementException("Priority queue underflow");
+        return pq[0];
+    }
+
+    /**
+     * Returns a minimum key.
+     * @return a minimum key
+     * @throws NoSuchElementException if priority queue is empty
+     */
+    public double minKey() {
+        if (n == 0) throw new NoSuchElementException("Priority queue underflow");
+        return keys[pq[0]];
+    }
+
+    /**
+     * Returns the key associated with index <tt>i</tt>.
+     * @param i the index of the key to return
+     * @return the key associated with index <tt>i</tt>
+     * @throws NoSuchElementException no key is associated with index <tt>i</tt>
+     */
+    public double keyOf(int i) {
+        if (!contains(i)) throw new NoSuchElementException("index is not in the priority queue");
+        return keys[i];
+    }
+
+    /**
+     * Removes a minimum key and returns its associated index.
+     * @return an index associated with a minimum key
+     * @throws NoSuchElementException if priority queue is empty
+     */
+    public int delMin() {
+        if (n == 0) throw new NoSuchElementException("Priority queue underflow");
+        int min = pq[0];
+        qp[min] = -1;
+        if (--n > 0) {
+            int last = pq[n];
+            pq[0] = last;
+            qp[last] = 0;
+            sink(0);
+        }
+        return min;
+    }
+
+    /**
+     * Removes every index from the priority queue.
+     */
+    public void clear() {
+        for (int k = 0; k < n; k++) qp[pq[k]] = -1;
+        n = 0;
+    }
+
+   /***********************************************************************
+    * Heap helper functions, using a hole instead of repeated swaps.
+    **********************************************************************/
+    private void swim(int k) {
+        int i = pq[k];
+        double key = keys[i];
+        while (k > 0) {
+            int parent = (k - 1) / d;
+            int p = pq[parent];
+            if (keys[p] <= key) break;
+            pq[k] = p;
+            qp[p] = k;
+            k = parent;
+        }
+        pq[k] = i;
+        qp[i] = k;
+    }
+
+    private void sink(int k) {
+        int i = pq[k];
+        double key = keys[i];
+        while (true) {
+            int first = d * k + 1;
+            if (first >= n) break;
+            int last = Math.min(first + d, n);
+            int min = first;
+            double minKey = keys[pq[first]];
+            for (int c = first + 1; c < last; c++) {
+                double ck = keys[pq[c]];
+                if (ck < minKey) {
+                    min = c;
+                    minKey = ck;
+                }
+            }
+            if (minKey >= key) break;
+            int child = pq[min];
+            pq[k] = child;
+            qp[child] = k;
+            k = min;
+        }
+        pq[k] = i;
+        qp[i] = k;
+    }
+
+    /**
+     * Unit tests the <tt>IndexDaryMinPQ</tt> data type.
+     */
+    public static void main(String[] args) {
+        double[] keys = {0.5, 0.1, 0.9, 0.3, 0.7, 0.2};
+        IndexDaryMinPQ pq = new IndexDaryMinPQ(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            pq.insert(i, keys[i]);
+        }
+        pq.decreaseKey(2, 0.0);
+        while (!pq.isEmpty()) {
+            int i = pq.minIndex();
+            System.out.println(i + " " + pq.minKey());
+            pq.delMin();
+        }
+    }
+}
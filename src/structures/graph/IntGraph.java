@@ -0,0 +1,61 @@
+package structures.graph;
+
+/**
+ *  The <tt>IntGraph</tt> interface is a read-only view of a graph whose
+ *  adjacency lists are stored back to back in one primitive array, as in the
+ *  compressed sparse row (CSR) layout.
+ *  Vertices are named 0 through <em>V</em> - 1 and the neighbors of vertex
+ *  <tt>v</tt> occupy the slots <tt>begin(v)</tt> (inclusive) through
+ *  <tt>end(v)</tt> (exclusive), so a traversal needs no iterator:
+ *  <pre>
+ *      for (int i = G.begin(v); i &lt; G.end(v); i++) {
+ *          int w = G.target(i);
+ *          ...
+ *      }
+ *  </pre>
+ *  Undirected graphs store every edge once in each direction.
+ */
+public interface IntGraph {
+
+    /**
+     * Returns the number of vertices in the graph.
+     * @return the number of vertices in the graph
+     */
+    int V();
+
+    /**
+     * Returns the number of edges in the graph.
+     * @return the number of edges in the graph
+     */
+    int E();
+
+    /**
+     * Returns the first adjacency slot of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the index of the first neighbor of <tt>v</tt>
+     */
+    int begin(int v);
+
+    /**
+     * Returns one past the last adjacency slot of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the index after the last neighbor of <tt>v</tt>
+     */
+    int end(int v);
+
+    /**
+     * Returns the vertex stored in adjacency slot <tt>i</tt>.
+     * @param i the adjacency slot, between <tt>begin(v)</tt> and <tt>end(v)</tt> of some vertex <tt>v</tt>
+     * @return the neighbor stored in slot <tt>i</tt>
+     */
+    int target(int i);
+
+    /**
+     * Returns the number of neighbors of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the out-degree of <tt>v</tt>
+     */
+    default int degree(int v) {
+        return end(v) - begin(v);
+    }
+}
@@ -0,0 +1,399 @@
+package structures.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/*************************************************************************
+ *  Compilation:  javac Landmarks.java
+ *  Execution:    java Landmarks k
+ *  Dependencies: EdgeWeightedDigraph.java DijkstraSP.java
+ *  Data files:   http://algs4.cs.princeton.edu/44sp/tinyEWD.txt
+ *
+ *  Picks k landmarks of an edge-weighted digraph and stores the
+ *  distances from and to each of them, for the lower bounds of A*.
+ *
+ *  % java Landmarks 2
+ *  landmarks 0 6
+ *  v  from 0  to 0  from 6  to 6
+ *  0    0.00  0.00    0.58  1.51
+ *  1    1.05  1.39    1.34  0.81
+ *  2    0.26  1.83    0.40  1.25
+ *  3    0.99  1.10    1.13  0.52
+ *  4    0.38  1.86    0.93  1.28
+ *  5    0.73  1.71    1.02  1.13
+ *  6    1.51  0.58    0.00  0.00
+ *  7    0.60  1.49    0.74  0.91
+ *  bound 0->6 = 1.51 (distance 1.51), mapped copy equal: true
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>Landmarks</tt> class represents the preprocessing of the ALT
+ *  (A*, landmarks, triangle inequality) algorithm of Goldberg and Harrelson
+ *  for point-to-point shortest paths in an edge-weighted digraph with
+ *  nonnegative weights.
+ *  <p>
+ *  It picks <em>k</em> landmarks by the <em>farthest</em> heuristic: the first
+ *  is the vertex farthest from a random vertex, and every next one is the
+ *  vertex farthest from the landmarks already chosen. For every landmark
+ *  <em>L</em> and vertex <em>v</em> it keeps <em>d</em>(<em>L</em>, <em>v</em>) and
+ *  <em>d</em>(<em>v</em>, <em>L</em>), computed with {@link DijkstraSP} on the
+ *  digraph and its reverse. By the triangle inequality,
+ *  <pre>
+ *      d(v, t) &ge; d(L, t) - d(L, v)    and    d(v, t) &ge; d(v, L) - d(t, L)
+ *  </pre>
+ *  and {@link #lowerBound(int, int)} is the largest of these 2<em>k</em> bounds.
+ *  An infinite bound proves that <em>t</em> cannot be reached from <em>v</em>.
+ *  <p>
+ *  The tables are <tt>float</tt>s, 8<em>k</em> bytes per vertex, stored vertex
+ *  by vertex so that one bound reads one run of memory. To keep the bound below
+ *  the distance despite the rounding to <tt>float</tt> (and the rounding of
+ *  the <tt>double</tt> sums of a search), it is lowered by 2<sup>-20</sup> times
+ *  the largest finite distance in the tables. Preprocessing takes
+ *  2<em>k</em> runs of Dijkstra's algorithm; a bound takes time proportional to <em>k</em>.
+ *  <p>
+ *  {@link #save(Path)} writes the tables to a file and {@link #load(Path)} maps
+ *  one back with {@link FileChannel#map}, so a routing process starts without
+ *  preprocessing or copying them onto the heap. Each of the two tables must
+ *  then fit in 2GB. A <tt>Landmarks</tt> is immutable and may be used by
+ *  several threads at once.
+ */
+public class Landmarks {
+
+    private static final int MAGIC = 'A' | 'L' << 8 | 'T' << 16 | 'L' << 24;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private final int V;
+    private final int[] landmarks;
+    private final FloatBuffer from;     // from[v*k + i] = distance from landmark i to v
+    private final FloatBuffer to;       // to[v*k + i] = distance from v to landmark i
+    private final double maxDistance;   // largest finite distance in the tables
+    private final double slack;         // subtracted from every bound
+
+    /**
+     * Picks <tt>k</tt> landmarks of <tt>G</tt> and computes their distance tables.
+     * @param G the edge-weighted digraph
+     * @param k the number of landmarks
+     * @throws IllegalArgumentException if an edge weight is negative, or unless
+     *    1 &le; <tt>k</tt> &le; <tt>V</tt>
+     */
+    public Landmarks(EdgeWeightedDigraph G, int k) {
+        this(G, k, 0);
+    }
+
+    /**
+     * Picks <tt>k</tt> landmarks of <tt>G</tt>, starting from a vertex chosen with
+     * <tt>seed</tt>, and computes their distance tables.
+     * @param G the edge-weighted digraph
+     * @param k the number of landmarks
+     * @param seed the seed of the random starting vertex
+     * @throws IllegalArgumentException if an edge weight is negative, or unless
+     *    1 &le; <tt>k</tt> &le; <tt>V</tt>
+     */
+    public Landmarks(EdgeWeightedDigraph G, int k, long seed) {
+        if (k < 1 || k > G.V()) throw new IllegalArgumentException("number of landmarks " + k + " is not between 1 and " + G.V());
+        if ((long) G.V() * k > Integer.MAX_VALUE) throw new IllegalArgumentException("landmark table has more than " + Integer.MAX_VALUE + " entries");
+        V = G.V();
+        landmarks = new int[k];
+        float[] from = new float[V * k];
+        float[] to = new float[V * k];
+        DijkstraSP forward = new DijkstraSP(G);
+        DijkstraSP backward = new DijkstraSP(G.reverse());
+
+        // start the farthest heuristic from a random vertex with an edge, if there is one
+        int start = new Random(seed).nextInt(V);
+        for (int n = 0; n < V && G.outdegree(start) == 0; n++) {
+            start = (start + 1) % V;
+        }
+        forward.search(start);
+        double[] nearest = new double[V];   // distance from the nearest landmark so far
+        for (int v = 0; v < V; v++) {
+            nearest[v] = forward.distTo(v);
+        }
+
+        double max = 0.0;
+        for (int i = 0; i < k; i++) {
+            int L = farthest(nearest);
+            landmarks[i] = L;
+            forward.search(L);
+            backward.search(L);
+            for (int v = 0; v < V; v++) {
+                double d = forward.distTo(v);
+                from[v * k + i] = (float) d;
+                to[v * k + i] = (float) backward.distTo(v);
+                if (d < INFINITY && d > max) max = d;
+                if (backward.distTo(v) < INFINITY && backward.distTo(v) > max) max = backward.distTo(v);
+                // after the starting search, nearest[] measures from the landmarks only
+                if (i == 0 || d < nearest[v]) nearest[v] = d;
+            }
+            nearest[L] = -1.0;
+        }
+        this.from = FloatBuffer.wrap(from);
+        this.to = FloatBuffer.wrap(to);
+        this.maxDistance = max;
+        this.slack = Math.scalb(max, -20);
+    }
+
+    // the vertex with the largest finite distance that is not a landmark yet,
+    // or else an unreached one, to cover another part of the digraph
+    private static int farthest(double[] nearest) {
+        int best = -1;
+        double max = -1.0;
+        for (int v = 0; v < nearest.length; v++) {
+            if (nearest[v] > max && nearest[v] < INFINITY) {
+                max = nearest[v];
+                best = v;
+            }
+            else if (best == -1 && nearest[v] == INFINITY) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    private Landmarks(int V, int[] landmarks, FloatBuffer from, FloatBuffer to, double maxDistance) {
+        this.V = V;
+        this.landmarks = landmarks;
+        this.from = from;
+        this.to = to;
+        this.maxDistance = maxDistance;
+        this.slack = Math.scalb(maxDistance, -20);
+    }
+
+    /**
+     * Returns the number of vertices of the digraph the tables were computed for.
+     * @return the number of vertices
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of landmarks.
+     * @return <em>k</em>
+     */
+    public int count() {
+        return landmarks.length;
+    }
+
+    /**
+     * Returns the <tt>i</tt>-th landmark.
+     * @param i the number of the landmark, in the order they were picked
+     * @return the vertex of the landmark
+     * @throws IndexOutOfBoundsException unless 0 &le; <tt>i</tt> &lt; <tt>count()</tt>
+     */
+    public int landmark(int i) {
+        return landmarks[i];
+    }
+
+    /**
+     * Returns the distance from the <tt>i</tt>-th landmark to <tt>v</tt>, rounded to a <tt>float</tt>.
+     * @param i the number of the landmark
+     * @param v the vertex
+     * @return the distance, <tt>Float.POSITIVE_INFINITY</tt> if <tt>v</tt> is unreachable
+     */
+    public float distanceFrom(int i, int v) {
+        return from.get(v * landmarks.length + i);
+    }
+
+    /**
+     * Returns the distance from <tt>v</tt> to the <tt>i</tt>-th landmark, rounded to a <tt>float</tt>.
+     * @param i the number of the landmark
+     * @param v the vertex
+     * @return the distance, <tt>Float.POSITIVE_INFINITY</tt> if the landmark is unreachable
+     */
+    public float distanceTo(int i, int v) {
+        return to.get(v * landmarks.length + i);
+    }
+
+    /**
+     * Returns a lower bound on the length of a shortest path from <tt>v</tt> to <tt>t</tt>.
+     * @param v the first vertex
+     * @param t the second vertex
+     * @return a nonnegative lower bound, <tt>Double.POSITIVE_INFINITY</tt> if
+     *    there is provably no path from <tt>v</tt> to <tt>t</tt>
+     * @throws IndexOutOfBoundsException unless both vertices are between 0 and <tt>V</tt> - 1
+     */
+    public double lowerBound(int v, int t) {
+        int k = landmarks.length;
+        double bound = 0.0;
+        for (int i = 0; i < k; i++) {
+            // NaN, when both distances are infinite, never raises the bound
+            double a = (double) from.get(t * k + i) - from.get(v * k + i);
+            double b = (double) to.get(v * k + i) - to.get(t * k + i);
+            if (a > bound) bound = a;
+            if (b > bound) bound = b;
+        }
+        return Math.max(0.0, bound - slack);
+    }
+
+    /**
+     * Fills <tt>fromT</tt> and <tt>toT</tt> with the table rows of <tt>t</tt>, for
+     * {@link #lowerBound(int, double[], double[])} to reuse over one search.
+     * @param t the target vertex
+     * @param fromT the array to fill with the distances from the landmarks to <tt>t</tt>
+     * @param toT the array to fill with the distances from <tt>t</tt> to the landmarks
+     */
+    public void target(int t, double[] fromT, double[] toT) {
+        int k = landmarks.length;
+        for (int i = 0; i < k; i++) {
+            fromT[i] = from.get(t * k + i);
+            toT[i] = to.get(t * k + i);
+        }
+    }
+
+    /**
+     * Returns the same bound as {@link #lowerBound(int, int)}, for the target
+     * whose rows {@link #target(int, double[], double[])} filled in.
+     * @param v the first vertex
+     * @param fromT the distances from the landmarks to the target
+     * @param toT the distances from the target to the landmarks
+     * @return a nonnegative lower bound, <tt>Double.POSITIVE_INFINITY</tt> if
+     *    there is provably no path from <tt>v</tt> to the target
+     */
+    public double lowerBound(int v, double[] fromT, double[] toT) {
+        int k = landmarks.length;
+        int row = v * k;
+        double bound = 0.0;
+        for (int i = 0; i < k; i++) {
+            double a = fromT[i] - from.get(row + i);
+            double b = to.get(row + i) - toT[i];
+            if (a > bound) bound = a;
+            if (b > bound) bound = b;
+        }
+        return Math.max(0.0, bound - slack);
+    }
+
+    /**
+     * Writes the landmarks and their tables to <tt>file</tt>, replacing it.
+     * A file holds, in little-endian order, the int magic number 'A' 'L' 'T' 'L',
+     * the int version 1, the ints <em>V</em> and <em>k</em>, the double largest
+     * finite distance, the <em>k</em> landmarks, and the two tables.
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        int k = landmarks.length;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(V).putInt(k).putDouble(maxDistance);
+            for (int L : landmarks) {
+                buffer = flushIfFull(channel, buffer);
+                buffer.putInt(L);
+            }
+            for (FloatBuffer table : new FloatBuffer[] { from, to }) {
+                for (int j = 0; j < V * k; j++) {
+                    buffer = flushIfFull(channel, buffer);
+                    buffer.putFloat(table.get(j));
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    // writes the buffer out if there is no room for four more bytes
+    private static ByteBuffer flushIfFull(FileChannel channel, ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 4) {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    /**
+     * Maps a file written by {@link #save(Path)} read-only.
+     * @param file the file
+     * @return the landmarks, with the tables read through the mapping
+     * @throws IOException if the file cannot be read, is not a landmark file,
+     *    or has a table larger than 2GB
+     */
+    public static Landmarks load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) throw new IOException("not a landmark file: too short");
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) throw new IOException("not a landmark file: bad magic number");
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("unsupported landmark file version " + version);
+            int V = header.getInt();
+            int k = header.getInt();
+            double maxDistance = header.getDouble();
+            if (V < 0 || k < 1) throw new IOException("corrupt landmark file header");
+            long cells = (long) V * k;
+            if (4 * cells > Integer.MAX_VALUE) throw new IOException("landmark table is larger than 2GB");
+            long tableAt = HEADER_BYTES + 4L * k;
+            if (channel.size() < tableAt + 8 * cells) throw new IOException(file + " is truncated");
+
+            ByteBuffer ids = ByteBuffer.allocate(4 * k).order(ByteOrder.LITTLE_ENDIAN);
+            while (ids.hasRemaining()) {
+                channel.read(ids, HEADER_BYTES + ids.position());
+            }
+            ids.flip();
+            int[] landmarks = new int[k];
+            for (int i = 0; i < k; i++) {
+                landmarks[i] = ids.getInt();
+            }
+            // the mappings stay valid after the channel is closed
+            FloatBuffer from = channel.map(FileChannel.MapMode.READ_ONLY, tableAt, 4 * cells)
+                                      .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            FloatBuffer to = channel.map(FileChannel.MapMode.READ_ONLY, tableAt + 4 * cells, 4 * cells)
+                                    .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            return new Landmarks(V, landmarks, from, to, maxDistance);
+        }
+    }
+
+
+    /**
+     * Unit tests the <tt>Landmarks</tt> data type.
+     */
+    public static void main(String[] args) throws IOException {
+        // tinyEWD.txt
+        int[] mas = {4, 5, 5, 4, 4, 7, 5, 7, 7, 5, 5, 1, 0, 4, 0, 2, 7, 3, 1, 3, 2, 7, 6, 2, 3, 6, 6, 0, 6, 4};
+        double[] weights = {0.35, 0.35, 0.37, 0.28, 0.28, 0.32, 0.38, 0.26, 0.39, 0.29, 0.34, 0.40, 0.52, 0.58, 0.93};
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(8, 15, mas, weights);
+        int k = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        Landmarks landmarks = new Landmarks(G, k);
+
+        System.out.print("landmarks");
+        for (int i = 0; i < k; i++) System.out.print(" " + landmarks.landmark(i));
+        System.out.println();
+        System.out.print("v");
+        for (int i = 0; i < k; i++) System.out.printf("  from %d  to %d", landmarks.landmark(i), landmarks.landmark(i));
+        System.out.println();
+        for (int v = 0; v < G.V(); v++) {
+            System.out.print(v);
+            for (int i = 0; i < k; i++) {
+                System.out.printf("    %.2f  %.2f", landmarks.distanceFrom(i, v), landmarks.distanceTo(i, v));
+            }
+            System.out.println();
+        }
+
+        // the mapped copy answers the same
+        Path file = Files.createTempFile("landmarks", ".bin");
+        landmarks.save(file);
+        Landmarks mapped = Landmarks.load(file);
+        boolean equal = mapped.count() == k;
+        for (int v = 0; v < G.V(); v++) {
+            for (int t = 0; t < G.V(); t++) {
+                if (mapped.lowerBound(v, t) != landmarks.lowerBound(v, t)) equal = false;
+            }
+        }
+        Files.delete(file);
+        System.out.printf("bound 0->6 = %.2f (distance %.2f), mapped copy equal: %b%n",
+                          landmarks.lowerBound(0, 6), new DijkstraSP(G, 0).distTo(6), equal);
+    }
+}
@@ -0,0 +1,131 @@
+package structures.graph;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  The <tt>MappedGraph</tt> class is an {@link IntGraph} read straight from a
+ *  binary graph file written by {@link GraphFile}. Opening a file maps it
+ *  into memory with {@link FileChannel#map} and reads only its header;
+ *  the offsets and targets are never copied onto the heap, and the
+ *  operating system pages them in as traversals touch them. Startup time
+ *  is therefore independent of the size of the graph, and several
+ *  processes opening the same file share one copy in the page cache.
+ *  <p>
+ *  Files larger than 2GB are mapped in segments of 2<sup>28</sup> ints.
+ *  All operations take constant time. The graph is immutable and may be
+ *  read by several threads at once.
+ */
+public class MappedGraph implements IntGraph {
+
+    static final int SHIFT = 28;                  // log2 of the ints per segment
+    static final int MASK = (1 << SHIFT) - 1;
+
+    private final int V;
+    private final int E;
+    private final boolean directed;
+    private final IntBuffer offsets;              // offsetSegments[0] if all V + 1 offsets fit in it, else null
+    private final IntBuffer[] offsetSegments;     // offsets of vertices 0 through V, 2^SHIFT per segment
+    private final IntBuffer[] targets;            // adjacency lists back to back, 2^SHIFT slots per segment
+
+    private MappedGraph(int V, int arcs, boolean directed, IntBuffer[] offsetSegments, IntBuffer[] targets) {
+        this.V = V;
+        this.E = directed ? arcs : arcs / 2;
+        this.directed = directed;
+        this.offsetSegments = offsetSegments;
+        this.offsets = offsetSegments.length == 1 ? offsetSegments[0] : null;
+        this.targets = targets;
+    }
+
+    /**
+     * Maps the graph file <tt>file</tt> read-only.
+     * @param file a file written by {@link GraphFile}
+     * @return the mapped graph
+     * @throws IOException if the file cannot be read or is not a graph file
+     */
+    public static MappedGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            GraphFile.Header header = GraphFile.readHeader(channel);
+            long offsetsAt = GraphFile.HEADER_BYTES;
+            long targetsAt = offsetsAt + 4L * (header.V + 1);
+            if (channel.size() < targetsAt + 4L * header.arcs)
+                throw new IOException(file + " is truncated");
+            IntBuffer[] offsets = map(channel, FileChannel.MapMode.READ_ONLY, offsetsAt, header.V + 1L);
+            IntBuffer[] targets = map(channel, FileChannel.MapMode.READ_ONLY, targetsAt, header.arcs);
+            // the mappings stay valid after the channel is closed
+            return new MappedGraph(header.V, header.arcs, header.directed, offsets, targets);
+        }
+    }
+
+    // maps count ints starting at byte position, one segment per 2^SHIFT ints
+    static IntBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long position, long count) throws IOException {
+        int segments = (int) Math.max(1, (count + MASK) >>> SHIFT);
+        IntBuffer[] buffers = new IntBuffer[segments];
+        for (int k = 0; k < segments; k++) {
+            long ints = Math.min(1L << SHIFT, count - ((long) k << SHIFT));
+            MappedByteBuffer bytes = channel.map(mode,
+                                                 position + ((long) k << (SHIFT + 2)), 4 * ints);
+            buffers[k] = bytes.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+        return buffers;
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     * @return the number of vertices in the graph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     * @return the number of edges in the graph
+     */
+    public int E() {
+        return E;
+    }
+
+    /**
+     * Is this a directed graph?
+     * @return true if every edge is stored once, false if it is stored in both directions
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Returns the first adjacency slot of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the index of the first neighbor of <tt>v</tt>
+     */
+    public int begin(int v) {
+        if (offsets != null) return offsets.get(v);
+        return offsetSegments[v >>> SHIFT].get(v & MASK);
+    }
+
+    /**
+     * Returns one past the last adjacency slot of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the index after the last neighbor of <tt>v</tt>
+     */
+    public int end(int v) {
+        int next = v + 1;
+        if (offsets != null) return offsets.get(next);
+        return offsetSegments[next >>> SHIFT].get(next & MASK);
+    }
+
+    /**
+     * Returns the vertex stored in adjacency slot <tt>i</tt>.
+     * @param i the adjacency slot
+     * @return the neighbor stored in slot <tt>i</tt>
+     */
+    public int target(int i) {
+        return targets[i >>> SHIFT].get(i & MASK);
+    }
+}
@@ -0,0 +1,93 @@
+package structures.graph.bench;
+
+import structures.graph.CSRGraph;
+import structures.graph.undirected.BreadthFirstPaths;
+import structures.graph.undirected.Graph;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/*************************************************************************
+ *  Compilation:  javac BfsScalingBenchmark.java
+ *  Execution:    java BfsScalingBenchmark [V] [degree] [runs]
+ *  Dependencies: Graph.java CSRGraph.java BreadthFirstPaths.java
+ *
+ *  Compares the breadth-first search of BreadthFirstPaths over the
+ *  adjacency lists of Graph with the sequential and the parallel search
+ *  over a CSRGraph, on a random undirected graph, for 1, 2, 4, ...
+ *  worker threads up to the number of processors.
+ *
+ *  % java BfsScalingBenchmark 1000000 16 3
+ *  1000000 vertices, 8000000 edges
+ *  graph            1    3686.7 ms
+ *  sequential       1     360.9 ms  10.21x
+ *  parallel         1     482.1 ms   7.65x
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>BfsScalingBenchmark</tt> class measures how the parallel
+ *  {@link BreadthFirstPaths} search scales with the number of threads.
+ *  Each configuration is run <tt>runs</tt> times after one warm-up run and
+ *  the best time is reported, along with the speedup over the sequential
+ *  search of a {@link Graph}. Every result is checked against its distances.
+ */
+public class BfsScalingBenchmark {
+
+    public static void main(String[] args) {
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        // uniform random graph with V * degree / 2 edges
+        Random random = new Random(42);
+        int E = (int) ((long) V * degree / 2);
+        int[] mas = new int[2 * E];
+        for (int i = 0; i < mas.length; i++) {
+            mas[i] = random.nextInt(V);
+        }
+        CSRGraph G = new CSRGraph(V, E, mas, false);
+        Graph bags = new Graph(V, E, mas);
+        System.out.println(G.V() + " vertices, " + G.E() + " edges");
+
+        // the search over the Bag adjacency lists of Graph is the baseline
+        BreadthFirstPaths expected = new BreadthFirstPaths(bags, 0);
+        double baseline = Double.MAX_VALUE;
+        for (int r = 0; r < runs; r++) {
+            long start = System.nanoTime();
+            new BreadthFirstPaths(bags, 0);
+            baseline = Math.min(baseline, (System.nanoTime() - start) / 1e6);
+        }
+        System.out.printf("graph       %6d  %8.1f ms%n", 1, baseline);
+
+        BreadthFirstPaths csr = new BreadthFirstPaths(G, 0);
+        for (int v = 0; v < V; v++) {
+            if (csr.distTo(v) != expected.distTo(v))
+                throw new IllegalStateException("distTo(" + v + ") differs from the adjacency-list search");
+        }
+        double sequential = Double.MAX_VALUE;
+        for (int r = 0; r < runs; r++) {
+            long start = System.nanoTime();
+            new BreadthFirstPaths(G, 0);
+            sequential = Math.min(sequential, (System.nanoTime() - start) / 1e6);
+        }
+        System.out.printf("sequential  %6d  %8.1f ms  %5.2fx%n", 1, sequential, baseline / sequential);
+
+        for (int threads : Harness.threadCounts(Runtime.getRuntime().availableProcessors())) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            BreadthFirstPaths paths = BreadthFirstPaths.parallel(G, 0, pool);
+            for (int v = 0; v < V; v++) {
+                if (paths.distTo(v) != expected.distTo(v))
+                    throw new IllegalStateException("distTo(" + v + ") differs from the adjacency-list search");
+            }
+            double best = Double.MAX_VALUE;
+            for (int r = 0; r < runs; r++) {
+                long start = System.nanoTime();
+                BreadthFirstPaths.parallel(G, 0, pool);
+                best = Math.min(best, (System.nanoTime() - start) / 1e6);
+            }
+            System.out.printf("parallel    %6d  %8.1f ms  %5.2fx%n", threads, best, baseline / best);
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package structures.graph.bench;
+
+import structures.graph.AStarSP;
+import structures.graph.DijkstraSP;
+import structures.graph.EdgeWeightedDigraph;
+import structures.graph.Landmarks;
+import structures.graph.ch.ContractionHierarchy;
+import structures.graph.ch.ContractionHierarchySP;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/*************************************************************************
+ *  Compilation:  javac ContractionHierarchyBenchmark.java
+ *  Execution:    java ContractionHierarchyBenchmark [rows] [scale] [queries]
+ *  Dependencies: GraphGenerator.java DijkstraSP.java Landmarks.java AStarSP.java
+ *                ContractionHierarchy.java ContractionHierarchySP.java
+ *
+ *  Contracts a road-like grid and an R-MAT power-law graph, saves and
+ *  loads the hierarchy, and compares the mean time of point-to-point
+ *  queries with DijkstraSP, stopping at the target, and with AStarSP
+ *  over 16 landmarks, or one per vertex on smaller graphs.
+ *
+ *  % java ContractionHierarchyBenchmark 300 12 100
+ *  grid: 90000 vertices, 358800 edges
+ *  contracted in 15126.6 ms, 665947 shortcuts, 1024475 edges, 16.7 MB file loaded in 15.2 ms
+ *  per query        settled         us
+ *    dijkstra        41580    10964.5
+ *    alt              1910     1014.0    10.81x
+ *    ch                491      548.7    19.98x
+ *  rmat: 4096 vertices, 32768 edges
+ *  contracted in 5281.9 ms, 1930 shortcuts, 30340 edges, 0.5 MB file loaded in 5.0 ms
+ *  per query        settled         us
+ *    dijkstra         1293     1055.9
+ *    alt               288     1029.3     1.03x
+ *    ch                 53       52.4    20.16x
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>ContractionHierarchyBenchmark</tt> class measures the preprocessing
+ *  of {@link ContractionHierarchy} and the queries of {@link ContractionHierarchySP}
+ *  against those of {@link DijkstraSP} and {@link AStarSP}, on random
+ *  point-to-point queries over the graphs of {@link GraphGenerator}. The
+ *  queries run on the hierarchy read back by {@link ContractionHierarchy#load(Path)},
+ *  as a service would, and every distance is checked against Dijkstra's algorithm.
+ *  <p>
+ *  Grids have no natural hierarchy and give many shortcuts; on power-law graphs
+ *  the witness searches around the hubs make the contraction slow.
+ */
+public class ContractionHierarchyBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int scale = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        run("grid", GraphGenerator.grid(rows, rows, 42), queries);
+        run("rmat", GraphGenerator.rmat(scale, 8, 42), queries);
+    }
+
+    private static void run(String name, EdgeWeightedDigraph G, int queries) throws IOException {
+        System.out.printf("%s: %d vertices, %d edges%n", name, G.V(), G.E());
+        long start = System.nanoTime();
+        ContractionHierarchy built = ContractionHierarchy.build(G);
+        double buildTime = (System.nanoTime() - start) / 1e6;
+        Path file = Files.createTempFile("hierarchy", ".bin");
+        built.save(file);
+        start = System.nanoTime();
+        ContractionHierarchy H = ContractionHierarchy.load(file);
+        double loadTime = (System.nanoTime() - start) / 1e6;
+        System.out.printf("contracted in %.1f ms, %d shortcuts, %d edges, %.1f MB file loaded in %.1f ms%n",
+                          buildTime, H.shortcuts(), H.E(), Files.size(file) / (double) (1 << 20), loadTime);
+        Files.delete(file);
+        Landmarks landmarks = new Landmarks(G, Math.min(16, G.V()));
+
+        // random pairs with a path between them, giving up if too few pairs have one
+        Random random = new Random(42);
+        DijkstraSP dijkstra = new DijkstraSP(G);
+        int[] s = new int[queries];
+        int[] t = new int[queries];
+        for (int q = 0, attempts = 0; q < queries; attempts++) {
+            if (attempts == 100 * queries)
+                throw new IllegalStateException("only " + q + " of " + attempts + " random pairs of " + name
+                                                + " have a path; the graph is too poorly connected");
+            s[q] = random.nextInt(G.V());
+            t[q] = random.nextInt(G.V());
+            if (dijkstra.search(s[q], t[q])) q++;
+        }
+
+        AStarSP alt = new AStarSP(G, landmarks);
+        ContractionHierarchySP ch = new ContractionHierarchySP(H);
+        // one warm-up round, then the timed one
+        for (int round = 0; round < 2; round++) {
+            long dijkstraTime = 0, altTime = 0, chTime = 0;
+            long dijkstraSettled = 0, altSettled = 0, chSettled = 0;
+            for (int q = 0; q < queries; q++) {
+                long begin = System.nanoTime();
+                dijkstra.search(s[q], t[q]);
+                dijkstraTime += System.nanoTime() - begin;
+                begin = System.nanoTime();
+                alt.search(s[q], t[q]);
+                altTime += System.nanoTime() - begin;
+                begin = System.nanoTime();
+                ch.search(s[q], t[q]);
+                chTime += System.nanoTime() - begin;
+                double expected = dijkstra.distTo(t[q]);
+                if (Math.abs(ch.distance() - expected) > 1e-9 * expected)
+                    throw new IllegalStateException("distance " + s[q] + "->" + t[q] + " differs from Dijkstra's algorithm");
+                dijkstraSettled += dijkstra.settledCount();
+                altSettled += alt.settledCount();
+                chSettled += ch.settledCount();
+            }
+            if (round == 0) continue;
+            System.out.println("per query        settled         us");
+            System.out.printf("  dijkstra %12d %10.1f%n", dijkstraSettled / queries, dijkstraTime / 1e3 / queries);
+            System.out.printf("  alt      %12d %10.1f  %7.2fx%n", altSettled / queries, altTime / 1e3 / queries,
+                              (double) dijkstraTime / altTime);
+            System.out.printf("  ch       %12d %10.1f  %7.2fx%n", chSettled / queries, chTime / 1e3 / queries,
+                              (double) dijkstraTime / chTime);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package structures.graph.bench;
+
+import structures.graph.DeltaSteppingSP;
+import structures.graph.DijkstraSP;
+import structures.graph.EdgeWeightedDigraph;
+
+import java.util.concurrent.ForkJoinPool;
+
+/*************************************************************************
+ *  Compilation:  javac DeltaSteppingBenchmark.java
+ *  Execution:    java DeltaSteppingBenchmark [rows] [scale] [runs]
+ *  Dependencies: GraphGenerator.java DijkstraSP.java DeltaSteppingSP.java
+ *
+ *  Compares DijkstraSP with DeltaSteppingSP on a road-like grid and on
+ *  an R-MAT power-law graph, for 1, 2, 4, ... worker threads up to the
+ *  number of processors, and for a few bucket widths around the default.
+ *
+ *  % java DeltaSteppingBenchmark 1000 20 3
+ *  grid: 1000000 vertices, 3996000 edges, default delta 2.50
+ *  dijkstra         1     302.2 ms
+ *  delta-step       1     401.0 ms   0.75x   3335 buckets   8522 phases
+ *  delta x 1/4      1     293.5 ms   1.03x   9714 buckets  19423 phases
+ *  delta x 4        1     238.3 ms   1.27x   1217 buckets   4706 phases
+ *  rmat: 1048576 vertices, 16777216 edges, default delta 0.06
+ *  dijkstra         1     438.5 ms
+ *  delta-step       1     994.1 ms   0.44x     37 buckets    108 phases
+ *  delta x 1/4      1    1197.9 ms   0.37x    132 buckets    324 phases
+ *  delta x 4        1    1862.2 ms   0.24x     10 buckets     44 phases
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>DeltaSteppingBenchmark</tt> class measures how {@link DeltaSteppingSP}
+ *  scales with the number of threads, against the sequential {@link DijkstraSP},
+ *  on the graphs of {@link GraphGenerator}. Each configuration is run
+ *  <tt>runs</tt> times after one warm-up run and the best time is reported,
+ *  along with the speedup over Dijkstra's algorithm and the number of buckets
+ *  and phases. The source is a vertex of largest outdegree. Every result is
+ *  checked against Dijkstra's distances.
+ */
+public class DeltaSteppingBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int scale = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        run("grid", GraphGenerator.grid(rows, rows, 42), runs);
+        run("rmat", GraphGenerator.rmat(scale, 16, 42), runs);
+    }
+
+    private static void run(String name, EdgeWeightedDigraph G, int runs) {
+        double delta = DeltaSteppingSP.defaultDelta(G);
+        System.out.printf("%s: %d vertices, %d edges, default delta %.2f%n", name, G.V(), G.E(), delta);
+
+        // search from a vertex of largest outdegree, so that R-MAT does not start at an isolated one
+        int s = 0;
+        for (int v = 0; v < G.V(); v++) {
+            if (G.outdegree(v) > G.outdegree(s)) s = v;
+        }
+        DijkstraSP expected = new DijkstraSP(G);
+        expected.search(s);
+        double sequential = Double.MAX_VALUE;
+        for (int r = 0; r < runs; r++) {
+            long start = System.nanoTime();
+            expected.search(s);
+            sequential = Math.min(sequential, (System.nanoTime() - start) / 1e6);
+        }
+        System.out.printf("dijkstra    %6d  %8.1f ms%n", 1, sequential);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads : Harness.threadCounts(processors)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            measure("delta-step", G, s, delta, pool, expected, runs, sequential);
+            if (threads == processors) {
+                measure("delta x 1/4", G, s, delta / 4, pool, expected, runs, sequential);
+                measure("delta x 4", G, s, delta * 4, pool, expected, runs, sequential);
+            }
+            pool.shutdown();
+        }
+    }
+
+    private static void measure(String label, EdgeWeightedDigraph G, int s, double delta, ForkJoinPool pool,
+                                DijkstraSP expected, int runs, double sequential) {
+        DeltaSteppingSP sp = new DeltaSteppingSP(G, s, delta, pool);
+        for (int v = 0; v < G.V(); v++) {
+            if (sp.distTo(v) != expected.distTo(v))
+                throw new IllegalStateException("distTo(" + v + ") differs from Dijkstra's algorithm");
+        }
+        double best = Double.MAX_VALUE;
+        for (int r = 0; r < runs; r++) {
+            long start = System.nanoTime();
+            new DeltaSteppingSP(G, s, delta, pool);
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        System.out.printf("%-11s %6d  %8.1f ms  %5.2fx  %5d buckets  %5d phases%n",
+                          label, pool.getParallelism(), best, sequential / best, sp.buckets(), sp.phases());
+    }
+}
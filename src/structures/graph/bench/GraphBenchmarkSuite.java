@@ -0,0 +1,103 @@
+package structures.graph.bench;
+
+import structures.graph.CSRGraph;
+import structures.graph.directed.BreadthFirstDirectedPaths;
+import structures.graph.directed.DepthFirstDirectedPaths;
+import structures.graph.directed.Digraph;
+import structures.graph.undirected.BreadthFirstPaths;
+import structures.graph.undirected.DepthFirstPaths;
+import structures.graph.undirected.DepthFirstSearch;
+import structures.graph.undirected.Graph;
+
+/*************************************************************************
+ *  Compilation:  javac GraphBenchmarkSuite.java
+ *  Execution:    java GraphBenchmarkSuite [scale] ...
+ *  Dependencies: GraphGenerator.java Harness.java Graph.java Digraph.java
+ *                CSRGraph.java DepthFirstSearch.java DepthFirstPaths.java
+ *                BreadthFirstPaths.java DepthFirstDirectedPaths.java
+ *                BreadthFirstDirectedPaths.java
+ *
+ *  Throughput, time per edge and allocation of building Graph, Digraph
+ *  and CSRGraph and of the depth-first and breadth-first path classes,
+ *  on grid, R-MAT and random regular graphs of 2^scale vertices.
+ *
+ *  % java GraphBenchmarkSuite 14 17
+ *
+ *  grid, scale 14: 16384 vertices, 32512 edges
+ *  benchmark                                     ops/s    ns/edge         B/op     MB/s   gc  gc ms
+ *  new Graph                              758.9 +- 72%      40.58      3053641   2207.6   92    515
+ *  new Digraph                           2575.7 +- 20%      11.94      1757240   4316.6  173    347
+ *  new CSRGraph (undirected)             3513.9 +- 44%       8.75       391256   1311.2   53     11
+ *  ...
+ *  rmat, scale 17: 131072 vertices, 1048576 edges
+ *  benchmark                                     ops/s    ns/edge         B/op     MB/s   gc  gc ms
+ *  ...
+ *  BreadthFirstPaths                        2.8 +-  5%     169.99      4263822     11.4    0      0
+ *  BreadthFirstPaths (CSR)                102.0 +-  7%       4.67      1704026    165.8    1      1
+ *  ...
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>GraphBenchmarkSuite</tt> class measures the construction of the
+ *  graph classes and the traversals of <tt>structures.graph</tt> with a
+ *  {@link Harness}, so that a change to any of them can be compared with
+ *  the previous numbers. For every scale it generates three graphs with
+ *  2<sup>scale</sup> vertices with {@link GraphGenerator}: a grid, an R-MAT
+ *  graph with 8 edges per vertex and a random 8-regular graph, read as
+ *  undirected graphs and as digraphs.
+ *  <p>
+ *  Construction handles the <em>E</em> edges of the edge array; a traversal
+ *  from the vertex of largest degree scans the adjacency lists of the
+ *  vertices it reaches, and its time per edge divides by the entries of all
+ *  the lists: 2<em>E</em> for an undirected graph and <em>E</em> for a digraph.
+ */
+public class GraphBenchmarkSuite {
+
+    public static void main(String[] args) {
+        int[] scales = { 14, 17 };
+        if (args.length > 0) {
+            scales = new int[args.length];
+            for (int i = 0; i < args.length; i++) scales[i] = Integer.parseInt(args[i]);
+        }
+        Harness harness = new Harness(3, 5, 200);
+
+        for (int scale : scales) {
+            int V = 1 << scale;
+            run(harness, "grid", scale, V, GraphGenerator.gridEdges(1 << scale / 2, 1 << scale - scale / 2));
+            run(harness, "rmat", scale, V, GraphGenerator.rmatEdges(scale, 8, 42));
+            run(harness, "regular", scale, V, GraphGenerator.randomRegular(V, 8, 42));
+        }
+    }
+
+    private static void run(Harness harness, String family, int scale, int V, int[] mas) {
+        int E = mas.length / 2;
+        System.out.printf("%n%s, scale %d: %d vertices, %d edges%n", family, scale, V, E);
+        Harness.header();
+
+        Graph G = new Graph(V, E, mas);
+        Digraph D = new Digraph(V, E, mas);
+        CSRGraph undirected = new CSRGraph(G);
+        CSRGraph directed = new CSRGraph(D);
+        int s = 0;
+        for (int v = 1; v < V; v++) {
+            if (G.degree(v) > G.degree(s)) s = v;
+        }
+        final int source = s;
+
+        harness.run("new Graph", E, () -> new Graph(V, E, mas));
+        harness.run("new Digraph", E, () -> new Digraph(V, E, mas));
+        harness.run("new CSRGraph (undirected)", E, () -> new CSRGraph(V, E, mas, false));
+        harness.run("new CSRGraph (directed)", E, () -> new CSRGraph(V, E, mas, true));
+
+        harness.run("DepthFirstSearch", 2L * E, () -> new DepthFirstSearch(G, source));
+        harness.run("DepthFirstPaths", 2L * E, () -> new DepthFirstPaths(G, source));
+        harness.run("DepthFirstPaths (CSR)", 2L * E, () -> new DepthFirstPaths(undirected, source));
+        harness.run("BreadthFirstPaths", 2L * E, () -> new BreadthFirstPaths(G, source));
+        harness.run("BreadthFirstPaths (CSR)", 2L * E, () -> new BreadthFirstPaths(undirected, source));
+        harness.run("DepthFirstDirectedPaths", E, () -> new DepthFirstDirectedPaths(D, source));
+        harness.run("DepthFirstDirectedPaths (CSR)", E, () -> new DepthFirstDirectedPaths(directed, source));
+        harness.run("BreadthFirstDirectedPaths", E, () -> new BreadthFirstDirectedPaths(D, source));
+        harness.run("BreadthFirstDirectedPaths (CSR)", E, () -> new BreadthFirstDirectedPaths(directed, source));
+    }
+}
@@ -0,0 +1,190 @@
+package structures.graph.bench;
+
+import structures.graph.EdgeWeightedDigraph;
+
+import java.util.Random;
+
+/**
+ *  The <tt>GraphGenerator</tt> class builds the synthetic graphs of the
+ *  benchmarks in this package. Every generator takes a seed, so a run can
+ *  be repeated with the same graph.
+ *  <ul>
+ *  <li>{@link #grid(int, int, long)} is road-like: a planar grid with small
+ *      degree, large diameter and weights of the same order of magnitude.
+ *  <li>{@link #rmat(int, int, long)} is a power-law graph of the R-MAT model
+ *      (Chakrabarti, Zhan and Faloutsos), as in the Graph 500 benchmark:
+ *      a few hubs of very high degree and a small diameter.
+ *  <li>{@link #randomRegular(int, int, long)} gives every vertex the same
+ *      degree, with neighbors spread uniformly over the graph: no locality
+ *      and a logarithmic diameter.
+ *  </ul>
+ *  The unweighted generators return the edges as an array of endpoint
+ *  pairs, the <tt>mas</tt> array of the <tt>Graph</tt>, <tt>Digraph</tt>
+ *  and <tt>CSRGraph</tt> constructors.
+ */
+public class GraphGenerator {
+
+    // R-MAT probabilities of the four quadrants, those of Graph 500
+    private static final double A = 0.57, B = 0.19, C = 0.19;
+
+    // this class should not be instantiated
+    private GraphGenerator() { }
+
+    /**
+     * Returns a <tt>rows</tt>-by-<tt>cols</tt> grid where every cell has an edge
+     * to each of its neighbors in both directions. Weights are uniform in [1, 10),
+     * like travel times of road segments.
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param seed the seed of the weights
+     * @return the grid, vertex <tt>r * cols + c</tt> in row <tt>r</tt> and column <tt>c</tt>
+     * @throws IllegalArgumentException unless <tt>rows</tt> and <tt>cols</tt> are positive
+     */
+    public static EdgeWeightedDigraph grid(int rows, int cols, long seed) {
+        if (rows <= 0 || cols <= 0) throw new IllegalArgumentException("Grid must have positive size");
+        Random random = new Random(seed);
+        int V = rows * cols;
+        int E = 2 * (rows * (cols - 1) + (rows - 1) * cols);
+        int[] mas = new int[2 * E];
+        double[] weights = new double[E];
+        int e = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int v = r * cols + c;
+                if (c + 1 < cols) e = road(mas, weights, e, v, v + 1, random);
+                if (r + 1 < rows) e = road(mas, weights, e, v, v + cols, random);
+            }
+        }
+        return new EdgeWeightedDigraph(V, E, mas, weights);
+    }
+
+    // adds v->w and w->v, possibly of different weights
+    private static int road(int[] mas, double[] weights, int e, int v, int w, Random random) {
+        mas[2*e] = v;
+        mas[2*e+1] = w;
+        weights[e++] = 1.0 + 9.0 * random.nextDouble();
+        mas[2*e] = w;
+        mas[2*e+1] = v;
+        weights[e++] = 1.0 + 9.0 * random.nextDouble();
+        return e;
+    }
+
+    /**
+     * Returns an R-MAT digraph with 2<sup><tt>scale</tt></sup> vertices and
+     * <tt>edgeFactor</tt> edges per vertex, with weights uniform in [0, 1).
+     * Vertex numbers are shuffled, so the hubs are not clustered at small numbers.
+     * Self-loops and parallel edges are kept.
+     * @param scale the base 2 logarithm of the number of vertices
+     * @param edgeFactor the average outdegree
+     * @param seed the seed of the edges and weights
+     * @return the digraph
+     * @throws IllegalArgumentException unless 0 &le; <tt>scale</tt> &le; 30 and <tt>edgeFactor</tt> &ge; 0
+     */
+    public static EdgeWeightedDigraph rmat(int scale, int edgeFactor, long seed) {
+        if (scale < 0 || scale > 30) throw new IllegalArgumentException("scale " + scale + " is not between 0 and 30");
+        if (edgeFactor < 0) throw new IllegalArgumentException("Edge factor must be nonnegative");
+        int V = 1 << scale;
+        int E = (int) Math.min(Integer.MAX_VALUE / 2, (long) edgeFactor * V);
+        double[] weights = new double[E];
+        int[] mas = rmat(scale, E, new Random(seed), weights);
+        return new EdgeWeightedDigraph(V, E, mas, weights);
+    }
+
+    /**
+     * Returns the edges of an unweighted R-MAT digraph with 2<sup><tt>scale</tt></sup>
+     * vertices and <tt>edgeFactor</tt> edges per vertex, shuffled and with
+     * self-loops and parallel edges kept like those of {@link #rmat(int, int, long)}.
+     * @param scale the base 2 logarithm of the number of vertices
+     * @param edgeFactor the average outdegree
+     * @param seed the seed of the edges
+     * @return the edges as tail, head pairs
+     * @throws IllegalArgumentException unless 0 &le; <tt>scale</tt> &le; 30 and <tt>edgeFactor</tt> &ge; 0
+     */
+    public static int[] rmatEdges(int scale, int edgeFactor, long seed) {
+        if (scale < 0 || scale > 30) throw new IllegalArgumentException("scale " + scale + " is not between 0 and 30");
+        if (edgeFactor < 0) throw new IllegalArgumentException("Edge factor must be nonnegative");
+        int E = (int) Math.min(Integer.MAX_VALUE / 2, (long) edgeFactor << scale);
+        return rmat(scale, E, new Random(seed), null);
+    }
+
+    // draws E edges, and a weight after each one if weights is not null
+    private static int[] rmat(int scale, int E, Random random, double[] weights) {
+        int V = 1 << scale;
+        int[] permutation = new int[V];
+        for (int v = 0; v < V; v++) {
+            permutation[v] = v;
+        }
+        for (int v = V - 1; v > 0; v--) {
+            int k = random.nextInt(v + 1);
+            int t = permutation[v]; permutation[v] = permutation[k]; permutation[k] = t;
+        }
+        int[] mas = new int[2 * E];
+        for (int e = 0; e < E; e++) {
+            // descend one level of the adjacency matrix per bit
+            int v = 0, w = 0;
+            for (int bit = scale - 1; bit >= 0; bit--) {
+                double p = random.nextDouble();
+                if      (p < A)         { }
+                else if (p < A + B)     { w |= 1 << bit; }
+                else if (p < A + B + C) { v |= 1 << bit; }
+                else                    { v |= 1 << bit; w |= 1 << bit; }
+            }
+            mas[2*e] = permutation[v];
+            mas[2*e+1] = permutation[w];
+            if (weights != null) weights[e] = random.nextDouble();
+        }
+        return mas;
+    }
+
+    /**
+     * Returns the edges of a <tt>rows</tt>-by-<tt>cols</tt> grid, each pair of
+     * neighboring cells once, for an undirected graph.
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @return the edges as pairs of endpoints, vertex <tt>r * cols + c</tt> in row <tt>r</tt> and column <tt>c</tt>
+     * @throws IllegalArgumentException unless <tt>rows</tt> and <tt>cols</tt> are positive
+     */
+    public static int[] gridEdges(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) throw new IllegalArgumentException("Grid must have positive size");
+        int E = rows * (cols - 1) + (rows - 1) * cols;
+        int[] mas = new int[2 * E];
+        int e = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int v = r * cols + c;
+                if (c + 1 < cols) { mas[2*e] = v; mas[2*e+1] = v + 1;    e++; }
+                if (r + 1 < rows) { mas[2*e] = v; mas[2*e+1] = v + cols; e++; }
+            }
+        }
+        return mas;
+    }
+
+    /**
+     * Returns the edges of a random <tt>degree</tt>-regular undirected graph on
+     * <tt>V</tt> vertices, <tt>V * degree / 2</tt> edges, drawn from the configuration
+     * model: <tt>degree</tt> copies of every vertex are shuffled and paired up.
+     * The few self-loops and parallel edges this makes are kept, so that every
+     * vertex has degree exactly <tt>degree</tt>.
+     * @param V the number of vertices
+     * @param degree the degree of every vertex
+     * @param seed the seed of the pairing
+     * @return the edges as pairs of endpoints
+     * @throws IllegalArgumentException if <tt>V</tt> or <tt>degree</tt> is negative,
+     *    or if <tt>V * degree</tt> is odd
+     */
+    public static int[] randomRegular(int V, int degree, long seed) {
+        if (V < 0 || degree < 0) throw new IllegalArgumentException("Number of vertices and degree must be nonnegative");
+        if ((long) V * degree % 2 != 0) throw new IllegalArgumentException("V * degree must be even");
+        if ((long) V * degree > Integer.MAX_VALUE) throw new IllegalArgumentException("V * degree is too large");
+        Random random = new Random(seed);
+        int[] mas = new int[V * degree];
+        for (int i = 0; i < mas.length; i++) {
+            mas[i] = i / degree;
+        }
+        for (int i = mas.length - 1; i > 0; i--) {
+            int k = random.nextInt(i + 1);
+            int t = mas[i]; mas[i] = mas[k]; mas[k] = t;
+        }
+        return mas;
+    }
+}
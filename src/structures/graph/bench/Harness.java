@@ -0,0 +1,170 @@
+package structures.graph.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ *  The <tt>Harness</tt> class runs one operation of a benchmark repeatedly and
+ *  prints one line of results, in the manner of JMH throughput mode with the
+ *  GC profiler, for the benchmarks of this package.
+ *  <p>
+ *  A measurement is a number of warm-up iterations, which let the JIT compile
+ *  the operation and are discarded, followed by the measured iterations. Each
+ *  iteration calls the operation until at least <tt>iterationMillis</tt>
+ *  have passed. The line gives:
+ *  <ul>
+ *  <li><tt>ops/s</tt>, the mean throughput over the measured iterations, with
+ *      the half-width of its 99.9% confidence interval, as JMH reports it;
+ *  <li><tt>ns/edge</tt>, the time of one operation divided by the number of
+ *      edges it handles, to compare graphs of different sizes;
+ *  <li><tt>B/op</tt> and <tt>MB/s</tt>, the bytes allocated per operation and
+ *      the allocation rate, from the per-thread allocation counters of
+ *      <tt>com.sun.management.ThreadMXBean</tt>, summed over every live thread;
+ *  <li><tt>gc</tt> and <tt>gc ms</tt>, the collections and their time during
+ *      the measured iterations.
+ *  </ul>
+ *  The result of every call is stored in a volatile field, so the JIT cannot
+ *  drop the work as dead code.
+ */
+public class Harness {
+
+    // Student's t quantiles for a 99.9% two-sided interval, by degrees of freedom 1 to 10
+    private static final double[] T = { 636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59 };
+
+    private static volatile Object sink;
+
+    private final int warmups;
+    private final int iterations;
+    private final long iterationNanos;
+    private final com.sun.management.ThreadMXBean threads;
+    private final List<GarbageCollectorMXBean> collectors;
+
+    /**
+     * Initializes a harness.
+     * @param warmups the number of warm-up iterations
+     * @param iterations the number of measured iterations
+     * @param iterationMillis the least duration of an iteration, in milliseconds
+     * @throws IllegalArgumentException unless <tt>warmups</tt> &ge; 0, <tt>iterations</tt> &ge; 1
+     *    and <tt>iterationMillis</tt> &ge; 1
+     */
+    public Harness(int warmups, int iterations, int iterationMillis) {
+        if (warmups < 0 || iterations < 1 || iterationMillis < 1)
+            throw new IllegalArgumentException("Need at least one measured iteration of at least 1 ms");
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1000000L;
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (threads.isThreadAllocatedMemorySupported()) threads.setThreadAllocatedMemoryEnabled(true);
+        this.collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    }
+
+    /**
+     * Prints the column headers of the lines of {@link #run(String, long, Supplier)}.
+     */
+    public static void header() {
+        System.out.printf("%-34s %16s %10s %12s %8s %4s %6s%n",
+                          "benchmark", "ops/s", "ns/edge", "B/op", "MB/s", "gc", "gc ms");
+    }
+
+    /**
+     * Returns the numbers of threads to measure a parallel algorithm with:
+     * the powers of two below <tt>processors</tt>, then <tt>processors</tt> itself.
+     * @param processors the largest number of threads
+     * @return 1, 2, 4, ... while less than <tt>processors</tt>, then <tt>processors</tt>
+     * @throws IllegalArgumentException unless <tt>processors</tt> &ge; 1
+     */
+    public static int[] threadCounts(int processors) {
+        if (processors < 1) throw new IllegalArgumentException("Need at least one processor");
+        int powers = 0;
+        for (int threads = 1; threads < processors; threads *= 2) powers++;
+        int[] counts = new int[powers + 1];
+        for (int i = 0; i < powers; i++) counts[i] = 1 << i;
+        counts[powers] = processors;
+        return counts;
+    }
+
+    /**
+     * Measures <tt>operation</tt> and prints one line of results.
+     * @param name the name of the benchmark
+     * @param edges the number of edges one call handles, for the time per edge
+     * @param operation the operation, whose result is kept alive
+     * @return the mean throughput, in operations per second
+     */
+    public double run(String name, long edges, Supplier<?> operation) {
+        for (int i = 0; i < warmups; i++) {
+            iteration(operation);
+        }
+        long[] ops = new long[iterations];
+        long[] nanos = new long[iterations];
+        long bytes = allocatedBytes();
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            ops[i] = iteration(operation);
+            nanos[i] = System.nanoTime() - start;
+        }
+        bytes = allocatedBytes() - bytes;
+        gcCount = gcCount() - gcCount;
+        gcTime = gcTime() - gcTime;
+
+        double[] throughput = new double[iterations];
+        long totalOps = 0, totalNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            throughput[i] = ops[i] * 1e9 / nanos[i];
+            totalOps += ops[i];
+            totalNanos += nanos[i];
+        }
+        double mean = Arrays.stream(throughput).average().getAsDouble();
+        double error = Double.NaN;
+        if (iterations > 1) {
+            double variance = 0.0;
+            for (double x : throughput) variance += (x - mean) * (x - mean);
+            variance /= iterations - 1;
+            double t = iterations - 1 <= T.length ? T[iterations - 2] : 3.29;
+            error = t * Math.sqrt(variance / iterations);
+        }
+        double nanosPerOp = (double) totalNanos / totalOps;
+        System.out.printf("%-34s %9.1f +-%3.0f%% %10.2f %12d %8.1f %4d %6d%n",
+                          name, mean, 100.0 * error / mean, edges > 0 ? nanosPerOp / edges : Double.NaN,
+                          bytes < 0 ? -1 : bytes / totalOps, bytes < 0 ? Double.NaN : bytes / 1048576.0 / (totalNanos / 1e9),
+                          gcCount, gcTime);
+        return mean;
+    }
+
+    // calls operation until the iteration time is up, and returns the number of calls
+    private long iteration(Supplier<?> operation) {
+        long start = System.nanoTime();
+        long calls = 0;
+        do {
+            sink = operation.get();
+            calls++;
+        } while (System.nanoTime() - start < iterationNanos);
+        return calls;
+    }
+
+    // bytes allocated by all live threads so far, -1 if the JVM does not count them
+    private long allocatedBytes() {
+        if (!threads.isThreadAllocatedMemorySupported()) return -1;
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    private long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : collectors) count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    private long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : collectors) time += Math.max(0, gc.getCollectionTime());
+        return time;
+    }
+}
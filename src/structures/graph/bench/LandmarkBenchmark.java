@@ -0,0 +1,136 @@
+package structures.graph.bench;
+
+import structures.graph.AStarSP;
+import structures.graph.DijkstraSP;
+import structures.graph.EdgeWeightedDigraph;
+import structures.graph.Landmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/*************************************************************************
+ *  Compilation:  javac LandmarkBenchmark.java
+ *  Execution:    java LandmarkBenchmark [rows] [scale] [k] [queries]
+ *  Dependencies: GraphGenerator.java DijkstraSP.java Landmarks.java AStarSP.java
+ *
+ *  Compares point-to-point queries of DijkstraSP, stopping at the target,
+ *  with those of AStarSP over k landmarks, on a road-like grid and on an
+ *  R-MAT power-law graph. Prints the vertices each query settled and saved.
+ *
+ *  % java LandmarkBenchmark 1000 20 16 5
+ *  grid: 1000000 vertices, 3996000 edges
+ *  16 landmarks in 10355.6 ms, 122.1 MB of tables
+ *         s        t    distance   dijkstra        alt    saved
+ *    431130   392763     2640.70     660824      38202    94.2%
+ *    211248   948884     4238.42     986141      79698    91.9%
+ *    969970    87525     4231.72     815375      13084    98.4%
+ *     21505   796918     3827.45     868579      45353    94.8%
+ *    255519   118093     1907.21     521271      15438    97.0%
+ *  total   dijkstra    3852190 settled   1023.2 ms
+ *          alt          191775 settled     81.1 ms  12.62x
+ *          mapped       191775 settled     78.2 ms  13.09x
+ *  rmat: 1048576 vertices, 16777216 edges
+ *  16 landmarks in 19240.0 ms, 128.0 MB of tables
+ *         s        t    distance   dijkstra        alt    saved
+ *    716411    50268        0.14      10414        193    98.1%
+ *    963985   159339        0.06     144927       3291    97.7%
+ *     32944   331908        0.68     383436      22644    94.1%
+ *    375306   208752        1.60     530132      80044    84.9%
+ *    748060   558899        0.26      44711       4865    89.1%
+ *  total   dijkstra    1113620 settled   1342.0 ms
+ *          alt          111037 settled    595.2 ms   2.25x
+ *          mapped       111037 settled    632.4 ms   2.12x
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>LandmarkBenchmark</tt> class measures how many settled vertices and
+ *  how much time the landmark bounds of {@link AStarSP} save over {@link DijkstraSP}
+ *  on random point-to-point queries, on the graphs of {@link GraphGenerator}.
+ *  It reports the preprocessing time and the size of the tables, one line per
+ *  query, and the totals over all queries, both with the tables on the heap
+ *  and mapped from a file written by {@link Landmarks#save(Path)}.
+ *  Every distance is checked against Dijkstra's algorithm.
+ */
+public class LandmarkBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int scale = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int queries = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        run("grid", GraphGenerator.grid(rows, rows, 42), k, queries);
+        run("rmat", GraphGenerator.rmat(scale, 16, 42), k, queries);
+    }
+
+    private static void run(String name, EdgeWeightedDigraph G, int k, int queries) throws IOException {
+        System.out.printf("%s: %d vertices, %d edges%n", name, G.V(), G.E());
+        long start = System.nanoTime();
+        Landmarks landmarks = new Landmarks(G, k);
+        System.out.printf("%d landmarks in %.1f ms, %.1f MB of tables%n",
+                          k, (System.nanoTime() - start) / 1e6, 8.0 * k * G.V() / (1 << 20));
+
+        // random pairs with a path between them, giving up if too few pairs have one
+        Random random = new Random(42);
+        DijkstraSP dijkstra = new DijkstraSP(G);
+        int[] s = new int[queries];
+        int[] t = new int[queries];
+        for (int q = 0, attempts = 0; q < queries; attempts++) {
+            if (attempts == 100 * queries)
+                throw new IllegalStateException("only " + q + " of " + attempts + " random pairs of " + name
+                                                + " have a path; the graph is too poorly connected");
+            s[q] = random.nextInt(G.V());
+            t[q] = random.nextInt(G.V());
+            if (dijkstra.search(s[q], t[q])) q++;
+        }
+
+        AStarSP alt = new AStarSP(G, landmarks);
+        System.out.println("       s        t    distance   dijkstra        alt    saved");
+        for (int q = 0; q < queries; q++) {
+            dijkstra.search(s[q], t[q]);
+            alt.search(s[q], t[q]);
+            check(dijkstra, alt, t[q]);
+            System.out.printf("%8d %8d %11.2f %10d %10d %7.1f%%%n", s[q], t[q], alt.distTo(t[q]),
+                              dijkstra.settledCount(), alt.settledCount(),
+                              100.0 * (dijkstra.settledCount() - alt.settledCount()) / dijkstra.settledCount());
+        }
+
+        Path file = Files.createTempFile("landmarks", ".bin");
+        landmarks.save(file);
+        AStarSP mapped = new AStarSP(G, Landmarks.load(file));
+        // one warm-up round, then the timed one
+        for (int round = 0; round < 2; round++) {
+            long dijkstraTime = 0, altTime = 0, mappedTime = 0;
+            long dijkstraSettled = 0, altSettled = 0;
+            for (int q = 0; q < queries; q++) {
+                long begin = System.nanoTime();
+                dijkstra.search(s[q], t[q]);
+                dijkstraTime += System.nanoTime() - begin;
+                begin = System.nanoTime();
+                alt.search(s[q], t[q]);
+                altTime += System.nanoTime() - begin;
+                begin = System.nanoTime();
+                mapped.search(s[q], t[q]);
+                mappedTime += System.nanoTime() - begin;
+                check(dijkstra, mapped, t[q]);
+                dijkstraSettled += dijkstra.settledCount();
+                altSettled += alt.settledCount();
+            }
+            if (round == 0) continue;
+            System.out.printf("total   dijkstra %10d settled %8.1f ms%n", dijkstraSettled, dijkstraTime / 1e6);
+            System.out.printf("        alt      %10d settled %8.1f ms  %5.2fx%n",
+                              altSettled, altTime / 1e6, (double) dijkstraTime / altTime);
+            System.out.printf("        mapped   %10d settled %8.1f ms  %5.2fx%n",
+                              altSettled, mappedTime / 1e6, (double) dijkstraTime / mappedTime);
+        }
+        Files.delete(file);
+    }
+
+    private static void check(DijkstraSP dijkstra, AStarSP alt, int t) {
+        if (alt.distTo(t) != dijkstra.distTo(t))
+            throw new IllegalStateException("distTo(" + t + ") differs from Dijkstra's algorithm");
+    }
+}
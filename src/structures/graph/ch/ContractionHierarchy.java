@@ -0,0 +1,318 @@
+package structures.graph.ch;
+
+import structures.graph.DijkstraSP;
+import structures.graph.EdgeWeightedDigraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*************************************************************************
+ *  Compilation:  javac ContractionHierarchy.java
+ *  Execution:    java ContractionHierarchy
+ *  Dependencies: EdgeWeightedDigraph.java Contractor.java ContractionHierarchySP.java
+ *  Data files:   http://algs4.cs.princeton.edu/44sp/tinyEWD.txt
+ *
+ *  Contracts an edge-weighted digraph into a hierarchy of upward and
+ *  downward edges, saves it and loads it back.
+ *
+ *  % java ContractionHierarchy
+ *  8 vertices, 15 edges, 7 shortcuts
+ *  order: 4 0 7 1 3 2 6 5
+ *  0: up 0->2 0.26  0->5 0.73  down 6->0 0.58
+ *  1: up 1->3 0.29  down 5->1 0.32
+ *  2: up 2->5 0.62  2->6 1.25  down 6->2 0.40
+ *  3: up 3->6 0.52  down 5->3 0.61  2->3 0.73
+ *  4: up 4->7 0.37  4->5 0.35  down 0->4 0.38  5->4 0.35  6->4 0.93
+ *  5:
+ *  6: up 6->5 1.02  down 5->6 1.13
+ *  7: up 7->3 0.39  7->5 0.28  down 2->7 0.34  5->7 0.28
+ *  loaded copy answers all 64 pairs like DijkstraSP: true
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>ContractionHierarchy</tt> class represents the preprocessed form of
+ *  an edge-weighted digraph with nonnegative weights used by the contraction
+ *  hierarchies of Geisberger, Sanders, Schultes and Delling, for point-to-point
+ *  queries with {@link ContractionHierarchySP}.
+ *  <p>
+ *  {@link #build(EdgeWeightedDigraph)} contracts the vertices one by one, in an
+ *  order chosen by the edge difference, and adds a <em>shortcut</em> u->w with
+ *  the length of u->v->w whenever the contraction of <tt>v</tt> would otherwise
+ *  lose that distance. The rank of a vertex is its position in the order.
+ *  Every shortest path then has a shortest path of the same length that only
+ *  goes up in rank and then only down. The hierarchy keeps just those edges, in
+ *  two compressed sparse row arrays: the <em>upward</em> edges v->w with
+ *  rank(w) &gt; rank(v), stored at <tt>v</tt>, and the <em>downward</em> edges
+ *  u->v with rank(u) &gt; rank(v), stored at their lower end <tt>v</tt>, so
+ *  that a backward search from the target also climbs. Each edge records
+ *  its middle vertex, or -1 for an edge of the digraph, for unpacking paths.
+ *  <p>
+ *  {@link #save(Path)} writes the arrays to a file and {@link #load(Path)}
+ *  reads them back with one bulk copy per array out of a memory mapping, so
+ *  a service starts without contracting again. A hierarchy is immutable and
+ *  may be queried by several threads at once, each with its own
+ *  <tt>ContractionHierarchySP</tt>.
+ */
+public class ContractionHierarchy {
+
+    private static final int MAGIC = 'C' | 'H' << 8 | 'G' << 16 | 'R' << 24;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+
+    final int V;
+    final int[] rank;             // rank[v] = position of v in the contraction order
+    final int[] upOffsets;        // upward edges of v in slots upOffsets[v] to upOffsets[v+1]
+    final int[] upTargets;        // higher head of each upward edge
+    final double[] upWeights;
+    final int[] upMiddle;         // contracted vertex a shortcut skips, -1 for an edge of the digraph
+    final int[] downOffsets;      // downward edges into v in slots downOffsets[v] to downOffsets[v+1]
+    final int[] downSources;      // higher tail of each downward edge
+    final double[] downWeights;
+    final int[] downMiddle;
+
+    ContractionHierarchy(int V, int[] rank,
+                         int[] upOffsets, int[] upTargets, double[] upWeights, int[] upMiddle,
+                         int[] downOffsets, int[] downSources, double[] downWeights, int[] downMiddle) {
+        this.V = V;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddle = upMiddle;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downWeights = downWeights;
+        this.downMiddle = downMiddle;
+    }
+
+    /**
+     * Contracts the edge-weighted digraph <tt>G</tt>.
+     * @param G the edge-weighted digraph
+     * @return the hierarchy of <tt>G</tt>
+     * @throws IllegalArgumentException if an edge weight is negative
+     */
+    public static ContractionHierarchy build(EdgeWeightedDigraph G) {
+        if (G.minWeight() < 0)
+            throw new IllegalArgumentException("edge weight " + G.minWeight() + " is negative");
+        return new Contractor(G).contract();
+    }
+
+    /**
+     * Returns the number of vertices.
+     * @return the number of vertices
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the position of vertex <tt>v</tt> in the contraction order.
+     * @param v the vertex
+     * @return the rank of <tt>v</tt>, between 0 and <tt>V</tt> - 1
+     */
+    public int rank(int v) {
+        return rank[v];
+    }
+
+    /**
+     * Returns the number of upward and downward edges together.
+     * @return the number of edges in the hierarchy
+     */
+    public int E() {
+        return upTargets.length + downSources.length;
+    }
+
+    /**
+     * Returns the number of shortcuts among the edges of the hierarchy.
+     * @return the number of shortcuts
+     */
+    public int shortcuts() {
+        int count = 0;
+        for (int m : upMiddle) if (m != -1) count++;
+        for (int m : downMiddle) if (m != -1) count++;
+        return count;
+    }
+
+    // the middle vertex of the upward edge v->w, which must exist
+    int upMiddle(int v, int w) {
+        for (int i = upOffsets[v]; i < upOffsets[v + 1]; i++) {
+            if (upTargets[i] == w) return upMiddle[i];
+        }
+        throw new IllegalStateException("no upward edge " + v + "->" + w);
+    }
+
+    // the middle vertex of the downward edge u->v, which must exist
+    int downMiddle(int u, int v) {
+        for (int i = downOffsets[v]; i < downOffsets[v + 1]; i++) {
+            if (downSources[i] == u) return downMiddle[i];
+        }
+        throw new IllegalStateException("no downward edge " + u + "->" + v);
+    }
+
+    /**
+     * Writes the hierarchy to <tt>file</tt>, replacing it. A file holds, in
+     * little-endian order, the int magic number 'C' 'H' 'G' 'R', the int version 1,
+     * the ints <em>V</em>, number of upward edges and number of downward edges,
+     * a zero int, and then the arrays: ranks, upward offsets, targets, middle
+     * vertices and weights, and downward offsets, sources, middle vertices and weights.
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(V).putInt(upTargets.length).putInt(downSources.length).putInt(0);
+            buffer = put(channel, buffer, rank);
+            buffer = put(channel, buffer, upOffsets);
+            buffer = put(channel, buffer, upTargets);
+            buffer = put(channel, buffer, upMiddle);
+            buffer = put(channel, buffer, upWeights);
+            buffer = put(channel, buffer, downOffsets);
+            buffer = put(channel, buffer, downSources);
+            buffer = put(channel, buffer, downMiddle);
+            buffer = put(channel, buffer, downWeights);
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer put(FileChannel channel, ByteBuffer buffer, int[] a) throws IOException {
+        for (int value : a) {
+            if (buffer.remaining() < 4) buffer = flush(channel, buffer);
+            buffer.putInt(value);
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer put(FileChannel channel, ByteBuffer buffer, double[] a) throws IOException {
+        for (double value : a) {
+            if (buffer.remaining() < 8) buffer = flush(channel, buffer);
+            buffer.putDouble(value);
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Reads a hierarchy written by {@link #save(Path)}.
+     * @param file the file
+     * @return the hierarchy
+     * @throws IOException if the file cannot be read or is not a hierarchy file
+     */
+    public static ContractionHierarchy load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) throw new IOException("not a hierarchy file: too short");
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) throw new IOException("not a hierarchy file: bad magic number");
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("unsupported hierarchy file version " + version);
+            int V = header.getInt();
+            int up = header.getInt();
+            int down = header.getInt();
+            if (V < 0 || up < 0 || down < 0) throw new IOException("corrupt hierarchy file header");
+            long size = HEADER_BYTES + 4L * V + 8L * (V + 1) + 16L * up + 16L * down;
+            if (channel.size() < size) throw new IOException(file + " is truncated");
+
+            long[] position = { HEADER_BYTES };
+            int[] rank = ints(channel, position, V);
+            int[] upOffsets = ints(channel, position, V + 1);
+            int[] upTargets = ints(channel, position, up);
+            int[] upMiddle = ints(channel, position, up);
+            double[] upWeights = doubles(channel, position, up);
+            int[] downOffsets = ints(channel, position, V + 1);
+            int[] downSources = ints(channel, position, down);
+            int[] downMiddle = ints(channel, position, down);
+            double[] downWeights = doubles(channel, position, down);
+            if (upOffsets[V] != up || downOffsets[V] != down) throw new IOException("corrupt hierarchy file offsets");
+            return new ContractionHierarchy(V, rank, upOffsets, upTargets, upWeights, upMiddle,
+                                            downOffsets, downSources, downWeights, downMiddle);
+        }
+    }
+
+    // copies n ints out of a mapping of the file at position[0], and advances it
+    private static int[] ints(FileChannel channel, long[] position, int n) throws IOException {
+        int[] a = new int[n];
+        for (int done = 0; done < n; ) {
+            int count = Math.min(n - done, 1 << 28);
+            channel.map(FileChannel.MapMode.READ_ONLY, position[0], 4L * count)
+                   .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(a, done, count);
+            position[0] += 4L * count;
+            done += count;
+        }
+        return a;
+    }
+
+    private static double[] doubles(FileChannel channel, long[] position, int n) throws IOException {
+        double[] a = new double[n];
+        for (int done = 0; done < n; ) {
+            int count = Math.min(n - done, 1 << 27);
+            channel.map(FileChannel.MapMode.READ_ONLY, position[0], 8L * count)
+                   .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(a, done, count);
+            position[0] += 8L * count;
+            done += count;
+        }
+        return a;
+    }
+
+
+    /**
+     * Unit tests the <tt>ContractionHierarchy</tt> data type.
+     */
+    public static void main(String[] args) throws IOException {
+        // tinyEWD.txt
+        int[] mas = {4, 5, 5, 4, 4, 7, 5, 7, 7, 5, 5, 1, 0, 4, 0, 2, 7, 3, 1, 3, 2, 7, 6, 2, 3, 6, 6, 0, 6, 4};
+        double[] weights = {0.35, 0.35, 0.37, 0.28, 0.28, 0.32, 0.38, 0.26, 0.39, 0.29, 0.34, 0.40, 0.52, 0.58, 0.93};
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(8, 15, mas, weights);
+        ContractionHierarchy H = ContractionHierarchy.build(G);
+
+        System.out.println(G.V() + " vertices, " + G.E() + " edges, " + H.shortcuts() + " shortcuts");
+        int[] order = new int[H.V()];
+        for (int v = 0; v < H.V(); v++) order[H.rank(v)] = v;
+        System.out.print("order:");
+        for (int v : order) System.out.print(" " + v);
+        System.out.println();
+        for (int v = 0; v < H.V(); v++) {
+            StringBuilder s = new StringBuilder(v + ":");
+            if (H.upOffsets[v] < H.upOffsets[v + 1]) s.append(" up");
+            for (int i = H.upOffsets[v]; i < H.upOffsets[v + 1]; i++) {
+                s.append(String.format(" %d->%d %.2f ", v, H.upTargets[i], H.upWeights[i]));
+            }
+            if (H.downOffsets[v] < H.downOffsets[v + 1]) s.append(" down");
+            for (int i = H.downOffsets[v]; i < H.downOffsets[v + 1]; i++) {
+                s.append(String.format(" %d->%d %.2f ", H.downSources[i], v, H.downWeights[i]));
+            }
+            System.out.println(s.toString().replaceAll(" +$", "").replaceAll("  +", "  "));
+        }
+
+        Path file = Files.createTempFile("hierarchy", ".bin");
+        H.save(file);
+        ContractionHierarchySP sp = new ContractionHierarchySP(ContractionHierarchy.load(file));
+        Files.delete(file);
+        DijkstraSP dijkstra = new DijkstraSP(G);
+        boolean same = true;
+        for (int s = 0; s < G.V(); s++) {
+            dijkstra.search(s);
+            for (int t = 0; t < G.V(); t++) {
+                sp.search(s, t);
+                if (Math.abs(sp.distance() - dijkstra.distTo(t)) > 1e-12) same = false;
+            }
+        }
+        System.out.println("loaded copy answers all " + G.V() * G.V() + " pairs like DijkstraSP: " + same);
+    }
+}
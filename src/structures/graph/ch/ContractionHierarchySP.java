@@ -0,0 +1,279 @@
+package structures.graph.ch;
+
+import structures.graph.DijkstraSP;
+import structures.graph.EdgeWeightedDigraph;
+import structures.graph.IndexDaryMinPQ;
+import structures.lists.Stack;
+
+/*************************************************************************
+ *  Compilation:  javac ContractionHierarchySP.java
+ *  Execution:    java ContractionHierarchySP s t
+ *  Dependencies: ContractionHierarchy.java IndexDaryMinPQ.java DijkstraSP.java Stack.java
+ *  Data files:   http://algs4.cs.princeton.edu/44sp/tinyEWD.txt
+ *
+ *  Bidirectional upward search in a contraction hierarchy. Computes
+ *  a shortest path from s to t. Assumes all weights are nonnegative.
+ *
+ *  % java ContractionHierarchySP 0 6
+ *  0 to 6 (1.51)  0->2->7->3->6
+ *  settled 6 vertices, DijkstraSP settled 8
+ *
+ *  % java ContractionHierarchySP 6 1
+ *  6 to 1 (1.34)  6->2->7->5->1
+ *  settled 4 vertices, DijkstraSP settled 8
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>ContractionHierarchySP</tt> class represents a data type for solving the
+ *  point-to-point shortest path problem with a {@link ContractionHierarchy}.
+ *  <p>
+ *  A search runs Dijkstra's algorithm forward from the source over the upward
+ *  edges and backward from the target over the downward edges, so both only
+ *  climb in rank, alternating by the smaller key of their priority queues. Every
+ *  vertex settled by one search and reached by the other gives a candidate
+ *  length; the search stops when neither queue holds a key below the best one.
+ *  A vertex whose distance is beaten through a higher neighbor is
+ *  <em>stalled</em>: it is on no shortest up-down path, so its edges are not relaxed.
+ *  <p>
+ *  The path is unpacked by replacing each shortcut with its two halves,
+ *  found at the middle vertex, until only edges of the digraph are left.
+ *  The length is the one {@link DijkstraSP} finds, up to the rounding of
+ *  adding the same weights in another order.
+ *  <p>
+ *  One <tt>ContractionHierarchySP</tt> answers any number of searches, and each
+ *  one resets only the vertices the previous one reached. It must not be shared
+ *  by several threads; the hierarchy may be.
+ */
+public class ContractionHierarchySP {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private final ContractionHierarchy H;
+    // forward search from the source over upward edges
+    private final double[] distF;
+    private final int[] edgeF;           // edgeF[v] = previous vertex on the path to v, -1 if none
+    private final IndexDaryMinPQ pqF;
+    // backward search from the target over downward edges
+    private final double[] distB;
+    private final int[] edgeB;           // edgeB[v] = next vertex on the path from v, -1 if none
+    private final IndexDaryMinPQ pqB;
+    private final int[] reached;         // vertices reached by either search
+    private int reachedCount;
+    private int settledCount;
+    private int source;
+    private double best;                 // length of the shortest path found
+    private int meet;                    // its highest vertex, -1 if none
+
+    /**
+     * Initializes a reusable search over the hierarchy <tt>H</tt>.
+     * @param H the contraction hierarchy
+     */
+    public ContractionHierarchySP(ContractionHierarchy H) {
+        this.H = H;
+        int V = H.V();
+        distF = new double[V];
+        edgeF = new int[V];
+        distB = new double[V];
+        edgeB = new int[V];
+        reached = new int[V];
+        pqF = new IndexDaryMinPQ(V);
+        pqB = new IndexDaryMinPQ(V);
+        for (int v = 0; v < V; v++) {
+            distF[v] = INFINITY;
+            distB[v] = INFINITY;
+            edgeF[v] = -1;
+            edgeB[v] = -1;
+        }
+        best = INFINITY;
+        meet = -1;
+    }
+
+    /**
+     * Computes a shortest path from <tt>s</tt> to <tt>t</tt>, replacing the previous search.
+     * @param s the source vertex
+     * @param t the destination vertex
+     * @return true if there is a path from <tt>s</tt> to <tt>t</tt>
+     * @throws IndexOutOfBoundsException unless both vertices are between 0 and <tt>V</tt> - 1
+     */
+    public boolean search(int s, int t) {
+        validateVertex(s);
+        validateVertex(t);
+        reset();
+        source = s;
+        distF[s] = 0.0;
+        distB[t] = 0.0;
+        reached[reachedCount++] = s;
+        if (t != s) reached[reachedCount++] = t;
+        pqF.insert(s, 0.0);
+        pqB.insert(t, 0.0);
+
+        while (true) {
+            double minF = pqF.isEmpty() ? INFINITY : pqF.minKey();
+            double minB = pqB.isEmpty() ? INFINITY : pqB.minKey();
+            if (Math.min(minF, minB) >= best || minF == INFINITY && minB == INFINITY) break;
+            if (minF <= minB) forward();
+            else              backward();
+        }
+        pqF.clear();
+        pqB.clear();
+        return meet != -1;
+    }
+
+    private void forward() {
+        int v = pqF.delMin();
+        settledCount++;
+        double dv = distF[v];
+        if (distB[v] < INFINITY && dv + distB[v] < best) {
+            best = dv + distB[v];
+            meet = v;
+        }
+        // stall v if a higher vertex reaches it by a downward edge for less
+        for (int i = H.downOffsets[v], end = H.downOffsets[v + 1]; i < end; i++) {
+            if (distF[H.downSources[i]] + H.downWeights[i] < dv) return;
+        }
+        for (int i = H.upOffsets[v], end = H.upOffsets[v + 1]; i < end; i++) {
+            int w = H.upTargets[i];
+            double dw = dv + H.upWeights[i];
+            if (dw < distF[w]) {
+                if (distF[w] == INFINITY && distB[w] == INFINITY) reached[reachedCount++] = w;
+                distF[w] = dw;
+                edgeF[w] = v;
+                pqF.insertOrDecrease(w, dw);
+            }
+        }
+    }
+
+    private void backward() {
+        int v = pqB.delMin();
+        settledCount++;
+        double dv = distB[v];
+        if (distF[v] < INFINITY && distF[v] + dv < best) {
+            best = distF[v] + dv;
+            meet = v;
+        }
+        for (int i = H.upOffsets[v], end = H.upOffsets[v + 1]; i < end; i++) {
+            if (distB[H.upTargets[i]] + H.upWeights[i] < dv) return;
+        }
+        for (int i = H.downOffsets[v], end = H.downOffsets[v + 1]; i < end; i++) {
+            int u = H.downSources[i];
+            double du = dv + H.downWeights[i];
+            if (du < distB[u]) {
+                if (distF[u] == INFINITY && distB[u] == INFINITY) reached[reachedCount++] = u;
+                distB[u] = du;
+                edgeB[u] = v;
+                pqB.insertOrDecrease(u, du);
+            }
+        }
+    }
+
+    // forget the previous search, touching only the vertices it reached
+    private void reset() {
+        for (int k = 0; k < reachedCount; k++) {
+            int v = reached[k];
+            distF[v] = INFINITY;
+            distB[v] = INFINITY;
+            edgeF[v] = -1;
+            edgeB[v] = -1;
+        }
+        reachedCount = 0;
+        settledCount = 0;
+        best = INFINITY;
+        meet = -1;
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= H.V()) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (H.V()-1));
+    }
+
+    /**
+     * Returns the length of the shortest path found by the last search.
+     * @return the length of a shortest path from the source to the target,
+     *    <tt>Double.POSITIVE_INFINITY</tt> if there is none
+     */
+    public double distance() {
+        return best;
+    }
+
+    /**
+     * Did the last search find a path?
+     * @return <tt>true</tt> if there is a path from the source to the target
+     */
+    public boolean hasPath() {
+        return meet != -1;
+    }
+
+    /**
+     * Returns the number of vertices the last search removed from its priority queues.
+     * @return the number of settled vertices, forward and backward together
+     */
+    public int settledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Returns the path found by the last search, with every shortcut unpacked.
+     * @return the path from the source to the target as an iterable of vertices,
+     *    and <tt>null</tt> if no path was found
+     */
+    public Iterable<Integer> path() {
+        if (!hasPath()) return null;
+        // the edges of the up-down path go on a stack of pending edges (tail, head, middle)
+        // with the last one on top, and are unpacked from there, so that the vertices
+        // are pushed from the target back to the source
+        Stack<int[]> up = new Stack<int[]>();
+        for (int v = meet; edgeF[v] != -1; v = edgeF[v]) {
+            up.push(new int[] { edgeF[v], v, H.upMiddle(edgeF[v], v) });
+        }
+        Stack<int[]> pending = new Stack<int[]>();
+        while (!up.isEmpty()) pending.push(up.pop());
+        for (int v = meet; edgeB[v] != -1; v = edgeB[v]) {
+            pending.push(new int[] { v, edgeB[v], H.downMiddle(v, edgeB[v]) });
+        }
+        Stack<Integer> path = new Stack<Integer>();
+        while (!pending.isEmpty()) {
+            int[] e = pending.pop();
+            int middle = e[2];
+            if (middle == -1) {
+                path.push(e[1]);
+                continue;
+            }
+            // e[0]->middle is downward, stored at middle; middle->e[1] is upward, stored at middle;
+            // the second half goes on top so that its vertices are pushed first
+            pending.push(new int[] { e[0], middle, H.downMiddle(e[0], middle) });
+            pending.push(new int[] { middle, e[1], H.upMiddle(middle, e[1]) });
+        }
+        path.push(source);
+        return path;
+    }
+
+
+    /**
+     * Unit tests the <tt>ContractionHierarchySP</tt> data type.
+     */
+    public static void main(String[] args) {
+        // tinyEWD.txt
+        int[] mas = {4, 5, 5, 4, 4, 7, 5, 7, 7, 5, 5, 1, 0, 4, 0, 2, 7, 3, 1, 3, 2, 7, 6, 2, 3, 6, 6, 0, 6, 4};
+        double[] weights = {0.35, 0.35, 0.37, 0.28, 0.28, 0.32, 0.38, 0.26, 0.39, 0.29, 0.34, 0.40, 0.52, 0.58, 0.93};
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(8, 15, mas, weights);
+        int s = Integer.parseInt(args[0]);
+        int t = Integer.parseInt(args[1]);
+
+        ContractionHierarchySP sp = new ContractionHierarchySP(ContractionHierarchy.build(G));
+        if (sp.search(s, t)) {
+            System.out.printf("%d to %d (%.2f)  ", s, t, sp.distance());
+            for (int x : sp.path()) {
+                if (x == s) System.out.print(x);
+                else        System.out.print("->" + x);
+            }
+            System.out.println();
+        }
+        else {
+            System.out.printf("%d to %d         no path\n", s, t);
+        }
+
+        DijkstraSP dijkstra = new DijkstraSP(G);
+        dijkstra.search(s, t);
+        System.out.printf("settled %d vertices, DijkstraSP settled %d%n", sp.settledCount(), dijkstra.settledCount());
+    }
+}
@@ -0,0 +1,295 @@
+package structures.graph.ch;
+
+import structures.graph.EdgeWeightedDigraph;
+import structures.graph.IndexDaryMinPQ;
+
+import java.util.Arrays;
+
+/**
+ *  The <tt>Contractor</tt> class orders the vertices of an edge-weighted digraph
+ *  and contracts them one by one, for {@link ContractionHierarchy#build}.
+ *  <p>
+ *  The digraph is copied into growable per-vertex lists of in- and out-edges,
+ *  keeping the lightest of parallel edges and dropping self-loops. Contracting
+ *  <tt>v</tt> removes it from the lists of its neighbors; for every pair of an
+ *  in-edge u->v and an out-edge v->w it adds the shortcut u->w, with <tt>v</tt>
+ *  as its middle vertex, unless a <em>witness search</em> (Dijkstra's algorithm
+ *  from <tt>u</tt> that avoids <tt>v</tt>, stopped when every such <tt>w</tt> is
+ *  settled or after a fixed number of settled vertices) finds a path that is
+ *  not longer. An unfinished witness search only adds shortcuts that are not
+ *  needed, never loses a distance.
+ *  <p>
+ *  The next vertex to contract has the smallest priority: twice the edge
+ *  difference (shortcuts added minus edges removed) plus the number of neighbors
+ *  already contracted, which spreads the contraction evenly. Priorities are
+ *  only updated lazily: a vertex removed from the queue goes back in if its
+ *  new priority is worse than the next one. Updating the neighbors of every
+ *  contracted vertex as well costs most of the witness searches for about
+ *  the same number of shortcuts.
+ *  <p>
+ *  The out-edges and in-edges a vertex has when it is contracted all lead to
+ *  vertices contracted later; they are its upward and downward edges in the hierarchy.
+ */
+class Contractor {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final int CONTRACT_LIMIT = 500;   // settled vertices per witness search when contracting
+    private static final int SIMULATE_LIMIT = 50;    // and when only counting shortcuts for a priority
+
+    private final int V;
+    // outTo[v][0..outDegree[v]) = heads of the edges leaving v, with their weights and middle vertices
+    private final int[][] outTo, outMiddle;
+    private final double[][] outWeight;
+    private final int[] outDegree;
+    // inFrom[v][0..inDegree[v]) = tails of the edges entering v
+    private final int[][] inFrom, inMiddle;
+    private final double[][] inWeight;
+    private final int[] inDegree;
+
+    private final int[] deletedNeighbors;
+    private final int[] rank;
+
+    // witness search
+    private final double[] dist;
+    private final int[] touched;
+    private int touchedCount;
+    private final boolean[] isTarget;     // out-neighbors of the vertex being contracted
+    private int targets;                  // those not settled yet
+    private final IndexDaryMinPQ pq;
+
+    Contractor(EdgeWeightedDigraph G) {
+        V = G.V();
+        outTo = new int[V][];
+        outMiddle = new int[V][];
+        outWeight = new double[V][];
+        outDegree = new int[V];
+        inFrom = new int[V][];
+        inMiddle = new int[V][];
+        inWeight = new double[V][];
+        inDegree = new int[V];
+        for (int v = 0; v < V; v++) {
+            int capacity = Math.max(2, G.outdegree(v));
+            outTo[v] = new int[capacity];
+            outMiddle[v] = new int[capacity];
+            outWeight[v] = new double[capacity];
+            inFrom[v] = new int[2];
+            inMiddle[v] = new int[2];
+            inWeight[v] = new double[2];
+        }
+        for (int v = 0; v < V; v++) {
+            for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                int w = G.target(i);
+                double weight = G.weight(i);
+                if (w != v && weight < INFINITY) addEdge(v, w, weight, -1);
+            }
+        }
+        deletedNeighbors = new int[V];
+        rank = new int[V];
+        dist = new double[V];
+        Arrays.fill(dist, INFINITY);
+        touched = new int[V];
+        isTarget = new boolean[V];
+        pq = new IndexDaryMinPQ(V);
+    }
+
+    /**
+     * Contracts every vertex and returns the hierarchy.
+     */
+    ContractionHierarchy contract() {
+        IndexDaryMinPQ order = new IndexDaryMinPQ(V);
+        for (int v = 0; v < V; v++) {
+            order.insert(v, priority(v));
+        }
+        int next = 0;
+        while (!order.isEmpty()) {
+            int v = order.delMin();
+            // lazy update: put v back if it has become worse than the next one
+            double p = priority(v);
+            if (!order.isEmpty() && p > order.minKey()) {
+                order.insert(v, p);
+                continue;
+            }
+            rank[v] = next++;
+            contract(v);
+            for (int k = 0; k < outDegree[v]; k++) {
+                deletedNeighbors[outTo[v][k]]++;
+            }
+            for (int k = 0; k < inDegree[v]; k++) {
+                deletedNeighbors[inFrom[v][k]]++;
+            }
+        }
+        return hierarchy();
+    }
+
+    private double priority(int v) {
+        int shortcuts = shortcuts(v, false);
+        return 2 * (shortcuts - (outDegree[v] + inDegree[v])) + deletedNeighbors[v];
+    }
+
+    private void contract(int v) {
+        shortcuts(v, true);
+        for (int k = 0; k < outDegree[v]; k++) {
+            removeIn(outTo[v][k], v);
+        }
+        for (int k = 0; k < inDegree[v]; k++) {
+            removeOut(inFrom[v][k], v);
+        }
+    }
+
+    // counts, and if add is set adds, the shortcuts that contracting v needs
+    private int shortcuts(int v, boolean add) {
+        int count = 0;
+        double maxOut = 0.0;
+        for (int k = 0; k < outDegree[v]; k++) {
+            maxOut = Math.max(maxOut, outWeight[v][k]);
+        }
+        for (int j = 0; j < inDegree[v]; j++) {
+            int u = inFrom[v][j];
+            double toV = inWeight[v][j];
+            targets = 0;
+            for (int k = 0; k < outDegree[v]; k++) {
+                int w = outTo[v][k];
+                if (w != u) {
+                    isTarget[w] = true;
+                    targets++;
+                }
+            }
+            witnessSearch(u, v, toV + maxOut, add ? CONTRACT_LIMIT : SIMULATE_LIMIT);
+            for (int k = 0; k < outDegree[v]; k++) {
+                isTarget[outTo[v][k]] = false;
+            }
+            for (int k = 0; k < outDegree[v]; k++) {
+                int w = outTo[v][k];
+                if (w == u) continue;
+                double via = toV + outWeight[v][k];
+                if (dist[w] <= via) continue;
+                count++;
+                if (add) addEdge(u, w, via, v);
+            }
+            clearWitness();
+        }
+        return count;
+    }
+
+    // Dijkstra's algorithm from u around v, until every target is settled,
+    // max is exceeded or limit vertices are settled
+    private void witnessSearch(int u, int v, double max, int limit) {
+        dist[u] = 0.0;
+        touched[touchedCount++] = u;
+        pq.insert(u, 0.0);
+        int settled = 0;
+        while (targets > 0 && !pq.isEmpty() && pq.minKey() <= max && settled < limit) {
+            int x = pq.delMin();
+            settled++;
+            if (isTarget[x]) targets--;
+            double dx = dist[x];
+            for (int k = 0; k < outDegree[x]; k++) {
+                int y = outTo[x][k];
+                if (y == v) continue;
+                double dy = dx + outWeight[x][k];
+                if (dy < dist[y]) {
+                    if (dist[y] == INFINITY) touched[touchedCount++] = y;
+                    dist[y] = dy;
+                    pq.insertOrDecrease(y, dy);
+                }
+            }
+        }
+        pq.clear();
+    }
+
+    private void clearWitness() {
+        for (int k = 0; k < touchedCount; k++) {
+            dist[touched[k]] = INFINITY;
+        }
+        touchedCount = 0;
+    }
+
+    // adds u->w, or lowers the weight of an existing u->w
+    private void addEdge(int u, int w, double weight, int middle) {
+        for (int k = 0; k < outDegree[u]; k++) {
+            if (outTo[u][k] == w) {
+                if (weight < outWeight[u][k]) {
+                    outWeight[u][k] = weight;
+                    outMiddle[u][k] = middle;
+                    for (int j = 0; j < inDegree[w]; j++) {
+                        if (inFrom[w][j] == u) {
+                            inWeight[w][j] = weight;
+                            inMiddle[w][j] = middle;
+                        }
+                    }
+                }
+                return;
+            }
+        }
+        if (outDegree[u] == outTo[u].length) {
+            int capacity = 2 * outDegree[u];
+            outTo[u] = Arrays.copyOf(outTo[u], capacity);
+            outMiddle[u] = Arrays.copyOf(outMiddle[u], capacity);
+            outWeight[u] = Arrays.copyOf(outWeight[u], capacity);
+        }
+        outTo[u][outDegree[u]] = w;
+        outMiddle[u][outDegree[u]] = middle;
+        outWeight[u][outDegree[u]++] = weight;
+        if (inDegree[w] == inFrom[w].length) {
+            int capacity = 2 * inDegree[w];
+            inFrom[w] = Arrays.copyOf(inFrom[w], capacity);
+            inMiddle[w] = Arrays.copyOf(inMiddle[w], capacity);
+            inWeight[w] = Arrays.copyOf(inWeight[w], capacity);
+        }
+        inFrom[w][inDegree[w]] = u;
+        inMiddle[w][inDegree[w]] = middle;
+        inWeight[w][inDegree[w]++] = weight;
+    }
+
+    // swap-removes v from the in-edges of w
+    private void removeIn(int w, int v) {
+        for (int j = 0; j < inDegree[w]; j++) {
+            if (inFrom[w][j] == v) {
+                int last = --inDegree[w];
+                inFrom[w][j] = inFrom[w][last];
+                inMiddle[w][j] = inMiddle[w][last];
+                inWeight[w][j] = inWeight[w][last];
+                return;
+            }
+        }
+    }
+
+    // swap-removes v from the out-edges of u
+    private void removeOut(int u, int v) {
+        for (int k = 0; k < outDegree[u]; k++) {
+            if (outTo[u][k] == v) {
+                int last = --outDegree[u];
+                outTo[u][k] = outTo[u][last];
+                outMiddle[u][k] = outMiddle[u][last];
+                outWeight[u][k] = outWeight[u][last];
+                return;
+            }
+        }
+    }
+
+    // the lists of a contracted vertex no longer change: they are its upward and downward edges
+    private ContractionHierarchy hierarchy() {
+        int[] upOffsets = new int[V + 1];
+        int[] downOffsets = new int[V + 1];
+        for (int v = 0; v < V; v++) {
+            upOffsets[v + 1] = upOffsets[v] + outDegree[v];
+            downOffsets[v + 1] = downOffsets[v] + inDegree[v];
+        }
+        int[] upTargets = new int[upOffsets[V]];
+        int[] upMiddle = new int[upOffsets[V]];
+        double[] upWeights = new double[upOffsets[V]];
+        int[] downSources = new int[downOffsets[V]];
+        int[] downMiddle = new int[downOffsets[V]];
+        double[] downWeights = new double[downOffsets[V]];
+        for (int v = 0; v < V; v++) {
+            System.arraycopy(outTo[v], 0, upTargets, upOffsets[v], outDegree[v]);
+            System.arraycopy(outMiddle[v], 0, upMiddle, upOffsets[v], outDegree[v]);
+            System.arraycopy(outWeight[v], 0, upWeights, upOffsets[v], outDegree[v]);
+            System.arraycopy(inFrom[v], 0, downSources, downOffsets[v], inDegree[v]);
+            System.arraycopy(inMiddle[v], 0, downMiddle, downOffsets[v], inDegree[v]);
+            System.arraycopy(inWeight[v], 0, downWeights, downOffsets[v], inDegree[v]);
+        }
+        return new ContractionHierarchy(V, rank, upOffsets, upTargets, upWeights, upMiddle,
+                                        downOffsets, downSources, downWeights, downMiddle);
+    }
+}
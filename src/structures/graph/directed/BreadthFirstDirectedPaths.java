@@ -25,9 +25,13 @@ package structures.graph.directed;
  *
  *************************************************************************/
 
+import structures.graph.CSRGraph;
+import structures.graph.IntGraph;
 import structures.lists.Queue;
 import structures.lists.Stack;
 
+import java.util.Arrays;
+
 /**
  *  The <tt>BreadthDirectedFirstPaths</tt> class represents a data type for finding
  *  shortest paths (number of edges) from a source vertex <em>s</em>
@@ -38,6 +42,20 @@ import structures.lists.Stack;
  *  where <em>V</em> is the number of vertices and <em>E</em> is the number of edges.
  *  It uses extra space (not including the digraph) proportional to <em>V</em>.
  *  <p>
+ *  The search also runs on any {@link IntGraph}, such as a
+ *  {@link structures.graph.CSRGraph} frozen from a <tt>Digraph</tt>; there it keeps
+ *  the frontier in an <tt>int[]</tt> and does not allocate per edge.
+ *  <p>
+ *  {@link #directionOptimizing(IntGraph, IntGraph, int)} runs Beamer's
+ *  direction-optimizing search instead: while the frontier is small it
+ *  expands it top-down, and once the frontier's out-edges outweigh the
+ *  in-edges of the unvisited vertices it switches to bottom-up steps, in
+ *  which every unvisited vertex scans its in-edges (from the reverse digraph)
+ *  for a parent in a bitset frontier and stops at the first one found.
+ *  On low-diameter graphs this skips most edge checks of the middle levels.
+ *  The distances are the same as those of the plain search; the paths are
+ *  shortest paths too, but may pick a different parent on ties.
+ *  <p>
  *  For additional documentation, see <a href="/algs4/41graph">Section 4.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *
@@ -47,6 +65,8 @@ import structures.lists.Stack;
 public class BreadthFirstDirectedPaths {
 
     private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int ALPHA = 14;   // go bottom-up once the frontier has more than 1/ALPHA of the unexplored edges
+    private static final int BETA = 24;    // go top-down again once the frontier has fewer than V/BETA vertices
     private boolean[] marked;  // marked[v] = is there an s->v path?
     private int[] edgeTo;      // edgeTo[v] = last edge on shortest s->v path
     private int[] distTo;      // distTo[v] = length of shortest s->v path
@@ -78,6 +98,84 @@ public class BreadthFirstDirectedPaths {
         bfs(G, sources);
     }
 
+    /**
+     * Computes the shortest path from <tt>s</tt> and every other vertex in the CSR digraph <tt>G</tt>.
+     * @param G the digraph
+     * @param s the source vertex
+     */
+    public BreadthFirstDirectedPaths(IntGraph G, int s) {
+        marked = new boolean[G.V()];
+        distTo = new int[G.V()];
+        edgeTo = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) distTo[v] = INFINITY;
+        int[] q = new int[G.V()];
+        marked[s] = true;
+        distTo[s] = 0;
+        q[0] = s;
+        bfs(G, q, 1);
+    }
+
+    /**
+     * Computes the shortest path from any one of the source vertices in <tt>sources</tt>
+     * to every other vertex in the CSR digraph <tt>G</tt>.
+     * @param G the digraph
+     * @param sources the source vertices
+     */
+    public BreadthFirstDirectedPaths(IntGraph G, Iterable<Integer> sources) {
+        marked = new boolean[G.V()];
+        distTo = new int[G.V()];
+        edgeTo = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) distTo[v] = INFINITY;
+        int[] q = new int[G.V()];
+        int tail = 0;
+        for (int s : sources) {
+            if (marked[s]) continue;
+            marked[s] = true;
+            distTo[s] = 0;
+            q[tail++] = s;
+        }
+        bfs(G, q, tail);
+    }
+
+    // empty search state for the static factories
+    private BreadthFirstDirectedPaths(int V) {
+        marked = new boolean[V];
+        distTo = new int[V];
+        edgeTo = new int[V];
+        for (int v = 0; v < V; v++) distTo[v] = INFINITY;
+    }
+
+    /**
+     * Computes the shortest path from <tt>s</tt> and every other vertex in digraph <tt>G</tt>
+     * with a direction-optimizing search. The digraph and its reverse are
+     * frozen into CSR form first; to run many searches, freeze them once and call
+     * {@link #directionOptimizing(IntGraph, IntGraph, int)}.
+     * @param G the digraph
+     * @param s the source vertex
+     * @return the shortest paths from <tt>s</tt>
+     */
+    public static BreadthFirstDirectedPaths directionOptimizing(Digraph G, int s) {
+        CSRGraph C = new CSRGraph(G);
+        return directionOptimizing(C, C.reverse(), s);
+    }
+
+    /**
+     * Computes the shortest path from <tt>s</tt> and every other vertex in the CSR digraph <tt>G</tt>
+     * with a direction-optimizing search.
+     * @param G the digraph
+     * @param R the reverse of <tt>G</tt>, such as {@link CSRGraph#reverse()}
+     * @param s the source vertex
+     * @return the shortest paths from <tt>s</tt>
+     * @throws IllegalArgumentException if <tt>G</tt> and <tt>R</tt> differ in size
+     */
+    public static BreadthFirstDirectedPaths directionOptimizing(IntGraph G, IntGraph R, int s) {
+        if (G.V() != R.V() || G.E() != R.E())
+            throw new IllegalArgumentException("R must be the reverse of G");
+        BreadthFirstDirectedPaths paths = new BreadthFirstDirectedPaths(G.V());
+        paths.bfs(G, R, s);
+        return paths;
+    }
+
     // BFS from single source
     private void bfs(Digraph G, int s) {
         Queue<Integer> q = new Queue();
@@ -118,6 +216,100 @@ public class BreadthFirstDirectedPaths {
         }
     }
 
+    // BFS over a CSR digraph, q[0..tail) holds the marked sources
+    private void bfs(IntGraph G, int[] q, int tail) {
+        int head = 0;
+        while (head < tail) {
+            int v = q[head++];
+            for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                int w = G.target(i);
+                if (!marked[w]) {
+                    edgeTo[w] = v;
+                    distTo[w] = distTo[v] + 1;
+                    marked[w] = true;
+                    q[tail++] = w;
+                }
+            }
+        }
+    }
+
+    // direction-optimizing BFS; the frontier is a list in top-down steps and a bitset in bottom-up steps
+    private void bfs(IntGraph G, IntGraph R, int s) {
+        int V = G.V();
+        int[] list = new int[V];
+        int[] nextList = new int[V];
+        long[] bits = new long[(V + 63) >>> 6];
+        long[] nextBits = new long[bits.length];
+
+        marked[s] = true;
+        distTo[s] = 0;
+        list[0] = s;
+        int size = 1;                            // vertices in the frontier
+        long frontierEdges = G.degree(s);        // out-edges of the frontier
+        long unexploredEdges = R.E() - R.degree(s); // in-edges of the unvisited vertices
+        boolean bottomUp = false;
+
+        for (int level = 1; size > 0; level++) {
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+                Arrays.fill(bits, 0L);
+                for (int k = 0; k < size; k++) bits[list[k] >>> 6] |= 1L << list[k];
+            }
+            else if (bottomUp && size < V / BETA) {
+                bottomUp = false;
+                size = 0;
+                for (int word = 0; word < bits.length; word++) {
+                    for (long b = bits[word]; b != 0; b &= b - 1) {
+                        list[size++] = (word << 6) + Long.numberOfTrailingZeros(b);
+                    }
+                }
+            }
+
+            int nextSize = 0;
+            frontierEdges = 0;
+            if (!bottomUp) {
+                // top-down: every frontier vertex offers itself to its unvisited out-neighbors
+                for (int k = 0; k < size; k++) {
+                    int v = list[k];
+                    for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                        int w = G.target(i);
+                        if (!marked[w]) {
+                            marked[w] = true;
+                            edgeTo[w] = v;
+                            distTo[w] = level;
+                            nextList[nextSize++] = w;
+                            frontierEdges += G.degree(w);
+                            unexploredEdges -= R.degree(w);
+                        }
+                    }
+                }
+                int[] t = list; list = nextList; nextList = t;
+            }
+            else {
+                // bottom-up: every unvisited vertex looks for an in-neighbor in the frontier
+                Arrays.fill(nextBits, 0L);
+                for (int w = 0; w < V; w++) {
+                    if (marked[w]) continue;
+                    for (int i = R.begin(w), end = R.end(w); i < end; i++) {
+                        int v = R.target(i);
+                        if ((bits[v >>> 6] & (1L << v)) != 0) {
+                            marked[w] = true;
+                            edgeTo[w] = v;
+                            distTo[w] = level;
+                            nextBits[w >>> 6] |= 1L << w;
+                            nextSize++;
+                            frontierEdges += G.degree(w);
+                            unexploredEdges -= R.degree(w);
+                            break;
+                        }
+                    }
+                }
+                long[] t = bits; bits = nextBits; nextBits = t;
+            }
+            size = nextSize;
+        }
+    }
+
     /**
      * Is there a directed path from the source <tt>s</tt> (or sources) to vertex <tt>v</tt>?
      * @param v the vertex
@@ -0,0 +1,295 @@
+package structures.graph.directed;
+
+/*************************************************************************
+ *  Compilation:  javac Condensation.java
+ *  Execution:    java Condensation v w
+ *  Dependencies: Digraph.java IntGraph.java CSRGraph.java TarjanSCC.java
+ *
+ *  The condensation of a digraph: the DAG with one vertex per strong
+ *  component and an edge between two components whenever the digraph
+ *  has an edge between their vertices.
+ *
+ *  % java Condensation 7 3
+ *  5 components
+ *  0: 7 -> 1 2
+ *  1: 6 8 -> 2 4
+ *  2: 9 10 11 12 -> 4
+ *  3: 1 ->
+ *  4: 0 2 3 4 5 -> 3
+ *  7 reaches 3: true
+ *
+ *************************************************************************/
+
+import structures.graph.CSRGraph;
+import structures.graph.IntGraph;
+
+import java.util.Arrays;
+
+/**
+ *  The <tt>Condensation</tt> class represents the condensation of a digraph,
+ *  for answering many component membership and reachability queries
+ *  without searching the whole digraph again for each of them.
+ *  <p>
+ *  The components are numbered 0 through <em>count</em> - 1 in topological
+ *  order: every edge of the DAG goes from a smaller to a larger component.
+ *  Component membership queries take constant time. A reachability query
+ *  between vertices of the same component takes constant time too; any
+ *  other one searches the DAG, which is usually far smaller than the
+ *  digraph, from the component of <tt>v</tt>, and never enters a component
+ *  numbered after that of <tt>w</tt>, since no such component reaches it.
+ *  <p>
+ *  The constructor takes time proportional to <em>V</em> + <em>E</em>
+ *  beyond finding the components. The DAG has no parallel edges or
+ *  self-loops. Reachability queries share scratch space, so an instance
+ *  is not thread-safe; the other operations are.
+ */
+public class Condensation {
+
+    private final int count;            // number of strong components
+    private final int[] id;             // id[v] = component of v, in topological order
+    private final int[] memberOffsets;  // members of component c are members[memberOffsets[c] .. memberOffsets[c+1] - 1]
+    private final int[] members;
+    private final CSRGraph dag;         // the condensation
+    private final int[] mark;           // mark[c] == epoch iff the current query reached c
+    private final int[] queue;
+    private int epoch;
+
+    /**
+     * Computes the condensation of the digraph <tt>G</tt>.
+     * @param G the digraph
+     */
+    public Condensation(Digraph G) {
+        this(new CSRGraph(G));
+    }
+
+    /**
+     * Computes the condensation of the CSR digraph <tt>G</tt>, finding its components with {@link TarjanSCC}.
+     * @param G the digraph
+     */
+    public Condensation(IntGraph G) {
+        this(G, new TarjanSCC(G));
+    }
+
+    /**
+     * Computes the condensation of the CSR digraph <tt>G</tt> with the components <tt>scc</tt>.
+     * @param G the digraph
+     * @param scc the strong components of <tt>G</tt>
+     */
+    public Condensation(IntGraph G, TarjanSCC scc) {
+        this(G, scc.ids(), scc.count());
+    }
+
+    /**
+     * Computes the condensation of the CSR digraph <tt>G</tt> with the components <tt>scc</tt>,
+     * renumbering them in topological order.
+     * @param G the digraph
+     * @param scc the strong components of <tt>G</tt>
+     */
+    public Condensation(IntGraph G, ParallelSCC scc) {
+        this(G, scc.ids(), scc.count());
+    }
+
+    private Condensation(IntGraph G, int[] ids, int count) {
+        this.count = count;
+        int[] id = ids.clone();
+        int[][] groups = group(id, count);
+        CSRGraph dag = condense(G, id, count, groups[0], groups[1]);
+
+        int[] rank = topologicalRank(dag);
+        if (rank != null) {
+            for (int v = 0; v < id.length; v++) {
+                id[v] = rank[id[v]];
+            }
+            groups = group(id, count);
+            dag = condense(G, id, count, groups[0], groups[1]);
+        }
+        this.id = id;
+        this.memberOffsets = groups[0];
+        this.members = groups[1];
+        this.dag = dag;
+        mark = new int[count];
+        queue = new int[count];
+    }
+
+    // the vertices of each component, grouped by counting sort
+    private static int[][] group(int[] id, int count) {
+        int[] offsets = new int[count + 1];
+        for (int c : id) {
+            offsets[c + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] next = Arrays.copyOf(offsets, count);
+        int[] members = new int[id.length];
+        for (int v = 0; v < id.length; v++) {
+            members[next[id[v]]++] = v;
+        }
+        return new int[][] { offsets, members };
+    }
+
+    // the DAG of components, without parallel edges or self-loops
+    private static CSRGraph condense(IntGraph G, int[] id, int count, int[] memberOffsets, int[] members) {
+        int[] offsets = new int[count + 1];
+        int[] targets = new int[Math.max(count, 16)];
+        int[] last = new int[count];   // last[d] == c + 1 iff c->d has already been added
+        int n = 0;
+        for (int c = 0; c < count; c++) {
+            for (int k = memberOffsets[c]; k < memberOffsets[c + 1]; k++) {
+                int v = members[k];
+                for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                    int d = id[G.target(i)];
+                    if (d == c || last[d] == c + 1) continue;
+                    last[d] = c + 1;
+                    if (n == targets.length) targets = Arrays.copyOf(targets, 2 * n);
+                    targets[n++] = d;
+                }
+            }
+            offsets[c + 1] = n;
+        }
+        return new CSRGraph(offsets, Arrays.copyOf(targets, n), true);
+    }
+
+    // a topological numbering of the DAG by Kahn's algorithm, or null if its numbering already is one
+    private static int[] topologicalRank(CSRGraph dag) {
+        int C = dag.V();
+        boolean ordered = true;
+        int[] indegree = new int[C];
+        for (int c = 0; c < C; c++) {
+            for (int i = dag.begin(c); i < dag.end(c); i++) {
+                int d = dag.target(i);
+                if (d < c) ordered = false;
+                indegree[d]++;
+            }
+        }
+        if (ordered) return null;
+
+        int[] rank = new int[C];
+        int[] queue = new int[C];
+        int tail = 0;
+        for (int c = 0; c < C; c++) {
+            if (indegree[c] == 0) queue[tail++] = c;
+        }
+        for (int head = 0; head < tail; head++) {
+            int c = queue[head];
+            rank[c] = head;
+            for (int i = dag.begin(c); i < dag.end(c); i++) {
+                int d = dag.target(i);
+                if (--indegree[d] == 0) queue[tail++] = d;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the number of strong components.
+     * @return the number of strong components
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the component containing vertex <tt>v</tt>, a vertex of the DAG.
+     * @param v the vertex
+     * @return the component containing vertex <tt>v</tt>
+     */
+    public int id(int v) {
+        return id[v];
+    }
+
+    /**
+     * Returns the number of vertices in component <tt>c</tt>.
+     * @param c the component
+     * @return the number of vertices in component <tt>c</tt>
+     */
+    public int size(int c) {
+        return memberOffsets[c + 1] - memberOffsets[c];
+    }
+
+    /**
+     * Returns the vertices in component <tt>c</tt>, in increasing order.
+     * @param c the component
+     * @return a new array of the vertices in component <tt>c</tt>
+     */
+    public int[] members(int c) {
+        return Arrays.copyOfRange(members, memberOffsets[c], memberOffsets[c + 1]);
+    }
+
+    /**
+     * Returns the condensation as a digraph on the components.
+     * @return the DAG of strong components
+     */
+    public CSRGraph dag() {
+        return dag;
+    }
+
+    /**
+     * Are vertices <tt>v</tt> and <tt>w</tt> in the same strong component?
+     * @param v one vertex
+     * @param w the other vertex
+     * @return <tt>true</tt> if vertices <tt>v</tt> and <tt>w</tt> are in the same
+     *     strong component, and <tt>false</tt> otherwise
+     */
+    public boolean stronglyConnected(int v, int w) {
+        return id[v] == id[w];
+    }
+
+    /**
+     * Is there a directed path from vertex <tt>v</tt> to vertex <tt>w</tt>?
+     * @param v the source vertex
+     * @param w the destination vertex
+     * @return <tt>true</tt> if there is a directed path from <tt>v</tt> to <tt>w</tt>, <tt>false</tt> otherwise
+     */
+    public boolean reachable(int v, int w) {
+        int source = id[v];
+        int target = id[w];
+        if (source == target) return true;
+        if (source > target) return false;
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            epoch = 1;
+        }
+        mark[source] = epoch;
+        queue[0] = source;
+        for (int head = 0, tail = 1; head < tail; head++) {
+            int c = queue[head];
+            for (int i = dag.begin(c), end = dag.end(c); i < end; i++) {
+                int d = dag.target(i);
+                if (d == target) return true;
+                if (d > target || mark[d] == epoch) continue;
+                mark[d] = epoch;
+                queue[tail++] = d;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unit tests the <tt>Condensation</tt> data type.
+     */
+    public static void main(String[] args) {
+        // 4 2 2 3 3 2 6 0 0 1 2 0 11 12 12 9 9 10 9 11 7 9 10 12 11 4 4 3 3 5 6 8 8 6 5 4 0 5 6 4 6 9 7 6
+        int[] mas={4, 2, 2, 3, 3, 2, 6, 0, 0, 1, 2, 0, 11, 12, 12, 9, 9, 10, 9, 11, 7, 9, 10, 12, 11, 4,
+                   4, 3, 3, 5, 6, 8, 8, 6, 5, 4, 0, 5, 6, 4, 6, 9, 7, 6};
+        Digraph G = new Digraph(13, 22, mas);
+        Condensation condensation = new Condensation(G);
+        CSRGraph dag = condensation.dag();
+        System.out.println(condensation.count() + " components");
+        for (int c = 0; c < condensation.count(); c++) {
+            StringBuilder s = new StringBuilder(c + ":");
+            for (int v : condensation.members(c)) {
+                s.append(' ').append(v);
+            }
+            s.append(" ->");
+            for (int i = dag.begin(c); i < dag.end(c); i++) {
+                s.append(' ').append(dag.target(i));
+            }
+            System.out.println(s);
+        }
+
+        int v = Integer.parseInt(args[0]);
+        int w = Integer.parseInt(args[1]);
+        System.out.println(v + " reaches " + w + ": " + condensation.reachable(v, w));
+    }
+}
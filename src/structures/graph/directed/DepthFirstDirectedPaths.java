@@ -3,7 +3,7 @@ package structures.graph.directed;
 /*************************************************************************
  *  Compilation:  javac DepthFirstDirectedPaths.java
  *  Execution:    java DepthFirstDirectedPaths G s
- *  Dependencies: Digraph.java Stack.java
+ *  Dependencies: Digraph.java CSRGraph.java IterativeDFS.java Stack.java
  *
  *  Determine reachability in a digraph from a given vertex using
  *  depth first search.
@@ -26,6 +26,9 @@ package structures.graph.directed;
  *
  *************************************************************************/
 
+import structures.graph.CSRGraph;
+import structures.graph.IntGraph;
+import structures.graph.IterativeDFS;
 import structures.lists.Stack;
 
 /**
@@ -33,10 +36,16 @@ import structures.lists.Stack;
  *  directed paths from a source vertex <em>s</em> to every
  *  other vertex in the digraph.
  *  <p>
- *  This implementation uses depth-first search.
+ *  This implementation freezes the digraph into a {@link CSRGraph} and runs
+ *  the explicit-stack search of {@link IterativeDFS} instead of recursion,
+ *  so it handles paths of any length without a <tt>StackOverflowError</tt>.
  *  The constructor takes time proportional to <em>V</em> + <em>E</em>,
  *  where <em>V</em> is the number of vertices and <em>E</em> is the number of edges.
- *  It uses extra space (not including the graph) proportional to <em>V</em>.
+ *  It uses extra space (not including the graph) proportional to <em>V</em> + <em>E</em>,
+ *  for the frozen copy.
+ *  <p>
+ *  The search also runs directly on any {@link IntGraph}, such as a
+ *  <tt>CSRGraph</tt> frozen once and searched many times.
  *  <p>
  *  For additional documentation, see <a href="/algs4/41graph">Section 4.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
@@ -56,20 +65,29 @@ public class DepthFirstDirectedPaths {
      * @param s the source vertex
      */
     public DepthFirstDirectedPaths(Digraph G, int s) {
-        marked = new boolean[G.V()];
-        edgeTo = new int[G.V()];
+        this(new CSRGraph(G), s);
+    }
+
+    /**
+     * Computes a directed path from <tt>s</tt> to every other vertex in the CSR digraph <tt>G</tt>.
+     * @param G the digraph
+     * @param s the source vertex
+     */
+    public DepthFirstDirectedPaths(IntGraph G, int s) {
         this.s = s;
+        edgeTo = new int[G.V()];
+        marked = new boolean[G.V()];
         dfs(G, s);
     }
 
-    private void dfs(Digraph G, int v) {
-        marked[v] = true;
-        for (int w : G.adj(v)) {
-            if (!marked[w]) {
-                edgeTo[w] = v;
-                dfs(G, w);
+    // depth first search from s, with an explicit stack instead of recursion
+    private void dfs(IntGraph G, int s) {
+        new IterativeDFS(G).dfs(s, new IterativeDFS.Visitor() {
+            public void preorder(int v, int parent) {
+                marked[v] = true;
+                if (parent != -1) edgeTo[v] = parent;
             }
-        }
+        });
     }
 
     /**
@@ -176,6 +176,17 @@ public class Digraph {
         return adj[v];
     }
 
+    /**
+     * Returns the number of directed edges incident from vertex <tt>v</tt>.
+     * @return the outdegree of vertex <tt>v</tt>
+     * @param v the vertex
+     * @throws IndexOutOfBoundsException unless 0 <= v < V
+     */
+    public int outdegree(int v) {
+        if (v < 0 || v >= V) throw new IndexOutOfBoundsException();
+        return adj[v].size();
+    }
+
     /**
      * Returns the reverse of the digraph.
      * @return the reverse of the digraph
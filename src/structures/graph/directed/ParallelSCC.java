@@ -0,0 +1,399 @@
+package structures.graph.directed;
+
+/*************************************************************************
+ *  Compilation:  javac ParallelSCC.java
+ *  Execution:    java ParallelSCC V E
+ *  Dependencies: Digraph.java IntGraph.java CSRGraph.java TarjanSCC.java
+ *
+ *  Compute the strongly connected components of a digraph on a
+ *  ForkJoinPool, by trimming and forward-backward decomposition.
+ *
+ *  % java ParallelSCC 1000000 3000000
+ *  1000000 vertices, 3000000 edges, 1 threads
+ *  Tarjan:   115292 components in 771.5 ms
+ *  parallel: 115292 components in 836.3 ms
+ *
+ *************************************************************************/
+
+import structures.graph.CSRGraph;
+import structures.graph.IntGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *  The <tt>ParallelSCC</tt> class represents a data type for determining the
+ *  strong components in a digraph with several threads. It answers the
+ *  same queries as {@link TarjanSCC}, but its component identifiers are
+ *  in no particular order; {@link Condensation} renumbers them
+ *  topologically.
+ *  <p>
+ *  The search first <em>trims</em> the digraph: in parallel passes,
+ *  every vertex without an in-edge or an out-edge from the remaining
+ *  vertices is a component by itself and is removed. What is left is
+ *  split by <em>forward-backward decomposition</em>: the vertices reachable
+ *  both from and to a pivot form its component, and the vertices reachable
+ *  only from it, only to it, and neither are three independent partitions
+ *  that no component crosses, each handled by its own task. Partitions of
+ *  fewer than {@value #SEQUENTIAL} vertices are finished with Tarjan's
+ *  algorithm restricted to the partition.
+ *  <p>
+ *  Each partition is searched by one thread, so a digraph that is mostly a
+ *  single huge component gains little; the decomposition pays off on
+ *  digraphs with many components, such as web and citation graphs after
+ *  their giant component is peeled off. In the worst case (a long chain of
+ *  nontrivial components) it takes time quadratic in <em>V</em>, where
+ *  {@link TarjanSCC} is always linear. It uses 20<em>V</em> bytes of scratch
+ *  space, plus the reverse digraph if it is not given.
+ */
+public class ParallelSCC {
+
+    private static final int SEQUENTIAL = 4096;   // smallest partition worth decomposing
+    private static final int GRAIN = 8192;        // vertices per trimming task
+    private static final int TRIM_SHARE = 64;      // trim again while a pass removes 1/64 of the rest
+    private static final int DONE = -1;           // label of a vertex whose component is known
+
+    private final int[] id;          // id[v] = id of strong component containing v
+    private final int count;         // number of strongly-connected components
+
+    // shared by all tasks; every task touches only the entries of its own partition
+    private final IntGraph G;
+    private final IntGraph R;
+    private final int[] part;        // part[v] = label of the partition holding v, or DONE
+    private final int[] rep;         // rep[v] = a vertex of the component of v, once it is DONE
+    private final int[] pre;         // Tarjan preorder numbers, 0 if not yet visited
+    private final int[] low;         // Tarjan low numbers
+    private final int[] cursor;      // Tarjan adjacency cursors
+    private final AtomicInteger labels = new AtomicInteger(1);
+
+    /**
+     * Computes the strong components of the digraph <tt>G</tt> on <tt>pool</tt>.
+     * @param G the digraph
+     * @param pool the pool running the search
+     */
+    public ParallelSCC(Digraph G, ForkJoinPool pool) {
+        this(new CSRGraph(G), pool);
+    }
+
+    /**
+     * Computes the strong components of the CSR digraph <tt>G</tt> on <tt>pool</tt>.
+     * @param G the digraph; its reverse is computed first
+     * @param pool the pool running the search
+     */
+    public ParallelSCC(CSRGraph G, ForkJoinPool pool) {
+        this(G, G.reverse(), pool);
+    }
+
+    /**
+     * Computes the strong components of the CSR digraph <tt>G</tt>, with reverse <tt>R</tt>, on <tt>pool</tt>.
+     * @param G the digraph
+     * @param R the reverse of <tt>G</tt>
+     * @param pool the pool running the search
+     * @throws IllegalArgumentException if <tt>G</tt> and <tt>R</tt> differ in size
+     */
+    public ParallelSCC(IntGraph G, IntGraph R, ForkJoinPool pool) {
+        if (G.V() != R.V() || G.E() != R.E())
+            throw new IllegalArgumentException("R must be the reverse of G");
+        int V = G.V();
+        this.G = G;
+        this.R = R;
+        part = new int[V];
+        rep = new int[V];
+        pre = new int[V];
+        low = new int[V];
+        cursor = new int[V];
+
+        // trimming is repeated while it still removes a good share of the vertices
+        int n = V;
+        int trimmed;
+        do {
+            trimmed = pool.invoke(new Trim(0, V));
+            n -= trimmed;
+        } while (trimmed > n / TRIM_SHARE);
+        int[] rest = new int[n];
+        n = 0;
+        for (int v = 0; v < V; v++) {
+            if (part[v] == 0) rest[n++] = v;
+        }
+        if (n > 0) pool.invoke(new Partition(rest, 0));
+
+        // number the components by their representatives, reusing pre as the map
+        id = low;
+        int[] number = pre;
+        Arrays.fill(number, -1);
+        int components = 0;
+        for (int v = 0; v < V; v++) {
+            int r = rep[v];
+            if (number[r] == -1) number[r] = components++;
+            id[v] = number[r];
+        }
+        count = components;
+    }
+
+    // removes the vertices of [lo, hi) with no remaining in-edges or out-edges; returns how many
+    private class Trim extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final int lo, hi;
+
+        Trim(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected Integer compute() {
+            if (hi - lo > GRAIN) {
+                int mid = (lo + hi) >>> 1;
+                Trim left = new Trim(lo, mid);
+                left.fork();
+                int right = new Trim(mid, hi).compute();
+                return right + left.join();
+            }
+            // a neighbor trimmed concurrently may still look alive; that only trims less
+            int trimmed = 0;
+            for (int v = lo; v < hi; v++) {
+                if (part[v] != 0) continue;
+                if (!hasLiveNeighbor(G, v) || !hasLiveNeighbor(R, v)) {
+                    rep[v] = v;
+                    part[v] = DONE;
+                    trimmed++;
+                }
+            }
+            return trimmed;
+        }
+
+        private boolean hasLiveNeighbor(IntGraph H, int v) {
+            for (int i = H.begin(v), end = H.end(v); i < end; i++) {
+                int w = H.target(i);
+                if (w != v && part[w] == 0) return true;
+            }
+            return false;
+        }
+    }
+
+    // finds the components of the vertices labeled label, which no component leaves
+    private class Partition extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int[] members;
+        private int label;
+
+        Partition(int[] members, int label) {
+            this.members = members;
+            this.label = label;
+        }
+
+        protected void compute() {
+            ArrayList<Partition> forked = new ArrayList<Partition>();
+            // keep the largest piece in this task and fork the others, which are
+            // less than half the size, so the depth of joins stays logarithmic
+            while (members.length >= SEQUENTIAL) {
+                int P = label;
+                int F = labels.getAndIncrement();
+                int B = labels.getAndIncrement();
+                int pivot = members[members.length >>> 1];
+                int[] queue = new int[members.length];
+
+                // forward: relabel everything reachable from the pivot to F
+                part[pivot] = F;
+                queue[0] = pivot;
+                for (int head = 0, tail = 1; head < tail; head++) {
+                    int v = queue[head];
+                    for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                        int w = G.target(i);
+                        if (part[w] == P) {
+                            part[w] = F;
+                            queue[tail++] = w;
+                        }
+                    }
+                }
+
+                // backward: what reaches the pivot is DONE if also forward, else B
+                part[pivot] = DONE;
+                rep[pivot] = pivot;
+                queue[0] = pivot;
+                for (int head = 0, tail = 1; head < tail; head++) {
+                    int v = queue[head];
+                    for (int i = R.begin(v), end = R.end(v); i < end; i++) {
+                        int w = R.target(i);
+                        if (part[w] == F) {
+                            part[w] = DONE;
+                            rep[w] = pivot;
+                            queue[tail++] = w;
+                        }
+                        else if (part[w] == P) {
+                            part[w] = B;
+                            queue[tail++] = w;
+                        }
+                    }
+                }
+
+                int[][] pieces = split(members, new int[] { F, B, P });
+                int largest = 0;
+                for (int k = 1; k < 3; k++) {
+                    if (pieces[k].length > pieces[largest].length) largest = k;
+                }
+                int[] labelOf = { F, B, P };
+                for (int k = 0; k < 3; k++) {
+                    if (k == largest || pieces[k].length == 0) continue;
+                    Partition task = new Partition(pieces[k], labelOf[k]);
+                    task.fork();
+                    forked.add(task);
+                }
+                members = pieces[largest];
+                label = labelOf[largest];
+            }
+            if (members.length > 0) tarjan(members, label);
+            for (Partition task : forked) {
+                task.join();
+            }
+        }
+    }
+
+    // the members of each of the given labels, in order
+    private int[][] split(int[] members, int[] labels) {
+        int[] sizes = new int[labels.length];
+        for (int v : members) {
+            for (int k = 0; k < labels.length; k++) {
+                if (part[v] == labels[k]) {
+                    sizes[k]++;
+                    break;
+                }
+            }
+        }
+        int[][] pieces = new int[labels.length][];
+        for (int k = 0; k < labels.length; k++) {
+            pieces[k] = new int[sizes[k]];
+            sizes[k] = 0;
+        }
+        for (int v : members) {
+            for (int k = 0; k < labels.length; k++) {
+                if (part[v] == labels[k]) {
+                    pieces[k][sizes[k]++] = v;
+                    break;
+                }
+            }
+        }
+        return pieces;
+    }
+
+    // Tarjan's algorithm on the vertices labeled label; a visited vertex of
+    // the partition is on the stack until its component is DONE
+    private void tarjan(int[] members, int label) {
+        int n = members.length;
+        int[] call = new int[n];
+        int[] stack = new int[n];
+        int preCounter = 0;
+        int sp = 0;
+        for (int s : members) {
+            if (pre[s] != 0) continue;
+            int top = 0;
+            call[top++] = s;
+            pre[s] = low[s] = ++preCounter;
+            cursor[s] = G.begin(s);
+            stack[sp++] = s;
+            while (top > 0) {
+                int v = call[top - 1];
+                if (cursor[v] < G.end(v)) {
+                    int w = G.target(cursor[v]++);
+                    if (part[w] != label) continue;
+                    if (pre[w] == 0) {
+                        pre[w] = low[w] = ++preCounter;
+                        cursor[w] = G.begin(w);
+                        stack[sp++] = w;
+                        call[top++] = w;
+                    }
+                    else if (pre[w] < low[v]) {
+                        low[v] = pre[w];
+                    }
+                }
+                else {
+                    top--;
+                    if (low[v] == pre[v]) {
+                        int w;
+                        do {
+                            w = stack[--sp];
+                            rep[w] = v;
+                            part[w] = DONE;
+                        } while (w != v);
+                    }
+                    if (top > 0) {
+                        int u = call[top - 1];
+                        if (low[v] < low[u]) low[u] = low[v];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of strong components.
+     * @return the number of strong components
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Are vertices <tt>v</tt> and <tt>w</tt> in the same strong component?
+     * @param v one vertex
+     * @param w the other vertex
+     * @return <tt>true</tt> if vertices <tt>v</tt> and <tt>w</tt> are in the same
+     *     strong component, and <tt>false</tt> otherwise
+     */
+    public boolean stronglyConnected(int v, int w) {
+        return id[v] == id[w];
+    }
+
+    /**
+     * Returns the component id of the strong component containing vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the component id of the strong component containing vertex <tt>v</tt>
+     */
+    public int id(int v) {
+        return id[v];
+    }
+
+    // the component ids, not copied
+    int[] ids() {
+        return id;
+    }
+
+    /**
+     * Compares <tt>ParallelSCC</tt> with {@link TarjanSCC} on a random digraph.
+     */
+    public static void main(String[] args) {
+        int V = Integer.parseInt(args[0]);
+        int E = Integer.parseInt(args[1]);
+        Random random = new Random(42);
+        int[] mas = new int[2 * E];
+        for (int i = 0; i < 2 * E; i++) {
+            mas[i] = random.nextInt(V);
+        }
+        CSRGraph G = new CSRGraph(V, E, mas);
+        CSRGraph R = G.reverse();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        System.out.printf("%d vertices, %d edges, %d threads%n", V, E, pool.getParallelism());
+
+        long start = System.nanoTime();
+        TarjanSCC tarjan = new TarjanSCC(G);
+        long middle = System.nanoTime();
+        ParallelSCC parallel = new ParallelSCC(G, R, pool);
+        long end = System.nanoTime();
+
+        // the two numberings must be the same partition of the vertices
+        int[] match = new int[tarjan.count()];
+        Arrays.fill(match, -1);
+        for (int v = 0; v < V; v++) {
+            int t = tarjan.id(v);
+            if (match[t] == -1) match[t] = parallel.id(v);
+            else if (match[t] != parallel.id(v)) throw new AssertionError("components differ at vertex " + v);
+        }
+        if (tarjan.count() != parallel.count()) throw new AssertionError("component counts differ");
+        System.out.printf("Tarjan:   %6d components in %.1f ms%n", tarjan.count(), (middle - start) / 1e6);
+        System.out.printf("parallel: %6d components in %.1f ms%n", parallel.count(), (end - middle) / 1e6);
+    }
+}
@@ -0,0 +1,196 @@
+package structures.graph.directed;
+
+/*************************************************************************
+ *  Compilation:  javac TarjanSCC.java
+ *  Execution:    java TarjanSCC
+ *  Dependencies: Digraph.java IntGraph.java CSRGraph.java
+ *
+ *  Compute the strongly connected components of a digraph using
+ *  Tarjan's algorithm, with an explicit stack instead of recursion.
+ *  Runs in O(E + V) time.
+ *
+ *  % java TarjanSCC
+ *  5 components
+ *  1
+ *  7
+ *  6 8
+ *  9 10 11 12
+ *  0 2 3 4 5
+ *
+ *************************************************************************/
+
+import structures.graph.CSRGraph;
+import structures.graph.IntGraph;
+
+import java.util.Arrays;
+
+/**
+ *  The <tt>TarjanSCC</tt> class represents a data type for determining the
+ *  strong components in a digraph.
+ *  The <em>id</em> operation determines in which strong component
+ *  a given vertex lies; the <em>stronglyConnected</em> operation
+ *  determines whether two vertices are in the same strong component;
+ *  and the <em>count</em> operation determines the number of strong
+ *  components.
+ *  <p>
+ *  Two vertices have the same component identifier if and only if they
+ *  are in the same strong component. Identifiers are numbered 0 through
+ *  <em>count</em> - 1 in topological order of the condensation: for every
+ *  edge v->w with <tt>id(v) != id(w)</tt>, <tt>id(v) &lt; id(w)</tt>, so no
+ *  vertex reaches a component with a smaller identifier than its own.
+ *  <p>
+ *  This implementation uses Tarjan's algorithm with a primitive call stack
+ *  and a per-vertex adjacency cursor instead of recursion, so it handles
+ *  digraphs of any depth without a <tt>StackOverflowError</tt>.
+ *  The constructor takes time proportional to <em>V</em> + <em>E</em>
+ *  (in the worst case), where <em>V</em> is the number of vertices and
+ *  <em>E</em> is the number of edges. It uses 20<em>V</em> bytes of scratch
+ *  space; afterwards, the <em>id</em>, <em>count</em>, and <em>stronglyConnected</em>
+ *  operations take constant time.
+ *  <p>
+ *  For additional documentation,
+ *  see <a href="http://algs4.cs.princeton.edu/42digraph">Section 4.2</a> of
+ *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
+ *
+ *  @author Robert Sedgewick
+ *  @author Kevin Wayne
+ */
+public class TarjanSCC {
+
+    private final int[] id;          // id[v] = id of strong component containing v
+    private final int count;         // number of strongly-connected components
+
+    /**
+     * Computes the strong components of the digraph <tt>G</tt>.
+     * @param G the digraph
+     */
+    public TarjanSCC(Digraph G) {
+        this(new CSRGraph(G));
+    }
+
+    /**
+     * Computes the strong components of the CSR digraph <tt>G</tt>.
+     * @param G the digraph
+     */
+    public TarjanSCC(IntGraph G) {
+        int V = G.V();
+        id = new int[V];
+        int[] pre = new int[V];      // pre[v] = preorder number of v, starting at 1; 0 if not yet visited
+        int[] low = new int[V];      // low[v] = low number of v
+        int[] cursor = new int[V];   // cursor[v] = next adjacency slot of v to scan
+        int[] call = new int[V];     // vertices whose edges are being scanned, root first
+        int[] stack = new int[V];    // visited vertices not yet assigned to a component
+        int preCounter = 0;
+        int components = 0;
+        int sp = 0;
+
+        // a vertex is on the stack iff it has been visited and id[v] == -1
+        Arrays.fill(id, -1);
+        for (int s = 0; s < V; s++) {
+            if (pre[s] != 0) continue;
+            int top = 0;
+            call[top++] = s;
+            pre[s] = low[s] = ++preCounter;
+            cursor[s] = G.begin(s);
+            stack[sp++] = s;
+            while (top > 0) {
+                int v = call[top - 1];
+                if (cursor[v] < G.end(v)) {
+                    int w = G.target(cursor[v]++);
+                    if (pre[w] == 0) {
+                        pre[w] = low[w] = ++preCounter;
+                        cursor[w] = G.begin(w);
+                        stack[sp++] = w;
+                        call[top++] = w;
+                    }
+                    else if (id[w] == -1 && pre[w] < low[v]) {
+                        low[v] = pre[w];
+                    }
+                }
+                else {
+                    top--;
+                    if (low[v] == pre[v]) {
+                        int w;
+                        do {
+                            w = stack[--sp];
+                            id[w] = components;
+                        } while (w != v);
+                        components++;
+                    }
+                    if (top > 0) {
+                        int u = call[top - 1];
+                        if (low[v] < low[u]) low[u] = low[v];
+                    }
+                }
+            }
+        }
+
+        // Tarjan finds sink components first; number them in topological order instead
+        count = components;
+        for (int v = 0; v < V; v++) {
+            id[v] = count - 1 - id[v];
+        }
+    }
+
+    /**
+     * Returns the number of strong components.
+     * @return the number of strong components
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Are vertices <tt>v</tt> and <tt>w</tt> in the same strong component?
+     * @param v one vertex
+     * @param w the other vertex
+     * @return <tt>true</tt> if vertices <tt>v</tt> and <tt>w</tt> are in the same
+     *     strong component, and <tt>false</tt> otherwise
+     */
+    public boolean stronglyConnected(int v, int w) {
+        return id[v] == id[w];
+    }
+
+    /**
+     * Returns the component id of the strong component containing vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the component id of the strong component containing vertex <tt>v</tt>
+     */
+    public int id(int v) {
+        return id[v];
+    }
+
+    // the component ids, not copied
+    int[] ids() {
+        return id;
+    }
+
+    /**
+     * Unit tests the <tt>TarjanSCC</tt> data type.
+     */
+    public static void main(String[] args) {
+        // 4 2 2 3 3 2 6 0 0 1 2 0 11 12 12 9 9 10 9 11 7 9 10 12 11 4 4 3 3 5 6 8 8 6 5 4 0 5 6 4 6 9 7 6
+        int[] mas={4, 2, 2, 3, 3, 2, 6, 0, 0, 1, 2, 0, 11, 12, 12, 9, 9, 10, 9, 11, 7, 9, 10, 12, 11, 4,
+                   4, 3, 3, 5, 6, 8, 8, 6, 5, 4, 0, 5, 6, 4, 6, 9, 7, 6};
+        Digraph G = new Digraph(13, 22, mas);
+        TarjanSCC scc = new TarjanSCC(G);
+
+        // number of connected components
+        int M = scc.count();
+        System.out.println(M + " components");
+
+        // compute list of vertices in each strong component
+        StringBuilder[] components = new StringBuilder[M];
+        for (int i = 0; i < M; i++) {
+            components[i] = new StringBuilder();
+        }
+        for (int v = 0; v < G.V(); v++) {
+            components[scc.id(v)].append(v).append(' ');
+        }
+
+        // print results
+        for (int i = 0; i < M; i++) {
+            System.out.println(components[i].toString().trim());
+        }
+    }
+}
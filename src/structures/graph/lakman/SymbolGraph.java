@@ -0,0 +1,163 @@
+package structures.graph.lakman;
+
+import structures.graph.CSRGraph;
+import structures.graph.IntGraph;
+import structures.graph.lakman.topologysorting.Project;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Symbol graph: names are interned to dense int ids 0..V-1 once, when the graph is built, and the
+ * edges are kept as pairs of ids. The traversals of {@code DfsSearch}, {@code BfsSearch} and
+ * {@code SearchPath} then run over the int arrays of a {@link CSRGraph} instead of hashing names
+ * and following {@code Project}/{@code Node} references: a node costs one offset and every edge
+ * one int, instead of an object with a list and a map each.
+ * <p>
+ * Children keep the order in which their edges were added, as in the object graphs.
+ * <p>
+ * Sedgewick, Wayne, "Algorithms", 4.1 (symbol graphs).
+ */
+public class SymbolGraph {
+
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private String[] names = new String[16];
+    private int V;
+    private int[] edges = new int[32];    // edges[2i], edges[2i+1] = ends of the i-th edge
+    private int E;
+    private CSRGraph graph;               // built on first use after an edit
+
+    /**
+     * Builds the graph of {@code SearchPath.findBuildOrder}: an edge (a, b) means b depends on a.
+     */
+    public static SymbolGraph of(String[] projects, String[][] dependencies) {
+        SymbolGraph g = new SymbolGraph();
+        for (String project : projects) {
+            g.intern(project);
+        }
+        for (String[] dependency : dependencies) {
+            g.addEdge(dependency[0], dependency[1]);
+        }
+        return g;
+    }
+
+    /**
+     * Interns the projects of a {@link structures.graph.lakman.topologysorting.Graph}, in its order.
+     */
+    public static SymbolGraph of(structures.graph.lakman.topologysorting.Graph projects) {
+        SymbolGraph g = new SymbolGraph();
+        for (Project project : projects.getNodes()) {
+            g.intern(project.getName());
+        }
+        for (Project project : projects.getNodes()) {
+            int v = g.id(project.getName());
+            for (Project child : project.getChildren()) {
+                g.addEdge(v, g.id(child.getName()));
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Numbers the nodes of a {@link structures.graph.lakman.bfs.Graph} by their position in
+     * {@code getNodes()}, so that nodes with equal names stay distinct; {@link #id(String)} then
+     * finds the first of them.
+     */
+    public static SymbolGraph of(structures.graph.lakman.bfs.Graph nodes) {
+        SymbolGraph g = new SymbolGraph();
+        IdentityHashMap<structures.graph.lakman.bfs.Graph.Node, Integer> index = new IdentityHashMap<>();
+        for (structures.graph.lakman.bfs.Graph.Node node : nodes.getNodes()) {
+            index.put(node, g.add(node.name));
+        }
+        for (structures.graph.lakman.bfs.Graph.Node node : nodes.getNodes()) {
+            if (node.children == null) continue;
+            for (structures.graph.lakman.bfs.Graph.Node child : node.children) {
+                g.addEdge(index.get(node), index.get(child));
+            }
+        }
+        return g;
+    }
+
+    /**
+     * @return the id of the name, adding it as a new node if it is not there yet
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : add(name);
+    }
+
+    private int add(String name) {
+        if (V == names.length) names = Arrays.copyOf(names, 2 * V);
+        names[V] = name;
+        ids.putIfAbsent(name, V);
+        graph = null;
+        return V++;
+    }
+
+    /**
+     * @return the id of the name, or -1 if there is no such node
+     */
+    public int id(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int v) {
+        validate(v);
+        return names[v];
+    }
+
+    /**
+     * @return the names of the ids, e.g. of a build order
+     */
+    public String[] names(int[] vertices) {
+        String[] result = new String[vertices.length];
+        for (int i = 0; i < vertices.length; i++) {
+            result[i] = name(vertices[i]);
+        }
+        return result;
+    }
+
+    public void addEdge(String from, String to) {
+        addEdge(intern(from), intern(to));
+    }
+
+    public void addEdge(int v, int w) {
+        validate(v);
+        validate(w);
+        if (2 * E == edges.length) edges = Arrays.copyOf(edges, 4 * E);
+        edges[2 * E] = v;
+        edges[2 * E + 1] = w;
+        E++;
+        graph = null;
+    }
+
+    public int V() {
+        return V;
+    }
+
+    public int E() {
+        return E;
+    }
+
+    /**
+     * @return the graph over the ids; the same object until the next edit
+     */
+    public IntGraph graph() {
+        if (graph == null) {
+            // CSRGraph puts the last edge of a list first, so hand it the edges backwards
+            int[] reversed = new int[2 * E];
+            for (int i = 0; i < E; i++) {
+                reversed[2 * i] = edges[2 * (E - 1 - i)];
+                reversed[2 * i + 1] = edges[2 * (E - 1 - i) + 1];
+            }
+            graph = new CSRGraph(V, E, reversed);
+        }
+        return graph;
+    }
+
+    private void validate(int v) {
+        if (v < 0 || v >= V) throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (V - 1));
+    }
+}
@@ -1,5 +1,7 @@
 package structures.graph.lakman.bfs;
 
+import structures.graph.IntGraph;
+import structures.graph.lakman.SymbolGraph;
 import structures.graph.lakman.bfs.Graph.Node;
 
 import java.util.LinkedList;
@@ -42,4 +44,38 @@ public class BfsSearch {
 
         return false;
     }
+
+    /**
+     * The same search over the interned graph, by node ids, with an int array as the queue.
+     */
+    public boolean search(SymbolGraph symbols, int start, int end) {
+        if (start == end) return true;
+        IntGraph g = symbols.graph();
+        boolean[] visiting = new boolean[g.V()];
+        int[] queue = new int[g.V()];
+        int tail = 0;
+        visiting[start] = true;
+        queue[tail++] = start;
+        for (int head = 0; head < tail; head++) {
+            int u = queue[head];
+            for (int i = g.begin(u); i < g.end(u); i++) {
+                int v = g.target(i);
+                if (!visiting[v]) {
+                    if (v == end) {
+                        return true;
+                    }
+                    visiting[v] = true;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean search(SymbolGraph symbols, String start, String end) {
+        int s = symbols.id(start);
+        int t = symbols.id(end);
+        if (s < 0 || t < 0) return false;
+        return search(symbols, s, t);
+    }
 }
@@ -0,0 +1,252 @@
+package structures.graph.lakman.topologysorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs the build order of {@link SearchPath} in parallel: Kahn's algorithm where every project
+ * is dispatched to the executor as soon as its counter of unbuilt dependencies drops to zero,
+ * instead of being appended to a sequential order. O(P + D) besides the builds themselves.
+ * <p>
+ * Any {@link Executor} works, e.g. a fixed pool for CPU-bound builds, or
+ * {@code Executors.newVirtualThreadPerTaskExecutor()} on Java 21+ for builds that mostly wait.
+ * The counters are atomic, so a project becomes ready in whichever thread finishes its last
+ * dependency. A failed build stops the dispatch of further projects; builds already running finish.
+ * <p>
+ * Lakman p. 259
+ */
+public class BuildScheduler {
+
+    private final Executor executor;
+
+    public BuildScheduler(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Builds the projects, with (a, b) in dependencies meaning that b depends on a.
+     *
+     * @throws IllegalArgumentException if the dependencies have a cycle
+     * @throws ExecutionException       if a build throws; its exception is the cause
+     */
+    public Report execute(String[] projects, String[][] dependencies, Consumer<Project> build)
+            throws InterruptedException, ExecutionException {
+        Graph graph = new Graph();
+        for (String project : projects) {
+            graph.getOrCreateNode(project);
+        }
+        for (String[] dependency : dependencies) {
+            graph.addEdge(dependency[0], dependency[1]);
+        }
+        return execute(graph, build);
+    }
+
+    /**
+     * Builds every project of the graph, each after all the projects it depends on.
+     *
+     * @throws IllegalArgumentException if the graph has a cycle
+     * @throws ExecutionException       if a build throws; its exception is the cause
+     */
+    public Report execute(Graph graph, Consumer<Project> build) throws InterruptedException, ExecutionException {
+        return new Run(graph, build).execute();
+    }
+
+    /* Одно выполнение: проекты пронумерованы, дети и счетчики зависимостей хранятся по номерам. */
+    private class Run {
+        private final Project[] projects;
+        private final int[][] children;
+        private final int[] topological;             // Kahn order, computed up front to detect cycles
+        private final int[] roots;                   // projects without dependencies
+        private final Consumer<Project> build;
+
+        private final AtomicIntegerArray remaining;  // remaining[i] = dependencies of i not built yet
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final long[] start;
+        private final long[] finish;
+        private final Project[] startOrder;
+
+        Run(Graph graph, Consumer<Project> build) {
+            this.build = build;
+            projects = graph.getNodes().toArray(new Project[0]);
+            int n = projects.length;
+            IdentityHashMap<Project, Integer> index = new IdentityHashMap<>();
+            for (int i = 0; i < n; i++) {
+                index.put(projects[i], i);
+            }
+            children = new int[n][];
+            int[] indegree = new int[n];
+            for (int i = 0; i < n; i++) {
+                ArrayList<Project> list = projects[i].getChildren();
+                children[i] = new int[list.size()];
+                for (int k = 0; k < list.size(); k++) {
+                    children[i][k] = index.get(list.get(k));
+                    indegree[children[i][k]]++;
+                }
+            }
+            remaining = new AtomicIntegerArray(indegree);
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (indegree[i] == 0) count++;
+            }
+            topological = kahn(indegree);
+            roots = Arrays.copyOf(topological, count);
+            start = new long[n];
+            finish = new long[n];
+            startOrder = new Project[n];
+        }
+
+        private int[] kahn(int[] indegree) {
+            int[] order = new int[projects.length];
+            int tail = 0;
+            for (int i = 0; i < projects.length; i++) {
+                if (indegree[i] == 0) order[tail++] = i;
+            }
+            for (int head = 0; head < tail; head++) {
+                for (int child : children[order[head]]) {
+                    if (--indegree[child] == 0) order[tail++] = child;
+                }
+            }
+            if (tail < projects.length) throw new IllegalArgumentException("The dependencies have a cycle");
+            return order;
+        }
+
+        Report execute() throws InterruptedException, ExecutionException {
+            long begin = System.nanoTime();
+            if (projects.length > 0) {
+                /* Лишняя единица не дает счетчику обнулиться, пока корни еще раздаются. */
+                inFlight.set(1);
+                for (int i : roots) {
+                    dispatch(i);
+                }
+                finished();
+                done.await();
+            }
+            long end = System.nanoTime();
+            if (failure.get() != null) throw new ExecutionException(failure.get());
+            return report(end - begin);
+        }
+
+        private void dispatch(int i) {
+            inFlight.incrementAndGet();
+            try {
+                executor.execute(() -> build(i));
+            } catch (RejectedExecutionException e) {
+                failure.compareAndSet(null, e);
+                finished();
+            }
+        }
+
+        private void build(int i) {
+            try {
+                if (failure.get() != null) return;
+                startOrder[started.getAndIncrement()] = projects[i];
+                start[i] = System.nanoTime();
+                build.accept(projects[i]);
+                finish[i] = System.nanoTime();
+                for (int child : children[i]) {
+                    if (remaining.decrementAndGet(child) == 0) dispatch(child);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                finished();
+            }
+        }
+
+        private void finished() {
+            if (inFlight.decrementAndGet() == 0) done.countDown();
+        }
+
+        /* Самый длинный путь по измеренным длительностям сборок, в топологическом порядке. */
+        private Report report(long makespan) {
+            int n = projects.length;
+            long[] longest = new long[n];   // longest[i] = longest chain of builds ending with i
+            int[] previous = new int[n];
+            long total = 0;
+            int last = -1;
+            for (int i = 0; i < n; i++) {
+                previous[i] = -1;
+            }
+            for (int i : topological) {
+                long duration = finish[i] - start[i];
+                total += duration;
+                longest[i] += duration;
+                if (last == -1 || longest[i] > longest[last]) last = i;
+                for (int child : children[i]) {
+                    if (longest[i] > longest[child]) {
+                        longest[child] = longest[i];
+                        previous[child] = i;
+                    }
+                }
+            }
+            List<Project> path = new ArrayList<>();
+            for (int i = last; i != -1; i = previous[i]) {
+                path.add(projects[i]);
+            }
+            Collections.reverse(path);
+            return new Report(startOrder, makespan, last == -1 ? 0 : longest[last], total, path);
+        }
+    }
+
+    /**
+     * Timings of one parallel build, in nanoseconds.
+     */
+    public static class Report {
+        private final Project[] order;
+        private final long makespan;
+        private final long criticalPath;
+        private final long totalWork;
+        private final List<Project> criticalProjects;
+
+        Report(Project[] order, long makespan, long criticalPath, long totalWork, List<Project> criticalProjects) {
+            this.order = order;
+            this.makespan = makespan;
+            this.criticalPath = criticalPath;
+            this.totalWork = totalWork;
+            this.criticalProjects = Collections.unmodifiableList(criticalProjects);
+        }
+
+        /* Проекты в порядке начала сборки. */
+        public Project[] getOrder() {
+            return order;
+        }
+
+        /* Время от запуска до окончания последней сборки. */
+        public long getMakespan() {
+            return makespan;
+        }
+
+        /* Длина самой долгой цепочки зависимых сборок: нижняя граница makespan при любом числе потоков. */
+        public long getCriticalPath() {
+            return criticalPath;
+        }
+
+        /* Сумма длительностей всех сборок: makespan при одном потоке. */
+        public long getTotalWork() {
+            return totalWork;
+        }
+
+        public List<Project> getCriticalProjects() {
+            return criticalProjects;
+        }
+
+        /* Среднее число одновременно идущих сборок, которого можно достичь. */
+        public double getParallelism() {
+            return criticalPath == 0 ? 1.0 : (double) totalWork / criticalPath;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package structures.graph.lakman.topologysorting;
 
+import structures.graph.IntGraph;
+import structures.graph.lakman.SymbolGraph;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Stack;
 
 /**
@@ -14,6 +18,46 @@ public class DfsSearch {
         Graph graph = buildGraph(projects, dependencies);
         return orderProjects(graph.getNodes());
     }
+
+    /**
+     * The same order over the interned graph, as ids from the first project to build to the last
+     * (the order of popping the stack), or null if there is a cycle. Uses an explicit stack.
+     */
+    public int[] findBuildOrder(SymbolGraph symbols) {
+        IntGraph graph = symbols.graph();
+        int n = graph.V();
+        State[] state = new State[n];
+        int[] cursor = new int[n];        // next child of each PARTIAL project to visit
+        int[] path = new int[n];          // PARTIAL projects, root first
+        int[] order = new int[n];
+        int done = n;                     // order is filled from its end, as a stack grows
+        Arrays.fill(state, State.BLANK);
+        for (int s = 0; s < n; s++) {
+            if (state[s] != State.BLANK) continue;
+            int top = 0;
+            path[top++] = s;
+            state[s] = State.PARTIAL;
+            cursor[s] = graph.begin(s);
+            while (top > 0) {
+                int v = path[top - 1];
+                if (cursor[v] < graph.end(v)) {
+                    int child = graph.target(cursor[v]++);
+                    if (state[child] == State.PARTIAL) return null;
+                    if (state[child] == State.BLANK) {
+                        state[child] = State.PARTIAL;
+                        cursor[child] = graph.begin(child);
+                        path[top++] = child;
+                    }
+                } else {
+                    state[v] = State.COMPLETE;
+                    order[--done] = v;
+                    top--;
+                }
+            }
+        }
+        return order;
+    }
+
     private Graph buildGraph(String[] projects, String[][] dependencies) {
         Graph graph = new Graph();
         for (String project : projects) {
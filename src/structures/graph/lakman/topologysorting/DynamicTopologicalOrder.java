@@ -0,0 +1,271 @@
+package structures.graph.lakman.topologysorting;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * A build order that is kept up to date while dependencies are added and removed, instead of being
+ * recomputed by {@link SearchPath} after every edit.
+ * <p>
+ * Pearce and Kelly, "A Dynamic Topological Sort Algorithm for Directed Acyclic Graphs", 2006.
+ * Every project has a position in the order. Adding a dependency (a, b) that the order already
+ * satisfies costs O(1) besides the duplicate check. Otherwise only the affected region between
+ * b and a is searched: the projects reachable from b that are placed no later than a, and the
+ * projects that reach a and are placed no earlier than b. If the first search meets a, the edge
+ * would close a cycle and is rejected with nothing changed; if not, the two sets are moved, the
+ * second before the first, into the positions they already occupy. Removing a dependency never
+ * breaks the order and costs O(outdegree + indegree).
+ */
+public class DynamicTopologicalOrder {
+
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private Node[] nodes = new Node[16];
+    private Node[] byPosition = new Node[16];
+    private int size;
+    private int epoch;
+
+    /* Стеки и списки затронутых вершин, общие для всех правок. */
+    private int[] stack = new int[16];
+    private long[] forward = new long[16];    // (position << 32 | id) of the projects found from b
+    private long[] backward = new long[16];   // (position << 32 | id) of the projects found from a
+    private int[] positions = new int[32];
+
+    private static class Node {
+        final String name;
+        int position;
+        int mark;
+        int[] out = new int[2];
+        int outDegree;
+        int[] in = new int[2];
+        int inDegree;
+
+        Node(String name, int position) {
+            this.name = name;
+            this.position = position;
+        }
+    }
+
+    public DynamicTopologicalOrder() {
+    }
+
+    /**
+     * Starts from the projects and dependencies of {@link SearchPath#findBuildOrder}, ordered by one
+     * pass of Kahn's algorithm, O(P + D).
+     *
+     * @throws IllegalArgumentException if the dependencies have a cycle
+     */
+    public DynamicTopologicalOrder(String[] projects, String[][] dependencies) {
+        for (String project : projects) {
+            addProject(project);
+        }
+        for (String[] dependency : dependencies) {
+            int a = addProject(dependency[0]);
+            int b = addProject(dependency[1]);
+            if (!hasEdge(a, b)) link(a, b);
+        }
+        int[] indegree = new int[size];
+        int[] order = new int[size];
+        int tail = 0;
+        for (int v = 0; v < size; v++) {
+            indegree[v] = nodes[v].inDegree;
+            if (indegree[v] == 0) order[tail++] = v;
+        }
+        for (int head = 0; head < tail; head++) {
+            Node node = nodes[order[head]];
+            for (int k = 0; k < node.outDegree; k++) {
+                if (--indegree[node.out[k]] == 0) order[tail++] = node.out[k];
+            }
+        }
+        if (tail < size) throw new IllegalArgumentException("The dependencies have a cycle");
+        for (int i = 0; i < size; i++) {
+            place(nodes[order[i]], i);
+        }
+    }
+
+    /**
+     * Adds a project without dependencies at the end of the order, if it is not there yet.
+     *
+     * @return the number of the project
+     */
+    public int addProject(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, 2 * size);
+            byPosition = Arrays.copyOf(byPosition, 2 * size);
+            stack = new int[2 * size];
+            forward = new long[2 * size];
+            backward = new long[2 * size];
+            positions = new int[4 * size];
+        }
+        Node node = new Node(name, size);
+        nodes[size] = node;
+        byPosition[size] = node;
+        ids.put(name, size);
+        return size++;
+    }
+
+    /**
+     * Makes second depend on first, so that first is built before second.
+     *
+     * @return false, with nothing changed, if first is second or already depends on second
+     * (directly or not), so that the dependency would create a cycle; true otherwise
+     */
+    public boolean addDependency(String first, String second) {
+        if (Objects.equals(first, second)) return false;
+        int a = addProject(first);
+        int b = addProject(second);
+        if (hasEdge(a, b)) return true;
+
+        int lower = nodes[b].position;
+        int upper = nodes[a].position;
+        if (lower < upper) {
+            if (++epoch == Integer.MAX_VALUE) {
+                for (int v = 0; v < size; v++) {
+                    nodes[v].mark = 0;
+                }
+                epoch = 1;
+            }
+            int f = searchForward(b, a, upper);
+            if (f < 0) return false;
+            int k = searchBackward(a, lower);
+            reorder(f, k);
+        }
+        link(a, b);
+        return true;
+    }
+
+    /* Проекты, достижимые из b и стоящие не позже a; -1, если среди них сам a. */
+    private int searchForward(int b, int a, int upper) {
+        int found = 0;
+        int top = 0;
+        stack[top++] = b;
+        nodes[b].mark = epoch;
+        while (top > 0) {
+            int v = stack[--top];
+            Node node = nodes[v];
+            forward[found++] = (long) node.position << 32 | v;
+            for (int k = 0; k < node.outDegree; k++) {
+                int w = node.out[k];
+                if (w == a) return -1;
+                Node next = nodes[w];
+                if (next.mark != epoch && next.position < upper) {
+                    next.mark = epoch;
+                    stack[top++] = w;
+                }
+            }
+        }
+        return found;
+    }
+
+    /* Проекты, из которых достижим a, стоящие не раньше b. */
+    private int searchBackward(int a, int lower) {
+        int found = 0;
+        int top = 0;
+        stack[top++] = a;
+        nodes[a].mark = epoch;
+        while (top > 0) {
+            int v = stack[--top];
+            Node node = nodes[v];
+            backward[found++] = (long) node.position << 32 | v;
+            for (int k = 0; k < node.inDegree; k++) {
+                int w = node.in[k];
+                Node next = nodes[w];
+                if (next.mark != epoch && next.position > lower) {
+                    next.mark = epoch;
+                    stack[top++] = w;
+                }
+            }
+        }
+        return found;
+    }
+
+    /* Оба множества занимают свои же позиции: сначала найденные из a, затем найденные из b. */
+    private void reorder(int f, int k) {
+        Arrays.sort(forward, 0, f);
+        Arrays.sort(backward, 0, k);
+        int n = 0;
+        for (int i = 0; i < k; i++) {
+            positions[n++] = (int) (backward[i] >>> 32);
+        }
+        for (int i = 0; i < f; i++) {
+            positions[n++] = (int) (forward[i] >>> 32);
+        }
+        Arrays.sort(positions, 0, n);
+        n = 0;
+        for (int i = 0; i < k; i++) {
+            place(nodes[(int) backward[i]], positions[n++]);
+        }
+        for (int i = 0; i < f; i++) {
+            place(nodes[(int) forward[i]], positions[n++]);
+        }
+    }
+
+    private void place(Node node, int position) {
+        node.position = position;
+        byPosition[position] = node;
+    }
+
+    /**
+     * Removes the dependency of second on first. The order stays valid as it is.
+     *
+     * @return true if the dependency existed
+     */
+    public boolean removeDependency(String first, String second) {
+        Integer a = ids.get(first);
+        Integer b = ids.get(second);
+        if (a == null || b == null) return false;
+        Node from = nodes[a];
+        Node to = nodes[b];
+        int k = indexOf(from.out, from.outDegree, b);
+        if (k < 0) return false;
+        from.out[k] = from.out[--from.outDegree];
+        k = indexOf(to.in, to.inDegree, a);
+        to.in[k] = to.in[--to.inDegree];
+        return true;
+    }
+
+    private boolean hasEdge(int a, int b) {
+        return indexOf(nodes[a].out, nodes[a].outDegree, b) >= 0;
+    }
+
+    private static int indexOf(int[] list, int length, int value) {
+        for (int k = 0; k < length; k++) {
+            if (list[k] == value) return k;
+        }
+        return -1;
+    }
+
+    private void link(int a, int b) {
+        Node from = nodes[a];
+        Node to = nodes[b];
+        if (from.outDegree == from.out.length) from.out = Arrays.copyOf(from.out, 2 * from.outDegree);
+        from.out[from.outDegree++] = b;
+        if (to.inDegree == to.in.length) to.in = Arrays.copyOf(to.in, 2 * to.inDegree);
+        to.in[to.inDegree++] = a;
+    }
+
+    /**
+     * @return the projects in build order, every project after all the projects it depends on
+     */
+    public String[] getBuildOrder() {
+        String[] order = new String[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = byPosition[i].name;
+        }
+        return order;
+    }
+
+    /**
+     * @return the position of the project in the build order, or -1 if there is no such project
+     */
+    public int getPosition(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : nodes[id].position;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -1,5 +1,8 @@
 package structures.graph.lakman.topologysorting;
 
+import structures.graph.IntGraph;
+import structures.graph.lakman.SymbolGraph;
+
 import java.util.ArrayList;
 
 /**
@@ -14,6 +17,34 @@ public class SearchPath {
         return orderProjects(graph.getNodes());
     }
 
+    /**
+     * The same order over the interned graph: ids of the projects, or null if there is a cycle.
+     * Nothing in the graph is modified, so it can be ordered again.
+     */
+    public int[] findBuildOrder(SymbolGraph symbols) {
+        IntGraph graph = symbols.graph();
+        int[] dependencies = new int[graph.V()];
+        for (int v = 0; v < graph.V(); v++) {
+            for (int i = graph.begin(v); i < graph.end(v); i++) {
+                dependencies[graph.target(i)]++;
+            }
+        }
+        int[] order = new int[graph.V()];
+        int endOfList = 0;
+        for (int v = 0; v < graph.V(); v++) {
+            if (dependencies[v] == 0) order[endOfList++] = v;
+        }
+        for (int toBeProcessed = 0; toBeProcessed < endOfList; toBeProcessed++) {
+            int current = order[toBeProcessed];
+            for (int i = graph.begin(current); i < graph.end(current); i++) {
+                int child = graph.target(i);
+                if (--dependencies[child] == 0) order[endOfList++] = child;
+            }
+        }
+        /* Остались проекты с ненулевыми зависимостями: циклическая зависимость. */
+        return endOfList == order.length ? order : null;
+    }
+
     /* Построить граф с добавлением ребра (а, b), если b зависит от а.
        Предполагается, что зависимость (а, b) означает, что b зависит
        от а, и проект а должен быть построен перед b. */
@@ -1,8 +1,15 @@
 package structures.graph.undirected;
 
+import structures.graph.CSRGraph;
+import structures.graph.IntGraph;
 import structures.lists.Queue;
 import structures.lists.Stack;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
 /*************************************************************************
  *  Compilation:  javac BreadthFirstPaths.java
  *  Execution:    java BreadthFirstPaths G s
@@ -50,6 +57,18 @@ import structures.lists.Stack;
  *  where <em>V</em> is the number of vertices and <em>E</em> is the number of edges.
  *  It uses extra space (not including the graph) proportional to <em>V</em>.
  *  <p>
+ *  The search also runs on any undirected {@link IntGraph}, such as a
+ *  {@link structures.graph.CSRGraph} frozen from a <tt>Graph</tt>; there it keeps
+ *  the frontier in an <tt>int[]</tt> and does not allocate per edge.
+ *  <p>
+ *  {@link #parallel(IntGraph, int, ForkJoinPool)} runs a level-synchronous
+ *  search on a {@link ForkJoinPool}: each level's frontier is split into
+ *  chunks, a worker claims an unvisited neighbor by compare-and-set on its
+ *  parent slot, and appends it to the chunk's own next-frontier buffer. The
+ *  buffers are concatenated into the next frontier once the level is done.
+ *  The distances are the same as those of the sequential search; when a vertex has
+ *  several parents on the previous level, which one wins is not specified.
+ *  <p>
  *  For additional documentation, see <a href="/algs4/41graph">Section 4.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *
@@ -92,6 +111,85 @@ public class BreadthFirstPaths {
         bfs(G, sources);
     }
 
+    /**
+     * Computes the shortest path between the source vertex <tt>s</tt>
+     * and every other vertex in the undirected CSR graph <tt>G</tt>.
+     * @param G the graph
+     * @param s the source vertex
+     */
+    public BreadthFirstPaths(IntGraph G, int s) {
+        marked = new boolean[G.V()];
+        distTo = new int[G.V()];
+        edgeTo = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) distTo[v] = INFINITY;
+        int[] q = new int[G.V()];
+        distTo[s] = 0;
+        marked[s] = true;
+        q[0] = s;
+        bfs(G, q, 1);
+
+        assert check(G, s);
+    }
+
+    /**
+     * Computes the shortest path between any one of the source vertices in <tt>sources</tt>
+     * and every other vertex in the undirected CSR graph <tt>G</tt>.
+     * @param G the graph
+     * @param sources the source vertices
+     */
+    public BreadthFirstPaths(IntGraph G, Iterable<Integer> sources) {
+        marked = new boolean[G.V()];
+        distTo = new int[G.V()];
+        edgeTo = new int[G.V()];
+        for (int v = 0; v < G.V(); v++) distTo[v] = INFINITY;
+        int[] q = new int[G.V()];
+        int tail = 0;
+        for (int s : sources) {
+            if (marked[s]) continue;
+            marked[s] = true;
+            distTo[s] = 0;
+            q[tail++] = s;
+        }
+        bfs(G, q, tail);
+    }
+
+
+    // empty search state for the static factories
+    private BreadthFirstPaths(int V) {
+        marked = new boolean[V];
+        distTo = new int[V];
+        edgeTo = new int[V];
+        for (int v = 0; v < V; v++) distTo[v] = INFINITY;
+    }
+
+    /**
+     * Computes the shortest path between the source vertex <tt>s</tt> and every
+     * other vertex in the graph <tt>G</tt> with a parallel search. The graph is
+     * frozen into CSR form first; to run many searches, freeze it once and call
+     * {@link #parallel(IntGraph, int, ForkJoinPool)}.
+     * @param G the graph
+     * @param s the source vertex
+     * @param pool the pool to run the search on
+     * @return the shortest paths from <tt>s</tt>
+     */
+    public static BreadthFirstPaths parallel(Graph G, int s, ForkJoinPool pool) {
+        return parallel(new CSRGraph(G), s, pool);
+    }
+
+    /**
+     * Computes the shortest path between the source vertex <tt>s</tt> and every
+     * other vertex in the undirected CSR graph <tt>G</tt> with a parallel search.
+     * @param G the graph
+     * @param s the source vertex
+     * @param pool the pool to run the search on
+     * @return the shortest paths from <tt>s</tt>
+     */
+    public static BreadthFirstPaths parallel(IntGraph G, int s, ForkJoinPool pool) {
+        BreadthFirstPaths paths = new BreadthFirstPaths(G.V());
+        paths.bfs(G, s, pool);
+        assert paths.check(G, s);
+        return paths;
+    }
 
     // breadth-first search from a single source
     private void bfs(Graph G, int s) {
@@ -135,6 +233,129 @@ public class BreadthFirstPaths {
         }
     }
 
+    // breadth-first search over a CSR graph, q[0..tail) holds the marked sources
+    private void bfs(IntGraph G, int[] q, int tail) {
+        int head = 0;
+        while (head < tail) {
+            int v = q[head++];
+            for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                int w = G.target(i);
+                if (!marked[w]) {
+                    edgeTo[w] = v;
+                    distTo[w] = distTo[v] + 1;
+                    marked[w] = true;
+                    q[tail++] = w;
+                }
+            }
+        }
+    }
+
+    // level-synchronous parallel breadth-first search
+    private void bfs(IntGraph G, int s, ForkJoinPool pool) {
+        int V = G.V();
+        AtomicIntegerArray parent = new AtomicIntegerArray(V);
+        for (int v = 0; v < V; v++) parent.set(v, -1);
+        int chunks = 4 * pool.getParallelism();
+        int[][] buffers = new int[chunks][16];
+        int[] size = new int[chunks];
+        int[] frontier = new int[V];
+        int[] next = new int[V];
+
+        parent.set(s, s);
+        distTo[s] = 0;
+        frontier[0] = s;
+        int n = 1;
+        for (int level = 1; n > 0; level++) {
+            int used = Math.min(chunks, (n + Level.GRAIN - 1) / Level.GRAIN);
+            Level[] tasks = new Level[used];
+            for (int c = 0; c < used; c++) {
+                tasks[c] = new Level(G, parent, distTo, level, frontier,
+                                     (int) ((long) n * c / used), (int) ((long) n * (c + 1) / used),
+                                     buffers, size, c);
+            }
+            if (used == 1) tasks[0].compute();
+            else           pool.invoke(new Levels(tasks));
+
+            // concatenate the per-chunk buffers into the next frontier
+            n = 0;
+            for (int c = 0; c < used; c++) {
+                System.arraycopy(buffers[c], 0, next, n, size[c]);
+                n += size[c];
+            }
+            int[] t = frontier; frontier = next; next = t;
+        }
+
+        for (int v = 0; v < V; v++) {
+            int p = parent.get(v);
+            if (p == -1) continue;
+            marked[v] = true;
+            edgeTo[v] = p;
+        }
+    }
+
+    // runs the chunks of one level and waits for all of them
+    private static class Levels extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Level[] tasks;
+
+        Levels(Level[] tasks) {
+            this.tasks = tasks;
+        }
+
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    // expands frontier[lo, hi) into buffers[chunk]
+    private static class Level extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int GRAIN = 1024;   // fewest frontier vertices worth a task
+
+        private final IntGraph G;
+        private final AtomicIntegerArray parent;
+        private final int[] distTo;
+        private final int level;
+        private final int[] frontier;
+        private final int lo, hi;
+        private final int[][] buffers;
+        private final int[] size;
+        private final int chunk;
+
+        Level(IntGraph G, AtomicIntegerArray parent, int[] distTo, int level, int[] frontier,
+              int lo, int hi, int[][] buffers, int[] size, int chunk) {
+            this.G = G;
+            this.parent = parent;
+            this.distTo = distTo;
+            this.level = level;
+            this.frontier = frontier;
+            this.lo = lo;
+            this.hi = hi;
+            this.buffers = buffers;
+            this.size = size;
+            this.chunk = chunk;
+        }
+
+        protected void compute() {
+            int[] buffer = buffers[chunk];
+            int n = 0;
+            for (int k = lo; k < hi; k++) {
+                int v = frontier[k];
+                for (int i = G.begin(v), end = G.end(v); i < end; i++) {
+                    int w = G.target(i);
+                    // reading first skips the CAS for most already visited vertices
+                    if (parent.get(w) == -1 && parent.compareAndSet(w, -1, v)) {
+                        distTo[w] = level;
+                        if (n == buffer.length) buffer = Arrays.copyOf(buffer, 2 * n);
+                        buffer[n++] = w;
+                    }
+                }
+            }
+            buffers[chunk] = buffer;
+            size[chunk] = n;
+        }
+    }
+
     /**
      * Is there a path between the source vertex <tt>s</tt> (or sources) and vertex <tt>v</tt>?
      * @param v the vertex
@@ -215,6 +436,38 @@ public class BreadthFirstPaths {
         return true;
     }
 
+    // check optimality conditions for single source over a CSR graph
+    private boolean check(IntGraph G, int s) {
+        if (distTo[s] != 0) {
+            System.out.println("distance of source " + s + " to itself = " + distTo[s]);
+            return false;
+        }
+        for (int v = 0; v < G.V(); v++) {
+            for (int i = G.begin(v); i < G.end(v); i++) {
+                int w = G.target(i);
+                if (hasPathTo(v) != hasPathTo(w)) {
+                    System.out.println("edge " + v + "-" + w);
+                    return false;
+                }
+                if (hasPathTo(v) && (distTo[w] > distTo[v] + 1)) {
+                    System.out.println("edge " + v + "-" + w);
+                    System.out.println("distTo[" + v + "] = " + distTo[v]);
+                    System.out.println("distTo[" + w + "] = " + distTo[w]);
+                    return false;
+                }
+            }
+        }
+        for (int w = 0; w < G.V(); w++) {
+            if (!hasPathTo(w) || w == s) continue;
+            int v = edgeTo[w];
+            if (distTo[w] != distTo[v] + 1) {
+                System.out.println("shortest path edge " + v + "-" + w);
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Unit tests the <tt>BreadthFirstPaths</tt> data type.
      */
@@ -0,0 +1,272 @@
+package structures.graph.undirected;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*************************************************************************
+ *  Compilation:  javac ConcurrentConnectivity.java
+ *  Execution:    java ConcurrentConnectivity [V] [E]
+ *  Dependencies: IncrementalConnectivity.java
+ *
+ *  Lock-free union-find for several threads adding edges to an
+ *  undirected graph at once.
+ *
+ *  % java ConcurrentConnectivity 1000000 1000000
+ *  1000000 random edges on 1000000 vertices, 162066 components
+ *  threads   addEdges ms
+ *        1        85.9
+ *        2        84.8
+ *        4        74.0
+ *  agrees with IncrementalConnectivity: true
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>ConcurrentConnectivity</tt> class is the thread-safe counterpart of
+ *  {@link IncrementalConnectivity}: any number of threads may add edges and ask
+ *  whether two vertices are connected at the same time, and no thread ever
+ *  blocks another.
+ *  <p>
+ *  The parent pointers are an <tt>AtomicIntegerArray</tt>. A root is linked by a
+ *  compare-and-set that only succeeds while it is still a root, so two threads
+ *  can never both link the same tree, and a failed link is retried from fresh
+ *  roots. Sizes cannot be kept up to date with a single compare-and-set, so
+ *  instead of union by size every vertex gets a random priority and the root of
+ *  lower priority is linked under the other one, which keeps the trees
+ *  logarithmic in expectation (Jayanti and Tarjan). <em>Find</em> uses path
+ *  splitting: it points each vertex it passes at its grandparent with a
+ *  compare-and-set, which may fail harmlessly under contention.
+ *  <p>
+ *  {@link #connected(int, int)} is exact at some moment during the call: if
+ *  the two roots differ, it checks that the first one is still a root before
+ *  answering <tt>false</tt>. {@link #componentCount()} is exact once all
+ *  additions have returned.
+ *  <p>
+ *  {@link #addEdges(int[], int, ForkJoinPool)} splits a batch of edges into
+ *  chunks added by the threads of a <tt>ForkJoinPool</tt>.
+ */
+public class ConcurrentConnectivity {
+
+    private static final int GRAIN = 4096;   // fewest edges worth a task
+
+    private final AtomicIntegerArray parent;   // parent[v] = parent of v, v itself for a root
+    private final int[] priority;              // random permutation, the higher root wins a link
+    private final AtomicInteger count;         // number of components
+
+    /**
+     * Initializes <tt>V</tt> isolated vertices, each in its own component.
+     * @param V the number of vertices
+     * @throws IllegalArgumentException if <tt>V</tt> &lt; 0
+     */
+    public ConcurrentConnectivity(int V) {
+        this(V, 0);
+    }
+
+    /**
+     * Initializes <tt>V</tt> isolated vertices, with the link priorities drawn from <tt>seed</tt>.
+     * @param V the number of vertices
+     * @param seed the seed of the priorities
+     * @throws IllegalArgumentException if <tt>V</tt> &lt; 0
+     */
+    public ConcurrentConnectivity(int V, long seed) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be nonnegative");
+        parent = new AtomicIntegerArray(V);
+        priority = new int[V];
+        count = new AtomicInteger(V);
+        for (int v = 0; v < V; v++) {
+            parent.set(v, v);
+            priority[v] = v;
+        }
+        Random random = new Random(seed);
+        for (int v = V - 1; v > 0; v--) {
+            int r = random.nextInt(v + 1);
+            int swap = priority[v];
+            priority[v] = priority[r];
+            priority[r] = swap;
+        }
+    }
+
+    /**
+     * Returns the number of vertices.
+     * @return the number of vertices
+     */
+    public int V() {
+        return priority.length;
+    }
+
+    /**
+     * Returns the number of connected components.
+     * @return the number of connected components, counting every addition that has returned
+     */
+    public int componentCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the current representative of the component of vertex <tt>v</tt>,
+     * which another thread may link under a new one at any time.
+     * @param v the vertex
+     * @return the root of the tree containing <tt>v</tt>
+     * @throws IndexOutOfBoundsException unless 0 &le; v &lt; V
+     */
+    public int find(int v) {
+        validateVertex(v);
+        while (true) {
+            int p = parent.get(v);
+            if (p == v) return v;
+            int grandparent = parent.get(p);
+            if (p != grandparent) parent.compareAndSet(v, p, grandparent);
+            v = p;
+        }
+    }
+
+    /**
+     * Are vertices <tt>v</tt> and <tt>w</tt> connected?
+     * @param v one vertex
+     * @param w the other vertex
+     * @return <tt>true</tt> if there is a path between <tt>v</tt> and <tt>w</tt>
+     * @throws IndexOutOfBoundsException unless both 0 &le; v &lt; V and 0 &le; w &lt; V
+     */
+    public boolean connected(int v, int w) {
+        while (true) {
+            int rootV = find(v);
+            int rootW = find(w);
+            if (rootV == rootW) return true;
+            // rootW was a root after rootV was; if rootV still is, both were roots at once
+            if (parent.get(rootV) == rootV) return false;
+        }
+    }
+
+    /**
+     * Adds the undirected edge v-w.
+     * @param v one vertex in the edge
+     * @param w the other vertex in the edge
+     * @return <tt>true</tt> if this call joined two components, <tt>false</tt>
+     *    if <tt>v</tt> and <tt>w</tt> were already connected
+     * @throws IndexOutOfBoundsException unless both 0 &le; v &lt; V and 0 &le; w &lt; V
+     */
+    public boolean addEdge(int v, int w) {
+        while (true) {
+            int rootV = find(v);
+            int rootW = find(w);
+            if (rootV == rootW) return false;
+            if (priority[rootV] > priority[rootW]) {
+                int swap = rootV;
+                rootV = rootW;
+                rootW = swap;
+            }
+            // link the lower root, if no other thread has linked it meanwhile
+            if (parent.compareAndSet(rootV, rootV, rootW)) {
+                count.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Adds the first <tt>E</tt> edges of <tt>mas</tt>, as pairs of endpoints, with
+     * the threads of <tt>pool</tt>. Other threads may use the structure meanwhile.
+     * @param mas the edges as pairs of endpoints
+     * @param E the number of edges
+     * @param pool the threads
+     * @throws IllegalArgumentException if <tt>E</tt> is negative
+     * @throws IndexOutOfBoundsException if the endpoints of any edge are not in prescribed range
+     */
+    public void addEdges(int[] mas, int E, ForkJoinPool pool) {
+        if (E < 0) throw new IllegalArgumentException("Number of edges must be nonnegative");
+        int chunks = Math.min(pool.getParallelism(), (E + GRAIN - 1) / GRAIN);
+        if (chunks <= 1) {
+            for (int i = 0; i < E; i++) addEdge(mas[2*i], mas[2*i+1]);
+            return;
+        }
+        Ingest[] tasks = new Ingest[chunks];
+        for (int c = 0; c < chunks; c++) {
+            tasks[c] = new Ingest(mas, (int) ((long) E * c / chunks), (int) ((long) E * (c + 1) / chunks));
+        }
+        pool.invoke(new Ingests(tasks));
+    }
+
+    private static class Ingests extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Ingest[] tasks;
+
+        Ingests(Ingest[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    // adds edges lo to hi - 1
+    private class Ingest extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] mas;
+        private final int lo, hi;
+
+        Ingest(int[] mas, int lo, int hi) {
+            this.mas = mas;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = lo; i < hi; i++) {
+                addEdge(mas[2*i], mas[2*i+1]);
+            }
+        }
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= priority.length)
+            throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (priority.length-1));
+    }
+
+
+    /**
+     * Unit tests the <tt>ConcurrentConnectivity</tt> data type.
+     */
+    public static void main(String[] args) {
+        int V = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int E = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        Random random = new Random(42);
+        int[] mas = new int[2 * E];
+        for (int i = 0; i < 2 * E; i++) mas[i] = random.nextInt(V);
+
+        IncrementalConnectivity expected = new IncrementalConnectivity(V);
+        for (int i = 0; i < E; i++) expected.addEdge(mas[2*i], mas[2*i+1]);
+        System.out.printf("%d random edges on %d vertices, %d components%n", E, V, expected.componentCount());
+
+        boolean same = true;
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.println("threads   addEdges ms");
+        for (int threads = 1; threads <= Math.max(4, processors); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            // one warm-up run, then the best of three
+            double best = Double.POSITIVE_INFINITY;
+            ConcurrentConnectivity uf = null;
+            for (int run = 0; run < 4; run++) {
+                uf = new ConcurrentConnectivity(V);
+                long start = System.nanoTime();
+                uf.addEdges(mas, E, pool);
+                if (run > 0) best = Math.min(best, (System.nanoTime() - start) / 1e6);
+            }
+            pool.shutdown();
+            System.out.printf("%7d %11.1f%n", threads, best);
+
+            if (uf.componentCount() != expected.componentCount()) same = false;
+            for (int k = 0; k < 100000; k++) {
+                int v = random.nextInt(V);
+                int w = random.nextInt(V);
+                if (uf.connected(v, w) != expected.connected(v, w)) same = false;
+            }
+        }
+        System.out.println("agrees with IncrementalConnectivity: " + same);
+    }
+}
@@ -3,7 +3,7 @@ package structures.graph.undirected;
 /*************************************************************************
  *  Compilation:  javac DepthFirstPaths.java
  *  Execution:    java DepthFirstPaths G s
- *  Dependencies: Graph.java Stack.java StdOut.java
+ *  Dependencies: Graph.java CSRGraph.java IterativeDFS.java Stack.java StdOut.java
  *  Data files:   http://algs4.cs.princeton.edu/41undirected/tinyCG.txt
  *
  *  Run depth first search on an undirected graph.
@@ -28,6 +28,9 @@ package structures.graph.undirected;
  *
  *************************************************************************/
 
+import structures.graph.CSRGraph;
+import structures.graph.IntGraph;
+import structures.graph.IterativeDFS;
 import structures.lists.Stack;
 
 /**
@@ -35,10 +38,16 @@ import structures.lists.Stack;
  *  paths from a source vertex <em>s</em> to every other vertex
  *  in an undirected graph.
  *  <p>
- *  This implementation uses depth-first search.
+ *  This implementation freezes the graph into a {@link CSRGraph} and runs
+ *  the explicit-stack search of {@link IterativeDFS} instead of recursion,
+ *  so it handles paths of any length without a <tt>StackOverflowError</tt>.
  *  The constructor takes time proportional to <em>V</em> + <em>E</em>,
  *  where <em>V</em> is the number of vertices and <em>E</em> is the number of edges.
- *  It uses extra space (not including the graph) proportional to <em>V</em>.
+ *  It uses extra space (not including the graph) proportional to <em>V</em> + <em>E</em>,
+ *  for the frozen copy.
+ *  <p>
+ *  The search also runs directly on any {@link IntGraph}, such as a
+ *  <tt>CSRGraph</tt> frozen once and searched many times.
  *  <p>
  *  For additional documentation, see <a href="/algs4/41graph">Section 4.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
@@ -58,21 +67,29 @@ public class DepthFirstPaths {
      * @param s the source vertex
      */
     public DepthFirstPaths(Graph G, int s) {
+        this(new CSRGraph(G), s);
+    }
+
+    /**
+     * Computes a path between <tt>s</tt> and every other vertex in the undirected CSR graph <tt>G</tt>.
+     * @param G the graph
+     * @param s the source vertex
+     */
+    public DepthFirstPaths(IntGraph G, int s) {
         this.s = s;
         edgeTo = new int[G.V()];
         marked = new boolean[G.V()];
         dfs(G, s);
     }
 
-    // depth first search from v
-    private void dfs(Graph G, int v) {
-        marked[v] = true;
-        for (int w : G.adj(v)) {
-            if (!marked[w]) {
-                edgeTo[w] = v;
-                dfs(G, w);
+    // depth first search from s, with an explicit stack instead of recursion
+    private void dfs(IntGraph G, int s) {
+        new IterativeDFS(G).dfs(s, new IterativeDFS.Visitor() {
+            public void preorder(int v, int parent) {
+                marked[v] = true;
+                if (parent != -1) edgeTo[v] = parent;
             }
-        }
+        });
     }
 
     /**
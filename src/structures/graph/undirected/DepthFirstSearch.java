@@ -3,7 +3,7 @@ package structures.graph.undirected;
 /*************************************************************************
  *  Compilation:  javac DepthFirstSearch.java
  *  Execution:    java DepthFirstSearch filename.txt s
- *  Dependencies: Graph.java StdOut.java
+ *  Dependencies: Graph.java CSRGraph.java IterativeDFS.java StdOut.java
  *  Data files:   http://algs4.cs.princeton.edu/41undirected/tinyG.txt
  *
  *  Run depth first search on an undirected graph.
@@ -19,17 +19,23 @@ package structures.graph.undirected;
  *
  *************************************************************************/
 
+import structures.graph.CSRGraph;
+import structures.graph.IterativeDFS;
+
 /**
  *  The <tt>DepthFirstSearch</tt> class represents a data type for
  *  determining the vertices connected to a given source vertex <em>s</em>
  *  in an undirected graph. For versions that find the paths, see
  *  {@link DepthFirstPaths} and {@link BreadthFirstPaths}.
  *  <p>
- *  This implementation uses depth-first search.
+ *  This implementation freezes the graph into a {@link CSRGraph} and runs
+ *  the explicit-stack search of {@link IterativeDFS} instead of recursion,
+ *  so it handles paths of any length without a <tt>StackOverflowError</tt>.
  *  The constructor takes time proportional to <em>V</em> + <em>E</em>
  *  (in the worst case),
  *  where <em>V</em> is the number of vertices and <em>E</em> is the number of edges.
- *  It uses extra space (not including the graph) proportional to <em>V</em>.
+ *  It uses extra space (not including the graph) proportional to <em>V</em> + <em>E</em>,
+ *  for the frozen copy.
  *  <p>
  *  For additional documentation, see <a href="/algs4/41graph">Section 4.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
@@ -50,18 +56,11 @@ public class DepthFirstSearch {
      */
     public DepthFirstSearch(Graph G, int s) {
         marked = new boolean[G.V()];
-        dfs(G, s);
-    }
-
-    // depth first search from v
-    private void dfs(Graph G, int v) {
-        count++;
-        marked[v] = true;
-        for (int w : G.adj(v)) {
-            if (!marked[w]) {
-                dfs(G, w);
+        count = new IterativeDFS(new CSRGraph(G)).dfs(s, new IterativeDFS.Visitor() {
+            public void preorder(int v, int parent) {
+                marked[v] = true;
             }
-        }
+        });
     }
 
     /**
@@ -168,6 +168,17 @@ public class Graph {
         return adj[v];
     }
 
+    /**
+     * Returns the degree of vertex <tt>v</tt>.
+     * @return the degree of vertex <tt>v</tt>
+     * @param v the vertex
+     * @throws IndexOutOfBoundsException unless 0 <= v < V
+     */
+    public int degree(int v) {
+        if (v < 0 || v >= V) throw new IndexOutOfBoundsException();
+        return adj[v].size();
+    }
+
 
     /**
      * Returns a string representation of the graph.
@@ -0,0 +1,201 @@
+package structures.graph.undirected;
+
+/*************************************************************************
+ *  Compilation:  javac IncrementalConnectivity.java
+ *  Execution:    java IncrementalConnectivity
+ *  Dependencies: Graph.java DepthFirstSearch.java
+ *  Data files:   http://algs4.cs.princeton.edu/41undirected/tinyG.txt
+ *
+ *  Connectivity of an undirected graph whose edges arrive one at a time,
+ *  with weighted quick-union and path compression.
+ *
+ *  % java IncrementalConnectivity
+ *  0-5   12 components
+ *  4-3   11 components
+ *  0-1   10 components
+ *  9-12   9 components
+ *  6-4    8 components
+ *  5-4    7 components
+ *  0-2    6 components
+ *  11-12  5 components
+ *  9-10   4 components
+ *  0-6    4 components  (already connected)
+ *  7-8    3 components
+ *  9-11   3 components  (already connected)
+ *  5-3    3 components  (already connected)
+ *  component of 0 has 7 vertices, of 7 has 2, of 9 has 4
+ *  agrees with DepthFirstSearch from every vertex: true
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>IncrementalConnectivity</tt> class represents a data type for
+ *  answering whether two vertices of an undirected graph are connected while
+ *  edges are still being added, without the full traversal of a
+ *  {@link DepthFirstSearch} after every batch. Edges can only be added.
+ *  <p>
+ *  This implementation is weighted quick-union with path compression over
+ *  two primitive arrays: the root of the smaller tree is linked to the root
+ *  of the larger one, and every <em>find</em> points the vertices it passes
+ *  straight at their root. {@link #addEdge(int, int)}, {@link #connected(int, int)}
+ *  and {@link #find(int)} take amortized time proportional to the inverse
+ *  Ackermann function of <em>V</em>, which is less than 5 for any practical <em>V</em>;
+ *  {@link #componentCount()} and {@link #V()} take constant time.
+ *  <p>
+ *  For several threads adding edges at once, see {@link ConcurrentConnectivity}.
+ *  <p>
+ *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/15uf">Section 1.5</a> of
+ *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
+ */
+public class IncrementalConnectivity {
+
+    private final int[] parent;   // parent[v] = parent of v, v itself for a root
+    private final int[] size;     // size[r] = number of vertices in the tree of root r
+    private int count;            // number of components
+
+    /**
+     * Initializes <tt>V</tt> isolated vertices, each in its own component.
+     * @param V the number of vertices
+     * @throws IllegalArgumentException if <tt>V</tt> &lt; 0
+     */
+    public IncrementalConnectivity(int V) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be nonnegative");
+        parent = new int[V];
+        size = new int[V];
+        count = V;
+        for (int v = 0; v < V; v++) {
+            parent[v] = v;
+            size[v] = 1;
+        }
+    }
+
+    /**
+     * Initializes the connectivity of the edges already in graph <tt>G</tt>.
+     * @param G the graph
+     */
+    public IncrementalConnectivity(Graph G) {
+        this(G.V());
+        for (int v = 0; v < G.V(); v++) {
+            for (int w : G.adj(v)) {
+                if (v < w) addEdge(v, w);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of vertices.
+     * @return the number of vertices
+     */
+    public int V() {
+        return parent.length;
+    }
+
+    /**
+     * Returns the number of connected components.
+     * @return the number of connected components, between 1 and <tt>V</tt> (0 if there are no vertices)
+     */
+    public int componentCount() {
+        return count;
+    }
+
+    /**
+     * Returns the representative of the component of vertex <tt>v</tt>. It stays
+     * the same until an edge joins the component with another one.
+     * @param v the vertex
+     * @return the representative vertex of the component containing <tt>v</tt>
+     * @throws IndexOutOfBoundsException unless 0 &le; v &lt; V
+     */
+    public int find(int v) {
+        validateVertex(v);
+        int root = v;
+        while (root != parent[root]) {
+            root = parent[root];
+        }
+        while (v != root) {
+            int next = parent[v];
+            parent[v] = root;
+            v = next;
+        }
+        return root;
+    }
+
+    /**
+     * Are vertices <tt>v</tt> and <tt>w</tt> connected?
+     * @param v one vertex
+     * @param w the other vertex
+     * @return <tt>true</tt> if there is a path between <tt>v</tt> and <tt>w</tt>
+     * @throws IndexOutOfBoundsException unless both 0 &le; v &lt; V and 0 &le; w &lt; V
+     */
+    public boolean connected(int v, int w) {
+        return find(v) == find(w);
+    }
+
+    /**
+     * Returns the number of vertices in the component of vertex <tt>v</tt>.
+     * @param v the vertex
+     * @return the size of the component containing <tt>v</tt>
+     * @throws IndexOutOfBoundsException unless 0 &le; v &lt; V
+     */
+    public int componentSize(int v) {
+        return size[find(v)];
+    }
+
+    /**
+     * Adds the undirected edge v-w.
+     * @param v one vertex in the edge
+     * @param w the other vertex in the edge
+     * @return <tt>true</tt> if the edge joined two components, <tt>false</tt>
+     *    if <tt>v</tt> and <tt>w</tt> were already connected
+     * @throws IndexOutOfBoundsException unless both 0 &le; v &lt; V and 0 &le; w &lt; V
+     */
+    public boolean addEdge(int v, int w) {
+        int rootV = find(v);
+        int rootW = find(w);
+        if (rootV == rootW) return false;
+
+        // make smaller root point to larger one
+        if (size[rootV] < size[rootW]) {
+            parent[rootV] = rootW;
+            size[rootW] += size[rootV];
+        }
+        else {
+            parent[rootW] = rootV;
+            size[rootV] += size[rootW];
+        }
+        count--;
+        return true;
+    }
+
+    private void validateVertex(int v) {
+        if (v < 0 || v >= parent.length)
+            throw new IndexOutOfBoundsException("vertex " + v + " is not between 0 and " + (parent.length-1));
+    }
+
+
+    /**
+     * Unit tests the <tt>IncrementalConnectivity</tt> data type.
+     */
+    public static void main(String[] args) {
+        // tinyG.txt
+        int[] mas={0, 5, 4, 3, 0, 1, 9, 12, 6, 4, 5, 4, 0, 2, 11, 12, 9, 10, 0, 6, 7, 8, 9, 11, 5, 3};
+        IncrementalConnectivity uf = new IncrementalConnectivity(13);
+        for (int i = 0; i < 13; i++) {
+            int v = mas[2*i];
+            int w = mas[2*i+1];
+            boolean joined = uf.addEdge(v, w);
+            System.out.printf("%-6s%2d components%s%n", v + "-" + w, uf.componentCount(), joined ? "" : "  (already connected)");
+        }
+        System.out.printf("component of 0 has %d vertices, of 7 has %d, of 9 has %d%n",
+                          uf.componentSize(0), uf.componentSize(7), uf.componentSize(9));
+
+        Graph G = new Graph(13, 13, mas);
+        boolean same = new IncrementalConnectivity(G).componentCount() == uf.componentCount();
+        for (int s = 0; s < G.V(); s++) {
+            DepthFirstSearch dfs = new DepthFirstSearch(G, s);
+            for (int v = 0; v < G.V(); v++) {
+                if (dfs.marked(v) != uf.connected(s, v)) same = false;
+            }
+        }
+        System.out.println("agrees with DepthFirstSearch from every vertex: " + same);
+    }
+}
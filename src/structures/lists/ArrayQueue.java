@@ -2,6 +2,8 @@ package structures.lists;
 
 /**
  * Java program to implement a Queue based on array.
+ * It is not thread-safe; for a bounded queue shared between threads see
+ * {@link MpmcArrayQueue}, {@link MpscArrayQueue} and {@link SpscArrayQueue}.
  */
 public class ArrayQueue<T> {
     private T[] arr;
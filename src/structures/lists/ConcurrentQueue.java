@@ -0,0 +1,323 @@
+package structures.lists;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*************************************************************************
+ *  Compilation:  javac ConcurrentQueue.java
+ *  Execution:    java ConcurrentQueue
+ *  Dependencies: none
+ *
+ *  Lock-free Michael-Scott queue over a pool of recycled nodes.
+ *
+ *  % java ConcurrentQueue
+ *  a t t y true
+ *  2 producers, 2 consumers: sum correct in 391.5 ms, 152083 pooled nodes
+ *  bytes allocated per enqueue-dequeue pair: 0.00
+ *
+ *************************************************************************/
+
+/**
+ * The <tt>ConcurrentQueue</tt> class is the thread-safe counterpart of
+ * {@link Queue}: any number of threads may enqueue and dequeue at the same
+ * time, and no thread ever blocks another. Unlike the bounded
+ * {@link MpmcArrayQueue} it grows as needed.
+ * <p>
+ * This is the queue of Michael and Scott: a linked list that always starts
+ * with a dummy node, a <tt>head</tt> that points at the dummy and a
+ * <tt>tail</tt> that points at the last node or the one before it. An enqueue
+ * links its node after the last one with a compare-and-set, then tries once to
+ * swing <tt>tail</tt> to it; if that fails, whichever thread next finds
+ * <tt>tail</tt> lagging swings it instead. A dequeue swings <tt>head</tt> to the
+ * next node, which becomes the new dummy, and the old dummy is recycled.
+ * <p>
+ * The nodes live in a pool of chunks of parallel arrays and are named by their
+ * index, so once the pool has grown to the largest length the queue reaches, an
+ * enqueue allocates nothing. The directory of the chunks starts with one and
+ * is never changed once published: a thread that needs a new chunk publishes
+ * a longer copy with a compare-and-set, so no chunk is ever lost. Freed nodes
+ * go on a Treiber stack threaded through the same link array. A recycled node
+ * could fool a compare-and-set that expects the old one (the ABA problem), so,
+ * as in the original paper, every link and every pointer is a <tt>long</tt> of
+ * an index and a stamp that is incremented on each change, and every read of
+ * a node is checked by reading the pointer that led there again.
+ * <p>
+ * The pool keeps the nodes it has made until the queue is garbage collected,
+ * and the dummy keeps a reference to the last item dequeued until the next
+ * dequeue. There is no iterator, and no {@link Queue#size()}: counting would
+ * take a shared counter on every operation or a walk over nodes that others
+ * are recycling.
+ */
+public class ConcurrentQueue<T> {
+    private static final int SHIFT = 10;                // 1024 nodes in a chunk
+    private static final int CHUNK = 1 << SHIFT;
+    private static final int NIL = 0;                   // index of no node
+    private static final Object EMPTY = new Object();   // returned by remove() for an empty queue
+
+    private final AtomicReference<Chunk[]> chunks;   // directory of the chunks made so far
+    private final AtomicInteger allocated;   // nodes ever made, counting NIL
+    private final AtomicLong head;           // stamped index of the dummy node
+    private final AtomicLong tail;           // stamped index of the last node, or the one before it
+    private final AtomicLong free;           // stamped index of the top of the stack of free nodes
+
+    // CHUNK nodes, as parallel arrays
+    private static class Chunk {
+        private final Object[] item = new Object[CHUNK];
+        private final AtomicLongArray next = new AtomicLongArray(CHUNK);   // stamped index of the next node
+    }
+
+    /**
+     * Initializes an empty queue.
+     */
+    public ConcurrentQueue() {
+        chunks = new AtomicReference<Chunk[]>(new Chunk[] { new Chunk() });
+        allocated = new AtomicInteger(1);
+        free = new AtomicLong(pack(NIL, 0));
+        int dummy = allocate();
+        head = new AtomicLong(pack(dummy, 0));
+        tail = new AtomicLong(pack(dummy, 0));
+    }
+
+    private static long pack(int index, int stamp) {
+        return ((long) stamp << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    private static int index(long pointer) {
+        return (int) pointer;
+    }
+
+    private static int stamp(long pointer) {
+        return (int) (pointer >>> 32);
+    }
+
+    private Chunk chunk(int node) {
+        return chunks.get()[node >>> SHIFT];
+    }
+
+    // sets the link of node to index, with a new stamp
+    private void link(int node, int index) {
+        AtomicLongArray next = chunk(node).next;
+        int offset = node & (CHUNK - 1);
+        while (true) {
+            long old = next.get(offset);
+            if (next.compareAndSet(offset, old, pack(index, stamp(old) + 1))) return;
+        }
+    }
+
+    // a node with no item and no next, from the free stack or a fresh one
+    private int allocate() {
+        while (true) {
+            long top = free.get();
+            int node = index(top);
+            if (node == NIL) break;
+            int below = index(chunk(node).next.get(node & (CHUNK - 1)));
+            if (free.compareAndSet(top, pack(below, stamp(top) + 1))) {
+                link(node, NIL);
+                return node;
+            }
+        }
+        int node = allocated.getAndIncrement();
+        if (node < 0) throw new IllegalStateException("lists.ConcurrentQueue overflow");
+        install(node >>> SHIFT);
+        return node;
+    }
+
+    // makes sure the directory has chunk c, publishing a longer copy if it has not
+    private void install(int c) {
+        Chunk chunk = null;
+        while (true) {
+            Chunk[] directory = chunks.get();
+            if (c < directory.length && directory[c] != null) return;
+            if (chunk == null) chunk = new Chunk();
+            Chunk[] grown = Arrays.copyOf(directory, Math.max(directory.length, c + 1));
+            grown[c] = chunk;
+            if (chunks.compareAndSet(directory, grown)) return;
+        }
+    }
+
+    // pushes node on the free stack
+    private void recycle(int node) {
+        chunk(node).item[node & (CHUNK - 1)] = null;
+        while (true) {
+            long top = free.get();
+            link(node, index(top));
+            if (free.compareAndSet(top, pack(node, stamp(top) + 1))) return;
+        }
+    }
+
+    /**
+     * Is this queue empty?
+     * @return true if this queue was empty at some moment during the call; false otherwise
+     */
+    public boolean isEmpty() {
+        while (true) {
+            long first = head.get();
+            int node = index(first);
+            long next = chunk(node).next.get(node & (CHUNK - 1));
+            if (head.get() == first) return index(next) == NIL;
+        }
+    }
+
+    /**
+     * Adds the item to this queue.
+     * @param item the item to add
+     * @throws IllegalStateException if the pool would need more than
+     *    <tt>Integer.MAX_VALUE</tt> nodes
+     */
+    public void enqueue(T item) {
+        int node = allocate();
+        chunk(node).item[node & (CHUNK - 1)] = item;
+        while (true) {
+            long last = tail.get();
+            int lastNode = index(last);
+            AtomicLongArray links = chunk(lastNode).next;
+            int offset = lastNode & (CHUNK - 1);
+            long next = links.get(offset);
+            if (tail.get() != last) continue;
+            if (index(next) == NIL) {
+                if (links.compareAndSet(offset, next, pack(node, stamp(next) + 1))) {
+                    // one try; a failure means another thread has swung it already
+                    tail.compareAndSet(last, pack(node, stamp(last) + 1));
+                    return;
+                }
+            }
+            else {
+                // tail is lagging behind: help the enqueue that linked next
+                tail.compareAndSet(last, pack(index(next), stamp(last) + 1));
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the item on this queue that was least recently added.
+     * @return the item on this queue that was least recently added
+     * @throws NoSuchElementException if this queue is empty
+     */
+    public T dequeue() {
+        Object item = remove();
+        if (item == EMPTY) throw new NoSuchElementException("lists.ConcurrentQueue underflow");
+        return (T) item;
+    }
+
+    /**
+     * Removes and returns the item on this queue that was least recently added, if there is one.
+     * @return the item least recently added, or null if this queue is empty
+     */
+    public T poll() {
+        Object item = remove();
+        return item == EMPTY ? null : (T) item;
+    }
+
+    // removes and returns the first item, or EMPTY if the queue is empty
+    private Object remove() {
+        while (true) {
+            long first = head.get();
+            long last = tail.get();
+            int dummy = index(first);
+            long next = chunk(dummy).next.get(dummy & (CHUNK - 1));
+            if (head.get() != first) continue;
+            int nextNode = index(next);
+            if (dummy == index(last)) {
+                if (nextNode == NIL) return EMPTY;
+                tail.compareAndSet(last, pack(nextNode, stamp(last) + 1));
+            }
+            else {
+                // read before the compare-and-set, after which another dequeue may recycle the node
+                Object item = chunk(nextNode).item[nextNode & (CHUNK - 1)];
+                if (head.compareAndSet(first, pack(nextNode, stamp(first) + 1))) {
+                    recycle(dummy);
+                    return item;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the item least recently added to this queue.
+     * @return the item least recently added to this queue
+     * @throws NoSuchElementException if this queue is empty
+     */
+    public T peek() {
+        while (true) {
+            long first = head.get();
+            int dummy = index(first);
+            long next = chunk(dummy).next.get(dummy & (CHUNK - 1));
+            int nextNode = index(next);
+            if (nextNode == NIL) {
+                if (head.get() == first) throw new NoSuchElementException("lists.ConcurrentQueue underflow");
+                continue;
+            }
+            Object item = chunk(nextNode).item[nextNode & (CHUNK - 1)];
+            if (head.get() == first) return (T) item;
+        }
+    }
+
+    /**
+     * Returns the number of nodes the pool has made: the greatest number there
+     * has been at once of items in the queue and items being enqueued, plus
+     * one for the dummy.
+     * @return the number of pooled nodes
+     */
+    public int poolSize() {
+        return allocated.get() - 1;
+    }
+
+
+    /**
+     * Unit tests the <tt>lists.ConcurrentQueue</tt> data type.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentQueue<String> q = new ConcurrentQueue<String>();
+        q.enqueue("a");
+        q.enqueue("t");
+        q.enqueue("y");
+        System.out.println(q.dequeue() + " " + q.peek() + " " + q.dequeue() + " " + q.dequeue() + " " + q.isEmpty());
+
+        // 2 ingest threads hand 1000000 numbers each to 2 processing threads
+        final int N = 1000000;
+        ConcurrentQueue<Integer> shared = new ConcurrentQueue<Integer>();
+        long[] sums = new long[2];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < 2; t++) {
+            final int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < N; i++) shared.enqueue(i);
+            });
+            threads[2 + t] = new Thread(() -> {
+                long sum = 0;
+                for (int n = 0; n < N; ) {
+                    Integer x = shared.poll();
+                    if (x == null) Thread.yield();
+                    else { sum += x; n++; }
+                }
+                sums[id] = sum;
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        System.out.printf("2 producers, 2 consumers: sum %s in %.1f ms, %d pooled nodes%n",
+                          sums[0] + sums[1] == (long) N * (N - 1) ? "correct" : "WRONG",
+                          (System.nanoTime() - start) / 1e6, shared.poolSize());
+
+        // in steady state an enqueue-dequeue pair allocates nothing
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Integer item = 42;
+        for (int i = 0; i < 1000000; i++) {
+            shared.enqueue(item);
+            shared.dequeue();
+        }
+        long before = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < 1000000; i++) {
+            shared.enqueue(item);
+            shared.dequeue();
+        }
+        long bytes = bean.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        System.out.printf("bytes allocated per enqueue-dequeue pair: %.2f%n", bytes / 1e6);
+    }
+}
@@ -0,0 +1,253 @@
+package structures.lists;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*************************************************************************
+ *  Compilation:  javac ConcurrentStack.java
+ *  Execution:    java ConcurrentStack
+ *  Dependencies: none
+ *
+ *  Lock-free Treiber stack with an elimination array.
+ *
+ *  % java ConcurrentStack
+ *  t a (size 2)
+ *  8 threads: sum correct, size 0, in 456.2 ms
+ *
+ *************************************************************************/
+
+/**
+ * The <tt>ConcurrentStack</tt> class is the thread-safe counterpart of
+ * {@link Stack}: any number of threads may push, pop and iterate at the same
+ * time, and no thread ever blocks another.
+ * <p>
+ * This is Treiber's stack: the top is an <tt>AtomicReference</tt>, and a push or
+ * a pop swings it with a compare-and-set. Nodes never change once pushed, so
+ * a reader that holds a node holds a snapshot of the stack below it. Each
+ * node also records the size of the stack it tops, which makes {@link #size()}
+ * exact and constant time without a shared counter for threads to fight over.
+ * <p>
+ * When many threads hit the top at once most compare-and-sets fail, so a push
+ * that loses one backs off to an <em>elimination array</em> (Hendler, Shavit
+ * and Yerushalmi): it offers its node in a random slot and waits a little for
+ * a pop. A pop that loses a compare-and-set looks into a random slot, and if
+ * it finds an offered node it takes it with a compare-and-set on the slot.
+ * The two operations then cancel out without touching the top at all: the
+ * push takes effect right before the pop. A push that nobody takes withdraws
+ * its offer and tries the top again.
+ * <p>
+ * The iterator is weakly consistent: it walks the stack as it was when
+ * the iterator was created, in LIFO order, and never throws a
+ * <tt>ConcurrentModificationException</tt>.
+ */
+public class ConcurrentStack<T> implements Iterable<T> {
+    private static final int SPINS = 64;   // how long an offered push waits for a pop
+
+    private final AtomicReference<Node<T>> head;             // top of stack
+    private final AtomicReferenceArray<Node<T>> elimination;  // nodes offered by pushes, or null
+
+    // immutable once pushed
+    private static class Node<T> {
+        private final T item;
+        private final Node<T> next;
+        private final int size;   // number of nodes from this one down
+
+        public Node(T item, Node<T> next) {
+            this.item = item;
+            this.next = next;
+            this.size = next == null ? 1 : next.size + 1;
+        }
+    }
+
+    /**
+     * Initializes an empty stack, with an elimination slot for every two processors.
+     */
+    public ConcurrentStack() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Initializes an empty stack.
+     * @param eliminationSlots the number of slots of the elimination array, 0 to disable it
+     * @throws IllegalArgumentException if <tt>eliminationSlots</tt> &lt; 0
+     */
+    public ConcurrentStack(int eliminationSlots) {
+        if (eliminationSlots < 0) throw new IllegalArgumentException("Number of slots must be nonnegative");
+        head = new AtomicReference<Node<T>>();
+        elimination = eliminationSlots == 0 ? null : new AtomicReferenceArray<Node<T>>(eliminationSlots);
+    }
+
+    /**
+     * Is this stack empty?
+     * @return true if this stack was empty at some moment during the call; false otherwise
+     */
+    public boolean isEmpty() {
+        return head.get() == null;
+    }
+
+    /**
+     * Returns the number of items in the stack.
+     * @return the number of items in the stack at some moment during the call
+     */
+    public int size() {
+        Node<T> top = head.get();
+        return top == null ? 0 : top.size;
+    }
+
+    /**
+     * Adds the item to this stack.
+     * @param item the item to add
+     * @throws IllegalArgumentException if <tt>item</tt> is null
+     */
+    public void push(T item) {
+        if (item == null) throw new IllegalArgumentException("Null items are not allowed");
+        while (true) {
+            Node<T> top = head.get();
+            Node<T> node = new Node<T>(item, top);
+            if (head.compareAndSet(top, node)) return;
+            if (elimination != null && offer(node)) return;
+        }
+    }
+
+    /**
+     * Removes and returns the item most recently added to this stack.
+     * @return the item most recently added
+     * @throws NoSuchElementException if this stack is empty
+     */
+    public T pop() {
+        Node<T> node = popNode();
+        if (node == null) throw new NoSuchElementException("lists.ConcurrentStack underflow");
+        return node.item;
+    }
+
+    /**
+     * Removes and returns the item most recently added to this stack, if there is one.
+     * Unlike {@link #pop()} it tells an empty stack apart without an exception,
+     * so it suits threads that race to empty the stack; since {@link #push} rejects
+     * null, a null result always means an empty stack.
+     * @return the item most recently added, or null if this stack is empty
+     */
+    public T poll() {
+        Node<T> node = popNode();
+        return node == null ? null : node.item;
+    }
+
+    /**
+     * Returns (but does not remove) the item most recently added to this stack.
+     * @return the item most recently added to this stack
+     * @throws NoSuchElementException if this stack is empty
+     */
+    public T peek() {
+        Node<T> top = head.get();
+        if (top == null) throw new NoSuchElementException("lists.ConcurrentStack underflow");
+        return top.item;
+    }
+
+    // the node of the popped item, from the top or from an eliminated push; null if empty
+    private Node<T> popNode() {
+        while (true) {
+            Node<T> top = head.get();
+            if (top == null) return null;
+            if (head.compareAndSet(top, top.next)) return top;
+            if (elimination != null) {
+                int slot = ThreadLocalRandom.current().nextInt(elimination.length());
+                Node<T> offered = elimination.get(slot);
+                if (offered != null && elimination.compareAndSet(slot, offered, null)) return offered;
+            }
+        }
+    }
+
+    // offers node to the pops for a while; true if one took it
+    private boolean offer(Node<T> node) {
+        int slot = ThreadLocalRandom.current().nextInt(elimination.length());
+        if (!elimination.compareAndSet(slot, null, node)) return false;
+        for (int i = 0; i < SPINS; i++) {
+            if (elimination.get(slot) != node) return true;
+        }
+        // withdraw the offer, unless a pop has taken it meanwhile
+        return !elimination.compareAndSet(slot, node, null);
+    }
+
+    /**
+     * Returns a string representation of this stack.
+     * @return the sequence of items in the stack in LIFO order, separated by spaces
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (T item : this)
+            s.append(item + " ");
+        return s.toString();
+    }
+
+
+    /**
+     * Returns a weakly consistent iterator to this stack that iterates through the
+     * items in LIFO order, as they were when it was created.
+     * @return an iterator to this stack that iterates through the items in LIFO order.
+     */
+    public Iterator<T> iterator() {
+        return new ListIterator<T>(head.get());
+    }
+
+    // an iterator, doesn't implement remove() since it's optional
+    private static class ListIterator<E> implements Iterator<E> {
+        private Node<E> current;
+
+        public ListIterator(Node<E> first) {
+            current = first;
+        }
+        public boolean hasNext()  { return current != null;                     }
+        public void remove()      { throw new UnsupportedOperationException();  }
+
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            E item = current.item;
+            current = current.next;
+            return item;
+        }
+    }
+
+    /**
+     * Unit tests the <tt>lists.ConcurrentStack</tt> data type.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentStack<String> s = new ConcurrentStack<String>();
+        s.push("a");
+        s.push("t");
+        s.push("y");
+        s.pop();
+        System.out.println(s + "(size " + s.size() + ")");
+
+        // 8 threads each push and pop 1000000 numbers of their own; every number
+        // must come out exactly once, whoever pops it
+        final int THREADS = 8, N = 1000000;
+        ConcurrentStack<Integer> shared = new ConcurrentStack<Integer>(4);
+        long[] sums = new long[THREADS];
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int id = t;
+            threads[t] = new Thread(() -> {
+                long sum = 0;
+                for (int i = 0; i < N; i++) {
+                    shared.push(id * N + i);
+                    if ((i & 1) == 1) {
+                        sum += shared.pop();
+                        sum += shared.pop();
+                    }
+                }
+                sums[id] = sum;
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        long total = 0;
+        for (long sum : sums) total += sum;
+        long n = (long) THREADS * N;
+        System.out.printf("%d threads: sum %s, size %d, in %.1f ms%n", THREADS,
+                          total == n * (n - 1) / 2 ? "correct" : "WRONG", shared.size(), (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -8,6 +8,9 @@ import java.util.Set;
  * Java program to implement a Doubly Linked List.
  * <p>
  * based on https://devwithus.com/doubly-linked-list-java/
+ * <p>
+ * For long lists, {@link UnrolledLinkedList} stores many elements per node, and
+ * {@link IndexableSkipList} reaches any position in logarithmic time.
  */
 public class DoublyLinkedList<T> {
 
@@ -0,0 +1,570 @@
+package structures.lists;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*************************************************************************
+ *  Compilation:  javac IndexableSkipList.java
+ *  Execution:    java IndexableSkipList [N]
+ *  Dependencies: DoublyLinkedList.java
+ *
+ *  Sequence with O(log n) access, insertion and removal by position,
+ *  compared with DoublyLinkedList on N elements.
+ *
+ *  % java IndexableSkipList 1000000
+ *  c d e get(3): d, removed b, a and f: c d e
+ *  agrees with ArrayList: true
+ *  1000000 elements: addLast 319.5 ms in all; addAtPos 4.88 us, DoublyLinkedList 1793.2 us
+ *  concurrent readers: consistent, 164324 reads/s alongside 76998 writes/s
+ *
+ *************************************************************************/
+
+/**
+ * The <tt>IndexableSkipList</tt> class is a sequence, like {@link DoublyLinkedList},
+ * whose elements are reached by their position in expected logarithmic time
+ * instead of by a walk from one end.
+ * <p>
+ * It is a skip list (Pugh) ordered by position rather than by key: every node
+ * is on the bottom level and, with probability 1/4 each, on one more level above
+ * the last, and every forward link stores its <em>width</em>, the number of
+ * positions it skips. A search for position <tt>k</tt> goes right on the top level
+ * while the widths it adds up stay within <tt>k</tt>, then down a level, as in
+ * an ordinary skip list. An insertion or a removal adds or subtracts one from
+ * the width of every link that passes over it, one link on each level.
+ * <p>
+ * Widths would make an insertion at the front add one to the links from the
+ * sentinel on every level, so instead every node has an implicit coordinate,
+ * the sum of the widths before it, and the position of a node is its coordinate
+ * minus the coordinate of the first one. {@link #addFirst(Object)} takes the
+ * coordinate before the first and {@link #deleteFirst()} drops the first,
+ * without shifting the others; with the last node of every level kept as well,
+ * {@link #addLast(Object)} touches only the links of its own node. These three
+ * take constant expected time; {@link #get(int)}, {@link #set(int, Object)},
+ * {@link #addAtPos(int, Object)}, {@link #removeAtPos(int)} and
+ * {@link #deleteLast()} take logarithmic expected time.
+ * <p>
+ * A list made with <tt>concurrentReaders</tt> guards its operations with a
+ * <tt>ReentrantReadWriteLock</tt>: any number of threads may read at once, and
+ * a thread that changes the list excludes all the others. New readers wait
+ * behind a waiting writer, so a steady stream of reads cannot starve the
+ * writes. Its iterator walks a copy taken under the read lock.
+ */
+public class IndexableSkipList<T> implements Iterable<T> {
+    private static final int MAX_LEVEL = 16;   // 4^16 elements
+
+    private final Node<T> head;       // sentinel, before the first element on every level
+    private final long[] headRank;    // headRank[i] = coordinate of head.next[i]
+    private final Node<T>[] last;     // last[i] = last node on level i, head if none
+    private final long[] lastRank;    // lastRank[i] = coordinate of last[i]
+    private final Node<T>[] update;   // update[i] = node before the change on level i
+    private final long[] rank;        // rank[i] = coordinate of update[i]
+    private final ReentrantReadWriteLock lock;   // null unless concurrentReaders
+    private long front;               // coordinate of the first element
+    private int size;
+    private int levels;               // number of levels in use
+    private int seed;                 // xorshift state
+
+    private static class Node<T> {
+        private T item;
+        private final Node<T>[] next;
+        private final int[] width;    // width[i] = coordinate of next[i] - coordinate of this node
+
+        public Node(T item, int level) {
+            this.item = item;
+            this.next = (Node<T>[]) new Node[level];
+            this.width = new int[level];
+        }
+    }
+
+    /**
+     * Initializes an empty list for one thread.
+     */
+    public IndexableSkipList() {
+        this(false);
+    }
+
+    /**
+     * Initializes an empty list.
+     * @param concurrentReaders whether several threads will use the list, reading concurrently
+     */
+    public IndexableSkipList(boolean concurrentReaders) {
+        head = new Node<T>(null, MAX_LEVEL);
+        headRank = new long[MAX_LEVEL];
+        last = (Node<T>[]) new Node[MAX_LEVEL];
+        lastRank = new long[MAX_LEVEL];
+        update = (Node<T>[]) new Node[MAX_LEVEL];
+        rank = new long[MAX_LEVEL];
+        Arrays.fill(last, head);
+        lock = concurrentReaders ? new ReentrantReadWriteLock() : null;
+        seed = (int) System.nanoTime() | 1;
+    }
+
+    private void readLock() {
+        if (lock != null) lock.readLock().lock();
+    }
+
+    private void unlockRead() {
+        if (lock != null) lock.readLock().unlock();
+    }
+
+    private void writeLock() {
+        if (lock != null) lock.writeLock().lock();
+    }
+
+    private void unlockWrite() {
+        if (lock != null) lock.writeLock().unlock();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int size() {
+        readLock();
+        try {
+            return size;
+        }
+        finally {
+            unlockRead();
+        }
+    }
+
+    // 1 + one more level with probability 1/4 each, from two bits of a xorshift step
+    private int randomLevel() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return Math.min(MAX_LEVEL, 1 + Integer.numberOfTrailingZeros(seed) / 2);
+    }
+
+    // coordinate of node.next[i], for node at coordinate nodeRank
+    private long nextRank(Node<T> node, long nodeRank, int i) {
+        return node == head ? headRank[i] : nodeRank + node.width[i];
+    }
+
+    // points node.next[i], for node at coordinate nodeRank, at target at coordinate targetRank
+    private void link(Node<T> node, long nodeRank, int i, Node<T> target, long targetRank) {
+        node.next[i] = target;
+        if (target == null) return;
+        if (node == head) headRank[i] = targetRank;
+        else node.width[i] = (int) (targetRank - nodeRank);
+    }
+
+    // the node at coordinate c, which must hold an element
+    private Node<T> find(long c) {
+        Node<T> x = head;
+        long r = front - 1;
+        for (int i = levels - 1; i >= 0; i--) {
+            while (x.next[i] != null) {
+                long nextRank = nextRank(x, r, i);
+                if (nextRank > c) break;
+                x = x.next[i];
+                r = nextRank;
+            }
+            if (r == c) return x;
+        }
+        return x;
+    }
+
+    // fills update and rank with the last node before coordinate c on every level
+    private void search(long c) {
+        Node<T> x = head;
+        long r = front - 1;
+        for (int i = levels - 1; i >= 0; i--) {
+            while (x.next[i] != null) {
+                long nextRank = nextRank(x, r, i);
+                if (nextRank >= c) break;
+                x = x.next[i];
+                r = nextRank;
+            }
+            update[i] = x;
+            rank[i] = r;
+        }
+    }
+
+    private void validateIndex(int index, int bound) {
+        if (index < 0 || index >= bound)
+            throw new IndexOutOfBoundsException("index " + index + " is not between 0 and " + (bound - 1));
+    }
+
+    /**
+     * Add a new item at the beginning of the list.
+     */
+    public void addFirst(T data) {
+        writeLock();
+        try {
+            long c = front - 1;
+            int h = randomLevel();
+            Node<T> node = new Node<T>(data, h);
+            for (int i = 0; i < h; i++) {
+                link(node, c, i, head.next[i], headRank[i]);
+                link(head, 0, i, node, c);
+                if (last[i] == head) {
+                    last[i] = node;
+                    lastRank[i] = c;
+                }
+            }
+            front = c;
+            levels = Math.max(levels, h);
+            size++;
+        }
+        finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Add a new item to the end of the list.
+     */
+    public void addLast(T data) {
+        writeLock();
+        try {
+            long c = front + size;
+            int h = randomLevel();
+            Node<T> node = new Node<T>(data, h);
+            for (int i = 0; i < h; i++) {
+                link(last[i], lastRank[i], i, node, c);
+                last[i] = node;
+                lastRank[i] = c;
+            }
+            levels = Math.max(levels, h);
+            size++;
+        }
+        finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Insert a new item at a specific position.
+     * @throws IndexOutOfBoundsException unless 0 &le; index &le; size
+     */
+    public void addAtPos(int index, T data) {
+        writeLock();
+        try {
+            validateIndex(index, size + 1);
+            long c = front + index;
+            search(c);
+            int h = randomLevel();
+            for (int i = levels; i < h; i++) {
+                update[i] = head;
+            }
+            int top = Math.max(levels, h);
+            Node<T> node = new Node<T>(data, h);
+            for (int i = 0; i < top; i++) {
+                Node<T> before = update[i];
+                Node<T> after = before.next[i];
+                long afterRank = after == null ? 0 : nextRank(before, rank[i], i) + 1;
+                if (i < h) {
+                    link(node, c, i, after, afterRank);
+                    link(before, rank[i], i, node, c);
+                }
+                else link(before, rank[i], i, after, afterRank);
+            }
+            // the elements from c on have moved up one
+            for (int i = 0; i < top; i++) {
+                if (i < h && node.next[i] == null) {
+                    last[i] = node;
+                    lastRank[i] = c;
+                }
+                else if (last[i] != head && lastRank[i] >= c) lastRank[i]++;
+            }
+            levels = top;
+            size++;
+        }
+        finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Delete an item at the beginning of the list.
+     */
+    public T deleteFirst() {
+        writeLock();
+        try {
+            if (size == 0) throw new NoSuchElementException();
+            Node<T> x = head.next[0];
+            for (int i = 0; i < x.next.length; i++) {
+                link(head, 0, i, x.next[i], front + x.width[i]);
+                if (last[i] == x) last[i] = head;
+            }
+            front++;
+            size--;
+            while (levels > 0 && head.next[levels - 1] == null) levels--;
+            return x.item;
+        }
+        finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Delete an item at the end of the list.
+     */
+    public T deleteLast() {
+        writeLock();
+        try {
+            if (size == 0) throw new NoSuchElementException();
+            return remove(size - 1);
+        }
+        finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Delete the item at a specific position.
+     * @throws IndexOutOfBoundsException unless 0 &le; index &lt; size
+     */
+    public T removeAtPos(int index) {
+        writeLock();
+        try {
+            validateIndex(index, size);
+            return remove(index);
+        }
+        finally {
+            unlockWrite();
+        }
+    }
+
+    // removes and returns the element at index, under the write lock
+    private T remove(int index) {
+        long c = front + index;
+        search(c);
+        Node<T> x = update[0].next[0];
+        for (int i = 0; i < levels; i++) {
+            Node<T> before = update[i];
+            if (i < x.next.length) link(before, rank[i], i, x.next[i], c + x.width[i] - 1);
+            else if (before.next[i] != null) link(before, rank[i], i, before.next[i], nextRank(before, rank[i], i) - 1);
+        }
+        // the elements after c have moved down one
+        for (int i = 0; i < levels; i++) {
+            if (last[i] == x) {
+                last[i] = update[i];
+                lastRank[i] = rank[i];
+            }
+            else if (last[i] != head && lastRank[i] > c) lastRank[i]--;
+        }
+        while (levels > 0 && head.next[levels - 1] == null) levels--;
+        size--;
+        return x.item;
+    }
+
+    /**
+     * Returns the first element of the list.
+     */
+    public T getFirst() {
+        readLock();
+        try {
+            if (size == 0) throw new NoSuchElementException();
+            return head.next[0].item;
+        }
+        finally {
+            unlockRead();
+        }
+    }
+
+    /**
+     * Returns the last element of the list.
+     */
+    public T getLast() {
+        readLock();
+        try {
+            if (size == 0) throw new NoSuchElementException();
+            return last[0].item;
+        }
+        finally {
+            unlockRead();
+        }
+    }
+
+    /**
+     * Returns the element at the specified position.
+     * @throws IndexOutOfBoundsException unless 0 &le; index &lt; size
+     */
+    public T get(int index) {
+        readLock();
+        try {
+            validateIndex(index, size);
+            return find(front + index).item;
+        }
+        finally {
+            unlockRead();
+        }
+    }
+
+    /**
+     * Replaces the element at the specified position, and returns the old one.
+     * @throws IndexOutOfBoundsException unless 0 &le; index &lt; size
+     */
+    public T set(int index, T data) {
+        writeLock();
+        try {
+            validateIndex(index, size);
+            Node<T> node = find(front + index);
+            T old = node.item;
+            node.item = data;
+            return old;
+        }
+        finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Returns a string representation of this list.
+     * @return the elements in order, separated by spaces
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (T item : this)
+            s.append(item + " ");
+        return s.toString();
+    }
+
+    /**
+     * Returns an iterator that iterates over the elements in order; with
+     * <tt>concurrentReaders</tt>, over a copy of them.
+     */
+    public Iterator<T> iterator() {
+        if (lock == null) return new ListIterator<T>(head.next[0]);
+        readLock();
+        try {
+            Node<T> copy = new Node<T>(null, 1);
+            Node<T> tail = copy;
+            for (Node<T> x = head.next[0]; x != null; x = x.next[0]) {
+                tail.next[0] = new Node<T>(x.item, 1);
+                tail = tail.next[0];
+            }
+            return new ListIterator<T>(copy.next[0]);
+        }
+        finally {
+            unlockRead();
+        }
+    }
+
+    // an iterator along the bottom level, doesn't implement remove() since it's optional
+    private static class ListIterator<E> implements Iterator<E> {
+        private Node<E> current;
+
+        public ListIterator(Node<E> first) {
+            current = first;
+        }
+
+        public boolean hasNext()  { return current != null;                     }
+        public void remove()      { throw new UnsupportedOperationException();  }
+
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            E item = current.item;
+            current = current.next[0];
+            return item;
+        }
+    }
+
+
+    /**
+     * Unit tests the <tt>lists.IndexableSkipList</tt> data type.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        IndexableSkipList<String> list = new IndexableSkipList<String>();
+        for (String s : "b c e".split(" ")) list.addLast(s);
+        list.addFirst("a");
+        list.addAtPos(3, "d");
+        list.addLast("f");
+        System.out.println(list + "get(3): " + list.get(3) + ", removed " + list.removeAtPos(1)
+                           + ", " + list.deleteFirst() + " and " + list.deleteLast() + ": " + list);
+
+        // random operations agree with java.util.ArrayList
+        Random random = new Random(42);
+        IndexableSkipList<Integer> skip = new IndexableSkipList<Integer>();
+        List<Integer> expected = new ArrayList<Integer>();
+        boolean same = true;
+        for (int step = 0; step < 300000; step++) {
+            int op = random.nextInt(8);
+            int x = random.nextInt(1000);
+            if (op == 0) { skip.addFirst(x); expected.add(0, x); }
+            else if (op == 1) { skip.addLast(x); expected.add(x); }
+            else if (op == 2) {
+                int pos = random.nextInt(expected.size() + 1);
+                skip.addAtPos(pos, x);
+                expected.add(pos, x);
+            }
+            else if (expected.isEmpty()) continue;
+            else if (op == 3) same &= skip.deleteFirst().equals(expected.remove(0));
+            else if (op == 4) same &= skip.deleteLast().equals(expected.remove(expected.size() - 1));
+            else if (op == 5) {
+                int pos = random.nextInt(expected.size());
+                same &= skip.removeAtPos(pos).equals(expected.remove(pos));
+            }
+            else {
+                int pos = random.nextInt(expected.size());
+                same &= skip.get(pos).equals(expected.get(pos)) && skip.getLast().equals(expected.get(expected.size() - 1));
+            }
+            same &= skip.size() == expected.size();
+        }
+        int i = 0;
+        for (int item : skip) same &= item == expected.get(i++);
+        System.out.println("agrees with ArrayList: " + same);
+
+        // random positional inserts into N elements
+        IndexableSkipList<Integer> big = new IndexableSkipList<Integer>();
+        DoublyLinkedList<Integer> doubly = new DoublyLinkedList<Integer>();
+        long start = System.nanoTime();
+        for (int k = 0; k < N; k++) big.addLast(k);
+        double buildMs = (System.nanoTime() - start) / 1e6;
+        for (int k = 0; k < N; k++) doubly.addLast(k);
+        int M = 100000;
+        start = System.nanoTime();
+        for (int k = 0; k < M; k++) big.addAtPos(random.nextInt(big.size() + 1), k);
+        double skipUs = (System.nanoTime() - start) / 1e3 / M;
+        start = System.nanoTime();
+        for (int k = 0; k < 1000; k++) doubly.addAtPos(1 + random.nextInt(N - 1), k);
+        double doublyUs = (System.nanoTime() - start) / 1e3 / 1000;
+        System.out.printf("%d elements: addLast %.1f ms in all; addAtPos %.2f us, DoublyLinkedList %.1f us%n",
+                          N, buildMs, skipUs, doublyUs);
+
+        // 3 threads read while one inserts and removes
+        IndexableSkipList<Integer> shared = new IndexableSkipList<Integer>(true);
+        for (int k = 0; k < N; k++) shared.addLast(k);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong reads = new AtomicLong();
+        AtomicBoolean valid = new AtomicBoolean(true);
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                Random r = new Random();
+                long count = 0;
+                while (!stop.get()) {
+                    // the writer only ever moves elements up, and replaces them with -1
+                    int pos = r.nextInt(N);
+                    if (shared.get(pos) > pos) valid.set(false);
+                    count++;
+                }
+                reads.addAndGet(count);
+            });
+            readers[t].start();
+        }
+        start = System.nanoTime();
+        for (int k = 0; k < M; k++) {
+            int pos = random.nextInt(N);
+            shared.addAtPos(pos, -1);
+            shared.removeAtPos(pos + 1);
+        }
+        stop.set(true);
+        for (Thread reader : readers) reader.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("concurrent readers: %s, %.0f reads/s alongside %.0f writes/s%n",
+                          valid.get() && shared.size() == N ? "consistent" : "WRONG", reads.get() / seconds, 2 * M / seconds);
+    }
+}
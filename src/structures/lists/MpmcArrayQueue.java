@@ -0,0 +1,252 @@
+package structures.lists;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/*************************************************************************
+ *  Compilation:  javac MpmcArrayQueue.java
+ *  Execution:    java MpmcArrayQueue
+ *  Dependencies: none
+ *
+ *  Bounded lock-free multi-producer, multi-consumer queue.
+ *
+ *  % java MpmcArrayQueue
+ *  Capacity: 8
+ *  Offered: 8
+ *  Polled: 1, peek: 2
+ *  Drained 4: 2 3 4 5
+ *  Size: 3
+ *  4 producers, 4 consumers: sum correct in 307.4 ms
+ *
+ *************************************************************************/
+
+/**
+ * A bounded lock-free queue for any number of producer and consumer threads,
+ * the ring buffer of Dmitry Vyukov.
+ * <p>
+ * Every slot of the ring has a sequence number that says whose turn it is:
+ * slot <tt>i</tt> is free for the producer of position <tt>p</tt> when its sequence
+ * is <tt>p</tt>, and full for the consumer of position <tt>p</tt> when it is
+ * <tt>p + 1</tt>. A producer claims position <tt>tail</tt> with a compare-and-set,
+ * stores the item, then publishes it by setting the sequence to <tt>tail + 1</tt>;
+ * a consumer claims <tt>head</tt> the same way and hands the slot back to the
+ * producers of the next lap by setting the sequence to <tt>head + capacity</tt>.
+ * Threads only contend on the counter they move, never on a lock, and a
+ * full or empty queue is detected without touching the other counter.
+ * <p>
+ * <tt>head</tt> and <tt>tail</tt> live 128 bytes apart in one array, so producers
+ * and consumers do not invalidate each other's cache line (or its neighbor,
+ * which many CPUs prefetch together).
+ * <p>
+ * The capacity is rounded up to a power of two. A thread that stalls between
+ * claiming a slot and publishing it holds up the threads on the other side
+ * of that slot, but never threads on the same side.
+ * For one producer or one consumer, {@link MpscArrayQueue} and
+ * {@link SpscArrayQueue} need fewer atomic operations.
+ */
+public class MpmcArrayQueue<T> {
+    private static final int HEAD = 8, TAIL = 24;   // indices 128 bytes apart
+
+    private final Object[] buffer;
+    private final AtomicLongArray sequence;   // sequence[i] = position slot i waits for
+    private final AtomicLongArray counters;   // counters[HEAD], counters[TAIL]
+    private final int mask;
+
+    /**
+     * Initializes an empty queue.
+     * @param capacity the least number of items the queue holds, rounded up to a power of two
+     * @throws IllegalArgumentException if <tt>capacity</tt> &lt; 2 or &gt; 2<sup>30</sup>
+     */
+    public MpmcArrayQueue(int capacity) {
+        if (capacity < 2 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30");
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Object[size];
+        sequence = new AtomicLongArray(size);
+        counters = new AtomicLongArray(40);
+        mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequence.set(i, i);
+        }
+    }
+
+    /**
+     * Returns the number of items the queue holds.
+     * @return the capacity
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Returns the number of items in the queue, which may be out of date as soon
+     * as it is returned.
+     * @return the number of items, between 0 and the capacity
+     */
+    public int size() {
+        while (true) {
+            long head = counters.get(HEAD);
+            long tail = counters.get(TAIL);
+            if (head == counters.get(HEAD)) return (int) Math.max(0, Math.min(buffer.length, tail - head));
+        }
+    }
+
+    /**
+     * Is the queue empty?
+     * @return true if no item was in the queue at some moment during the call
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Adds the item to the queue, if there is room.
+     * @param item the item
+     * @return true if the item was added, false if the queue was full
+     * @throws IllegalArgumentException if <tt>item</tt> is null
+     */
+    public boolean offer(T item) {
+        if (item == null) throw new IllegalArgumentException("Null items are not allowed");
+        while (true) {
+            long tail = counters.get(TAIL);
+            int slot = (int) tail & mask;
+            long seq = sequence.get(slot);
+            if (seq == tail) {
+                if (counters.compareAndSet(TAIL, tail, tail + 1)) {
+                    buffer[slot] = item;
+                    sequence.lazySet(slot, tail + 1);
+                    return true;
+                }
+            }
+            else if (seq < tail) {
+                // the consumer of the previous lap has not freed the slot
+                return false;
+            }
+            // else another producer claimed tail first
+        }
+    }
+
+    /**
+     * Adds items <tt>from</tt> to <tt>to</tt> - 1 of <tt>items</tt> in order, until the queue is full.
+     * @param items the items
+     * @param from the index of the first item
+     * @param to the index after the last item
+     * @return the number of items added, from the start of the range
+     * @throws IllegalArgumentException if one of the items is null
+     */
+    public int offerAll(T[] items, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to && offer(items[i]); i++) count++;
+        return count;
+    }
+
+    /**
+     * Adds the items of <tt>items</tt> in order, until the queue is full.
+     * @param items the items
+     * @return the number of items added, from the start of the array
+     * @throws IllegalArgumentException if one of the items is null
+     */
+    public int offerAll(T[] items) {
+        return offerAll(items, 0, items.length);
+    }
+
+    /**
+     * Removes and returns the item least recently added to the queue.
+     * @return the item, or null if the queue is empty
+     */
+    public T poll() {
+        while (true) {
+            long head = counters.get(HEAD);
+            int slot = (int) head & mask;
+            long seq = sequence.get(slot);
+            if (seq == head + 1) {
+                if (counters.compareAndSet(HEAD, head, head + 1)) {
+                    T item = (T) buffer[slot];
+                    buffer[slot] = null;
+                    sequence.lazySet(slot, head + buffer.length);
+                    return item;
+                }
+            }
+            else if (seq < head + 1) {
+                // the producer of this position has not published yet
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Returns the item least recently added to the queue, without removing it.
+     * Another consumer may remove it at once.
+     * @return the item, or null if the queue is empty
+     */
+    public T peek() {
+        while (true) {
+            long head = counters.get(HEAD);
+            int slot = (int) head & mask;
+            long seq = sequence.get(slot);
+            if (seq < head + 1) return null;
+            T item = (T) buffer[slot];
+            if (item != null && sequence.get(slot) == head + 1 && counters.get(HEAD) == head) return item;
+        }
+    }
+
+    /**
+     * Removes up to <tt>max</tt> items and passes them to <tt>consumer</tt> in order.
+     * @param consumer the receiver of the items
+     * @param max the largest number of items to remove
+     * @return the number of items removed
+     */
+    public int drainTo(Consumer<? super T> consumer, int max) {
+        int count = 0;
+        while (count < max) {
+            T item = poll();
+            if (item == null) break;
+            consumer.accept(item);
+            count++;
+        }
+        return count;
+    }
+
+
+    /**
+     * Unit tests the <tt>MpmcArrayQueue</tt> data type.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        MpmcArrayQueue<Integer> queue = new MpmcArrayQueue<Integer>(5);
+        System.out.println("Capacity: " + queue.capacity());
+        System.out.println("Offered: " + queue.offerAll(new Integer[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}));
+        System.out.println("Polled: " + queue.poll() + ", peek: " + queue.peek());
+        StringBuilder drained = new StringBuilder();
+        System.out.println("Drained " + queue.drainTo(x -> drained.append(x).append(' '), 4) + ": " + drained);
+        System.out.println("Size: " + queue.size());
+
+        // 4 producers and 4 consumers pass 1000000 numbers each
+        final int N = 1000000;
+        MpmcArrayQueue<Integer> shared = new MpmcArrayQueue<Integer>(1024);
+        long[] sums = new long[4];
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < 4; t++) {
+            final int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < N; i++) {
+                    while (!shared.offer(i)) Thread.yield();
+                }
+            });
+            threads[4 + t] = new Thread(() -> {
+                long sum = 0;
+                for (int n = 0; n < N; ) {
+                    Integer x = shared.poll();
+                    if (x == null) Thread.yield();
+                    else { sum += x; n++; }
+                }
+                sums[id] = sum;
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        long total = sums[0] + sums[1] + sums[2] + sums[3];
+        System.out.printf("4 producers, 4 consumers: sum %s in %.1f ms%n",
+                          total == 4L * N * (N - 1) / 2 ? "correct" : "WRONG", (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,242 @@
+package structures.lists;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/*************************************************************************
+ *  Compilation:  javac MpscArrayQueue.java
+ *  Execution:    java MpscArrayQueue
+ *  Dependencies: none
+ *
+ *  Bounded lock-free multi-producer, single-consumer queue.
+ *
+ *  % java MpscArrayQueue
+ *  Capacity: 8
+ *  Offered: 8
+ *  Polled: 1, peek: 2
+ *  Drained 4: 2 3 4 5
+ *  Size: 3
+ *  4 producers, 1 consumer: in order in 254.2 ms
+ *
+ *************************************************************************/
+
+/**
+ * A bounded lock-free queue for any number of producer threads and a single
+ * consumer thread, such as the work queue of an event loop.
+ * <p>
+ * Producers work as in {@link MpmcArrayQueue}: each one claims a position with
+ * a compare-and-set on <tt>tail</tt> and publishes its item through the sequence
+ * number of the slot. Only one thread ever moves <tt>head</tt>, so the consumer
+ * needs no compare-and-set at all: it checks the sequence of the next slot,
+ * takes the item and frees the slot with ordered stores.
+ * {@link #drainTo(Consumer, int)} frees every slot as soon as it is read, but
+ * stores <tt>head</tt> once for the whole batch.
+ * <p>
+ * {@link #poll()}, {@link #peek()} and {@link #drainTo(Consumer, int)} must only
+ * be called by one thread at a time; any thread may call the other methods.
+ */
+public class MpscArrayQueue<T> {
+    private static final int HEAD = 8, TAIL = 24;   // indices 128 bytes apart
+
+    private final Object[] buffer;
+    private final AtomicLongArray sequence;   // sequence[i] = position slot i waits for
+    private final AtomicLongArray counters;   // counters[HEAD], counters[TAIL]
+    private final int mask;
+
+    /**
+     * Initializes an empty queue.
+     * @param capacity the least number of items the queue holds, rounded up to a power of two
+     * @throws IllegalArgumentException if <tt>capacity</tt> &lt; 2 or &gt; 2<sup>30</sup>
+     */
+    public MpscArrayQueue(int capacity) {
+        if (capacity < 2 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30");
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Object[size];
+        sequence = new AtomicLongArray(size);
+        counters = new AtomicLongArray(40);
+        mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequence.set(i, i);
+        }
+    }
+
+    /**
+     * Returns the number of items the queue holds.
+     * @return the capacity
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Returns the number of items in the queue, which may be out of date as soon
+     * as it is returned.
+     * @return the number of items, between 0 and the capacity
+     */
+    public int size() {
+        while (true) {
+            long head = counters.get(HEAD);
+            long tail = counters.get(TAIL);
+            if (head == counters.get(HEAD)) return (int) Math.max(0, Math.min(buffer.length, tail - head));
+        }
+    }
+
+    /**
+     * Is the queue empty?
+     * @return true if no item was in the queue at some moment during the call
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Adds the item to the queue, if there is room.
+     * @param item the item
+     * @return true if the item was added, false if the queue was full
+     * @throws IllegalArgumentException if <tt>item</tt> is null
+     */
+    public boolean offer(T item) {
+        if (item == null) throw new IllegalArgumentException("Null items are not allowed");
+        while (true) {
+            long tail = counters.get(TAIL);
+            int slot = (int) tail & mask;
+            long seq = sequence.get(slot);
+            if (seq == tail) {
+                if (counters.compareAndSet(TAIL, tail, tail + 1)) {
+                    buffer[slot] = item;
+                    sequence.lazySet(slot, tail + 1);
+                    return true;
+                }
+            }
+            else if (seq < tail) {
+                // the consumer has not freed the slot of the previous lap
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Adds items <tt>from</tt> to <tt>to</tt> - 1 of <tt>items</tt> in order, until the queue is full.
+     * Items of other producers may come in between.
+     * @param items the items
+     * @param from the index of the first item
+     * @param to the index after the last item
+     * @return the number of items added, from the start of the range
+     * @throws IllegalArgumentException if one of the items is null
+     */
+    public int offerAll(T[] items, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to && offer(items[i]); i++) count++;
+        return count;
+    }
+
+    /**
+     * Adds the items of <tt>items</tt> in order, until the queue is full.
+     * @param items the items
+     * @return the number of items added, from the start of the array
+     * @throws IllegalArgumentException if one of the items is null
+     */
+    public int offerAll(T[] items) {
+        return offerAll(items, 0, items.length);
+    }
+
+    /**
+     * Removes and returns the item least recently added to the queue.
+     * Only the consumer thread may call it.
+     * @return the item, or null if the queue is empty
+     */
+    public T poll() {
+        long head = counters.get(HEAD);
+        int slot = (int) head & mask;
+        if (sequence.get(slot) != head + 1) return null;
+        T item = (T) buffer[slot];
+        buffer[slot] = null;
+        sequence.lazySet(slot, head + buffer.length);
+        counters.lazySet(HEAD, head + 1);
+        return item;
+    }
+
+    /**
+     * Returns the item least recently added to the queue, without removing it.
+     * Only the consumer thread may call it.
+     * @return the item, or null if the queue is empty
+     */
+    public T peek() {
+        long head = counters.get(HEAD);
+        int slot = (int) head & mask;
+        if (sequence.get(slot) != head + 1) return null;
+        return (T) buffer[slot];
+    }
+
+    /**
+     * Removes up to <tt>max</tt> items and passes them to <tt>consumer</tt> in order.
+     * Only the consumer thread may call it. If <tt>consumer</tt> throws an
+     * exception, the items it was passed are removed and the others stay.
+     * @param consumer the receiver of the items
+     * @param max the largest number of items to remove
+     * @return the number of items removed
+     */
+    public int drainTo(Consumer<? super T> consumer, int max) {
+        long head = counters.get(HEAD);
+        int count = 0;
+        try {
+            while (count < max) {
+                long position = head + count;
+                int slot = (int) position & mask;
+                if (sequence.get(slot) != position + 1) break;
+                T item = (T) buffer[slot];
+                buffer[slot] = null;
+                sequence.lazySet(slot, position + buffer.length);
+                count++;
+                consumer.accept(item);
+            }
+        }
+        finally {
+            counters.lazySet(HEAD, head + count);
+        }
+        return count;
+    }
+
+
+    /**
+     * Unit tests the <tt>MpscArrayQueue</tt> data type.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<Integer>(5);
+        System.out.println("Capacity: " + queue.capacity());
+        System.out.println("Offered: " + queue.offerAll(new Integer[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}));
+        System.out.println("Polled: " + queue.poll() + ", peek: " + queue.peek());
+        StringBuilder drained = new StringBuilder();
+        System.out.println("Drained " + queue.drainTo(x -> drained.append(x).append(' '), 4) + ": " + drained);
+        System.out.println("Size: " + queue.size());
+
+        // 4 producers pass 1000000 numbers each to one consumer, which checks
+        // that the numbers of every producer arrive in order
+        final int N = 1000000;
+        MpscArrayQueue<Integer> shared = new MpscArrayQueue<Integer>(1024);
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < 4; t++) {
+            final int id = t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < N; i++) {
+                    while (!shared.offer(4 * i + id)) Thread.yield();
+                }
+            });
+        }
+        int[] next = new int[4];
+        boolean[] ordered = { true };
+        long start = System.nanoTime();
+        for (Thread t : producers) t.start();
+        for (int n = 0; n < 4 * N; ) {
+            int drains = shared.drainTo(x -> {
+                if (x / 4 != next[x % 4]++) ordered[0] = false;
+            }, 256);
+            if (drains == 0) Thread.yield();
+            n += drains;
+        }
+        for (Thread t : producers) t.join();
+        System.out.printf("4 producers, 1 consumer: %s in %.1f ms%n",
+                          ordered[0] && shared.isEmpty() ? "in order" : "WRONG", (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -3,6 +3,9 @@ package structures.lists;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+/**
+ * A linked FIFO queue for one thread; for a queue shared between threads see {@link ConcurrentQueue}.
+ */
 public class Queue<T> implements Iterable<T> {
 
     private int N;               // number of elements on queue
@@ -7,6 +7,8 @@ import java.util.NoSuchElementException;
  * Java program to implement a Singly Linked List.
  * <p>
  * based on https://devwithus.com/implement-linked-list-java/
+ * <p>
+ * For long lists, {@link UnrolledLinkedList} stores many elements per node.
  */
 public class SinglyLinkedList<T> {
     private Node<T> head;
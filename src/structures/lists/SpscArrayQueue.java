@@ -0,0 +1,253 @@
+package structures.lists;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/*************************************************************************
+ *  Compilation:  javac SpscArrayQueue.java
+ *  Execution:    java SpscArrayQueue
+ *  Dependencies: none
+ *
+ *  Bounded lock-free single-producer, single-consumer queue.
+ *
+ *  % java SpscArrayQueue
+ *  Capacity: 8
+ *  Offered: 8
+ *  Polled: 1, peek: 2
+ *  Drained 4: 2 3 4 5
+ *  Size: 3
+ *  1 producer, 1 consumer: in order in 160.9 ms
+ *
+ *************************************************************************/
+
+/**
+ * A bounded lock-free queue between one producer thread and one consumer
+ * thread, such as the stages of a pipeline.
+ * <p>
+ * This is Lamport's circular buffer: the producer alone moves <tt>tail</tt> and
+ * the consumer alone moves <tt>head</tt>, so no compare-and-set and no
+ * per-slot sequence is needed. The producer writes the item before it stores
+ * the new <tt>tail</tt>, and the consumer clears the slot before it stores the
+ * new <tt>head</tt>; these ordered stores are all that publishes an item or
+ * frees a slot. Each side also keeps a private copy of the other side's
+ * counter and only reads the shared one again when the copy says the queue
+ * is full, or empty, so most operations never touch the other side's cache
+ * line. {@link #offerAll(Object[], int, int)} and {@link #drainTo(Consumer, int)}
+ * store their counter once for the whole batch.
+ * <p>
+ * <tt>head</tt>, <tt>tail</tt> and the two private copies are 128 bytes apart.
+ * {@link #offer(Object)} and {@link #offerAll(Object[])} must only be called
+ * by one thread at a time, and {@link #poll()}, {@link #peek()} and
+ * {@link #drainTo(Consumer, int)} by one thread at a time; any thread may
+ * call the other methods.
+ */
+public class SpscArrayQueue<T> {
+    private static final int HEAD = 8, TAIL = 24;                   // indices 128 bytes apart
+    private static final int HEAD_CACHE = 8, TAIL_CACHE = 24;
+
+    private final Object[] buffer;
+    private final AtomicLongArray counters;   // counters[HEAD], counters[TAIL]
+    private final long[] cache;               // cache[HEAD_CACHE] for the producer, cache[TAIL_CACHE] for the consumer
+    private final int mask;
+
+    /**
+     * Initializes an empty queue.
+     * @param capacity the least number of items the queue holds, rounded up to a power of two
+     * @throws IllegalArgumentException if <tt>capacity</tt> &lt; 2 or &gt; 2<sup>30</sup>
+     */
+    public SpscArrayQueue(int capacity) {
+        if (capacity < 2 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30");
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Object[size];
+        counters = new AtomicLongArray(40);
+        cache = new long[40];
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the number of items the queue holds.
+     * @return the capacity
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Returns the number of items in the queue, which may be out of date as soon
+     * as it is returned.
+     * @return the number of items, between 0 and the capacity
+     */
+    public int size() {
+        while (true) {
+            long head = counters.get(HEAD);
+            long tail = counters.get(TAIL);
+            if (head == counters.get(HEAD)) return (int) Math.max(0, Math.min(buffer.length, tail - head));
+        }
+    }
+
+    /**
+     * Is the queue empty?
+     * @return true if no item was in the queue at some moment during the call
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Adds the item to the queue, if there is room. Only the producer thread may call it.
+     * @param item the item
+     * @return true if the item was added, false if the queue was full
+     * @throws IllegalArgumentException if <tt>item</tt> is null
+     */
+    public boolean offer(T item) {
+        if (item == null) throw new IllegalArgumentException("Null items are not allowed");
+        long tail = counters.get(TAIL);
+        if (tail - cache[HEAD_CACHE] == buffer.length) {
+            cache[HEAD_CACHE] = counters.get(HEAD);
+            if (tail - cache[HEAD_CACHE] == buffer.length) return false;
+        }
+        buffer[(int) tail & mask] = item;
+        counters.lazySet(TAIL, tail + 1);
+        return true;
+    }
+
+    /**
+     * Adds items <tt>from</tt> to <tt>to</tt> - 1 of <tt>items</tt> in order, as many as there
+     * is room for. Only the producer thread may call it.
+     * @param items the items
+     * @param from the index of the first item
+     * @param to the index after the last item
+     * @return the number of items added, from the start of the range
+     * @throws IllegalArgumentException if one of the items to add is null; then none is added
+     */
+    public int offerAll(T[] items, int from, int to) {
+        long tail = counters.get(TAIL);
+        int n = to - from;
+        if (n > buffer.length - (tail - cache[HEAD_CACHE])) {
+            cache[HEAD_CACHE] = counters.get(HEAD);
+            n = (int) Math.min(n, buffer.length - (tail - cache[HEAD_CACHE]));
+        }
+        if (n <= 0) return 0;
+        for (int i = from; i < from + n; i++) {
+            if (items[i] == null) throw new IllegalArgumentException("Null items are not allowed");
+        }
+        for (int i = 0; i < n; i++) {
+            buffer[(int) (tail + i) & mask] = items[from + i];
+        }
+        counters.lazySet(TAIL, tail + n);
+        return n;
+    }
+
+    /**
+     * Adds the items of <tt>items</tt> in order, as many as there is room for.
+     * Only the producer thread may call it.
+     * @param items the items
+     * @return the number of items added, from the start of the array
+     * @throws IllegalArgumentException if one of the items to add is null; then none is added
+     */
+    public int offerAll(T[] items) {
+        return offerAll(items, 0, items.length);
+    }
+
+    /**
+     * Removes and returns the item least recently added to the queue.
+     * Only the consumer thread may call it.
+     * @return the item, or null if the queue is empty
+     */
+    public T poll() {
+        long head = counters.get(HEAD);
+        if (head == cache[TAIL_CACHE]) {
+            cache[TAIL_CACHE] = counters.get(TAIL);
+            if (head == cache[TAIL_CACHE]) return null;
+        }
+        int slot = (int) head & mask;
+        T item = (T) buffer[slot];
+        buffer[slot] = null;
+        counters.lazySet(HEAD, head + 1);
+        return item;
+    }
+
+    /**
+     * Returns the item least recently added to the queue, without removing it.
+     * Only the consumer thread may call it.
+     * @return the item, or null if the queue is empty
+     */
+    public T peek() {
+        long head = counters.get(HEAD);
+        if (head == cache[TAIL_CACHE]) {
+            cache[TAIL_CACHE] = counters.get(TAIL);
+            if (head == cache[TAIL_CACHE]) return null;
+        }
+        return (T) buffer[(int) head & mask];
+    }
+
+    /**
+     * Removes up to <tt>max</tt> items and passes them to <tt>consumer</tt> in order.
+     * Only the consumer thread may call it. If <tt>consumer</tt> throws an
+     * exception, the items it was passed are removed and the others stay.
+     * @param consumer the receiver of the items
+     * @param max the largest number of items to remove
+     * @return the number of items removed
+     */
+    public int drainTo(Consumer<? super T> consumer, int max) {
+        long head = counters.get(HEAD);
+        if (cache[TAIL_CACHE] - head < max) cache[TAIL_CACHE] = counters.get(TAIL);
+        int n = (int) Math.min(max, cache[TAIL_CACHE] - head);
+        int count = 0;
+        try {
+            while (count < n) {
+                int slot = (int) (head + count) & mask;
+                T item = (T) buffer[slot];
+                buffer[slot] = null;
+                count++;
+                consumer.accept(item);
+            }
+        }
+        finally {
+            if (count > 0) counters.lazySet(HEAD, head + count);
+        }
+        return count;
+    }
+
+
+    /**
+     * Unit tests the <tt>SpscArrayQueue</tt> data type.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        SpscArrayQueue<Integer> queue = new SpscArrayQueue<Integer>(5);
+        System.out.println("Capacity: " + queue.capacity());
+        System.out.println("Offered: " + queue.offerAll(new Integer[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}));
+        System.out.println("Polled: " + queue.poll() + ", peek: " + queue.peek());
+        StringBuilder drained = new StringBuilder();
+        System.out.println("Drained " + queue.drainTo(x -> drained.append(x).append(' '), 4) + ": " + drained);
+        System.out.println("Size: " + queue.size());
+
+        // one producer passes 10000000 numbers in batches to one consumer,
+        // which checks that they arrive in order
+        final int N = 10000000;
+        SpscArrayQueue<Integer> shared = new SpscArrayQueue<Integer>(1024);
+        Integer[] numbers = new Integer[N];
+        for (int i = 0; i < N; i++) numbers[i] = i;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < N; ) {
+                int offered = shared.offerAll(numbers, i, Math.min(N, i + 64));
+                if (offered == 0) Thread.yield();
+                i += offered;
+            }
+        });
+        int[] next = { 0 };
+        boolean[] ordered = { true };
+        long start = System.nanoTime();
+        producer.start();
+        while (next[0] < N) {
+            int drains = shared.drainTo(x -> {
+                if (x != next[0]++) ordered[0] = false;
+            }, 256);
+            if (drains == 0) Thread.yield();
+        }
+        producer.join();
+        System.out.printf("1 producer, 1 consumer: %s in %.1f ms%n",
+                          ordered[0] && shared.isEmpty() ? "in order" : "WRONG", (System.nanoTime() - start) / 1e6);
+    }
+}
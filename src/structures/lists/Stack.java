@@ -3,6 +3,9 @@ package structures.lists;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+/**
+ * A linked stack for one thread; for a stack shared between threads see {@link ConcurrentStack}.
+ */
 public class Stack<T> implements Iterable<T> {
     private int N;             // size of the stack
     private Node<T> head;     // top of stack
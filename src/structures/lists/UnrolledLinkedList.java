@@ -0,0 +1,574 @@
+package structures.lists;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/*************************************************************************
+ *  Compilation:  javac UnrolledLinkedList.java
+ *  Execution:    java UnrolledLinkedList
+ *  Dependencies: SinglyLinkedList.java DoublyLinkedList.java
+ *
+ *  Doubly linked list of small arrays, compared with the one-node-per-
+ *  element lists on a million elements.
+ *
+ *  % java UnrolledLinkedList
+ *  R A C E C A R palindrome: true, nodes: 2
+ *  Y R A Z E X C A R 3rd to last: C, get(4): E
+ *  R A C X E Z A R Y palindrome: false, nodes: 3
+ *  agrees with ArrayList: true
+ *  1000000 elements   bytes/element   1000 gets ms
+ *    singly              24.0         1452.6
+ *    doubly              24.0         1411.5
+ *    unrolled             4.8           38.2
+ *
+ *************************************************************************/
+
+/**
+ * The <tt>UnrolledLinkedList</tt> class is a list with the operations of
+ * {@link SinglyLinkedList} and {@link DoublyLinkedList} that stores up to
+ * <tt>B</tt> elements in each node instead of one: a doubly linked list of
+ * small arrays, each with the count of the elements it holds.
+ * <p>
+ * A node is split in two halves when an insertion finds it full. When a removal
+ * leaves a node less than half full, it takes elements from a neighbor, or is
+ * merged with the neighbor if they fit in one node together. Every node but the
+ * first and the last is therefore at least half full, and appending fills the
+ * nodes completely, so with <tt>B</tt> = 64 the list uses 5 to 10 bytes per
+ * element instead of the 24 of a node of either linked list (with compressed
+ * references), besides the elements themselves.
+ * <p>
+ * Positional operations skip whole nodes by their counts, from the end that is
+ * closer, and take time proportional to <em>N</em>/<tt>B</tt> + <tt>B</tt>;
+ * the elements of a node are contiguous, so scans touch a cache line for
+ * every few elements rather than one for each. Operations at either end take
+ * time proportional to <tt>B</tt> at worst, and constant time when appending.
+ */
+public class UnrolledLinkedList<T> implements Iterable<T> {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final int capacity;   // B, elements per node
+    private Node head;
+    private Node tail;
+    private int size;
+    private int offset;           // position within the node last returned by node(int)
+
+    private static class Node {
+        private final Object[] items;
+        private int count;
+        private Node next;
+        private Node previous;
+
+        public Node(int capacity) {
+            items = new Object[capacity];
+        }
+    }
+
+    /**
+     * Initializes an empty list with 64 elements per node.
+     */
+    public UnrolledLinkedList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes an empty list.
+     * @param capacity the number of elements per node
+     * @throws IllegalArgumentException if <tt>capacity</tt> &lt; 4
+     */
+    public UnrolledLinkedList(int capacity) {
+        if (capacity < 4) throw new IllegalArgumentException("Capacity must be 4 or higher");
+        this.capacity = capacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of nodes.
+     */
+    public int nodes() {
+        int nodes = 0;
+        for (Node node = head; node != null; node = node.next) nodes++;
+        return nodes;
+    }
+
+    // the node of element index, with its position in the node in offset
+    private Node node(int index) {
+        if (index < size / 2) {
+            Node node = head;
+            while (index >= node.count) {
+                index -= node.count;
+                node = node.next;
+            }
+            offset = index;
+            return node;
+        }
+        Node node = tail;
+        int before = size - node.count;
+        while (index < before) {
+            node = node.previous;
+            before -= node.count;
+        }
+        offset = index - before;
+        return node;
+    }
+
+    private void validateIndex(int index, int bound) {
+        if (index < 0 || index >= bound)
+            throw new IndexOutOfBoundsException("index " + index + " is not between 0 and " + (bound - 1));
+    }
+
+    // a new empty node after node (at the front if node is null)
+    private Node linkAfter(Node node) {
+        Node created = new Node(capacity);
+        created.previous = node;
+        created.next = node == null ? head : node.next;
+        if (created.next != null) created.next.previous = created;
+        else tail = created;
+        if (node != null) node.next = created;
+        else head = created;
+        return created;
+    }
+
+    private void unlink(Node node) {
+        if (node.previous != null) node.previous.next = node.next;
+        else head = node.next;
+        if (node.next != null) node.next.previous = node.previous;
+        else tail = node.previous;
+    }
+
+    // inserts data at position i of node
+    private void insert(Node node, int i, T data) {
+        if (node.count == capacity) {
+            // split: the upper half goes to a new node
+            Node upper = linkAfter(node);
+            int half = capacity / 2;
+            System.arraycopy(node.items, half, upper.items, 0, capacity - half);
+            Arrays.fill(node.items, half, capacity, null);
+            upper.count = capacity - half;
+            node.count = half;
+            if (i > half) {
+                node = upper;
+                i -= half;
+            }
+        }
+        System.arraycopy(node.items, i, node.items, i + 1, node.count - i);
+        node.items[i] = data;
+        node.count++;
+        size++;
+    }
+
+    // removes and returns the element at position i of node
+    private T delete(Node node, int i) {
+        T data = (T) node.items[i];
+        System.arraycopy(node.items, i + 1, node.items, i, node.count - i - 1);
+        node.items[--node.count] = null;
+        size--;
+        rebalance(node);
+        return data;
+    }
+
+    // restores the half-full invariant of node after a removal
+    private void rebalance(Node node) {
+        int half = capacity / 2;
+        if (node.count >= half) return;
+        if (node.count == 0) {
+            unlink(node);
+            return;
+        }
+        if (node.next != null) {
+            Node next = node.next;
+            if (node.count + next.count <= capacity) {
+                moveFront(next, node, next.count);
+                unlink(next);
+            }
+            else moveFront(next, node, half - node.count);
+        }
+        else if (node.previous != null) {
+            Node previous = node.previous;
+            if (previous.count + node.count <= capacity) {
+                moveFront(node, previous, node.count);
+                unlink(node);
+            }
+            else {
+                // the last node takes the last elements of the one before it
+                int n = half - node.count;
+                System.arraycopy(node.items, 0, node.items, n, node.count);
+                System.arraycopy(previous.items, previous.count - n, node.items, 0, n);
+                Arrays.fill(previous.items, previous.count - n, previous.count, null);
+                previous.count -= n;
+                node.count += n;
+            }
+        }
+    }
+
+    // moves the first n elements of from to the end of to
+    private static void moveFront(Node from, Node to, int n) {
+        System.arraycopy(from.items, 0, to.items, to.count, n);
+        System.arraycopy(from.items, n, from.items, 0, from.count - n);
+        Arrays.fill(from.items, from.count - n, from.count, null);
+        to.count += n;
+        from.count -= n;
+    }
+
+    /**
+     * Add a new item at the beginning of the list.
+     */
+    public void addFirst(T data) {
+        if (head == null || head.count == capacity) linkAfter(null);
+        insert(head, 0, data);
+    }
+
+    /**
+     * Add a new item to the end of the list.
+     */
+    public void addLast(T data) {
+        if (tail == null || tail.count == capacity) linkAfter(tail);
+        tail.items[tail.count++] = data;
+        size++;
+    }
+
+    /**
+     * Insert a new item at a specific position.
+     * @throws IndexOutOfBoundsException unless 0 &le; index &le; size
+     */
+    public void addAtPos(int index, T data) {
+        validateIndex(index, size + 1);
+        if (index == size) addLast(data);
+        else if (index == 0) addFirst(data);
+        else {
+            Node node = node(index);
+            insert(node, offset, data);
+        }
+    }
+
+    /**
+     * Delete an item at the beginning of the list.
+     */
+    public T deleteFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return delete(head, 0);
+    }
+
+    /**
+     * Delete an item at the end of the list.
+     */
+    public T deleteLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+        T data = (T) tail.items[--tail.count];
+        tail.items[tail.count] = null;
+        size--;
+        if (tail.count == 0) unlink(tail);
+        return data;
+    }
+
+    /**
+     * Delete the item at a specific position.
+     * @throws IndexOutOfBoundsException unless 0 &le; index &lt; size
+     */
+    public T removeAtPos(int index) {
+        validateIndex(index, size);
+        Node node = node(index);
+        return delete(node, offset);
+    }
+
+    /**
+     * Removes the first occurrence of the specified element.
+     * @return true if the list contained the element
+     */
+    public boolean remove(T key) {
+        for (Node node = head; node != null; node = node.next) {
+            for (int i = 0; i < node.count; i++) {
+                if (equal(node.items[i], key)) {
+                    delete(node, i);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Returns the position of the first occurrence of the specified element, -1 if there is none.
+     */
+    public int indexOf(T key) {
+        int before = 0;
+        for (Node node = head; node != null; node = node.next) {
+            for (int i = 0; i < node.count; i++) {
+                if (equal(node.items[i], key)) return before + i;
+            }
+            before += node.count;
+        }
+        return -1;
+    }
+
+    public boolean contains(T key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the first element of the list.
+     */
+    public T getFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return (T) head.items[0];
+    }
+
+    /**
+     * Returns the last element of the list.
+     */
+    public T getLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return (T) tail.items[tail.count - 1];
+    }
+
+    /**
+     * Returns the element at the specified position.
+     * @throws IndexOutOfBoundsException unless 0 &le; pos &lt; size
+     */
+    public T get(int pos) {
+        validateIndex(pos, size);
+        Node node = node(pos);
+        return (T) node.items[offset];
+    }
+
+    /**
+     * Replaces the element at the specified position, and returns the old one.
+     * @throws IndexOutOfBoundsException unless 0 &le; pos &lt; size
+     */
+    public T set(int pos, T data) {
+        validateIndex(pos, size);
+        Node node = node(pos);
+        T old = (T) node.items[offset];
+        node.items[offset] = data;
+        return old;
+    }
+
+    /**
+     * Add a new element after the element containing the specified key.
+     */
+    public void insertAfter(T key, T toInsert) {
+        for (Node node = head; node != null; node = node.next) {
+            for (int i = 0; i < node.count; i++) {
+                if (equal(node.items[i], key)) {
+                    if (node == tail && i == node.count - 1) addLast(toInsert);
+                    else insert(node, i + 1, toInsert);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a new element before the element containing the given key.
+     */
+    public void insertBefore(T key, T toInsert) {
+        for (Node node = head; node != null; node = node.next) {
+            for (int i = 0; i < node.count; i++) {
+                if (equal(node.items[i], key)) {
+                    insert(node, i, toInsert);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reverse the list: the order of the nodes and the elements within each node.
+     */
+    public void reverseList() {
+        Node node = head;
+        while (node != null) {
+            for (int i = 0, j = node.count - 1; i < j; i++, j--) {
+                Object swap = node.items[i];
+                node.items[i] = node.items[j];
+                node.items[j] = swap;
+            }
+            Node next = node.next;
+            node.next = node.previous;
+            node.previous = next;
+            node = next;
+        }
+        Node swap = head;
+        head = tail;
+        tail = swap;
+    }
+
+    /**
+     * Get k-th element from the tail, the last one for k = 1, walking back from the tail.
+     * @throws IndexOutOfBoundsException unless 1 &le; k &le; size
+     */
+    public T kthToLast(int k) {
+        validateIndex(k - 1, size);
+        Node node = tail;
+        while (k > node.count) {
+            k -= node.count;
+            node = node.previous;
+        }
+        return (T) node.items[node.count - k];
+    }
+
+    /**
+     * Checks is list a palindrome, with one cursor from each end, O(1) memory.
+     */
+    public boolean isPalindrome() {
+        Node front = head, back = tail;
+        int i = 0, j = back == null ? 0 : back.count - 1;
+        for (int k = 0; k < size / 2; k++) {
+            if (!equal(front.items[i], back.items[j])) return false;
+            if (++i == front.count) {
+                front = front.next;
+                i = 0;
+            }
+            if (--j < 0) {
+                back = back.previous;
+                j = back.count - 1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a string representation of this list.
+     * @return the elements in order, separated by spaces
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (T item : this)
+            s.append(item + " ");
+        return s.toString();
+    }
+
+    /**
+     * Returns an iterator that iterates over the elements in order.
+     */
+    public Iterator<T> iterator() {
+        return new ListIterator();
+    }
+
+    // an iterator, doesn't implement remove() since it's optional
+    private class ListIterator implements Iterator<T> {
+        private Node current = head;
+        private int i = 0;
+
+        public boolean hasNext()  { return current != null;                     }
+        public void remove()      { throw new UnsupportedOperationException();  }
+
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            T item = (T) current.items[i];
+            if (++i == current.count) {
+                current = current.next;
+                i = 0;
+            }
+            return item;
+        }
+    }
+
+
+    /**
+     * Unit tests the <tt>lists.UnrolledLinkedList</tt> data type.
+     */
+    public static void main(String[] args) {
+        UnrolledLinkedList<Character> list = new UnrolledLinkedList<Character>(4);
+        for (char c : "RACECAR".toCharArray()) list.addLast(c);
+        System.out.println(list + "palindrome: " + list.isPalindrome() + ", nodes: " + list.nodes());
+        list.insertAfter('E', 'X');
+        list.insertBefore('R', 'Y');
+        list.remove('C');
+        list.addAtPos(3, 'Z');
+        System.out.println(list + "3rd to last: " + list.kthToLast(3) + ", get(4): " + list.get(4));
+        list.reverseList();
+        System.out.println(list + "palindrome: " + list.isPalindrome() + ", nodes: " + list.nodes());
+
+        // random operations agree with java.util.ArrayList
+        Random random = new Random(42);
+        UnrolledLinkedList<Integer> unrolled = new UnrolledLinkedList<Integer>(8);
+        List<Integer> expected = new ArrayList<Integer>();
+        boolean same = true;
+        for (int step = 0; step < 200000; step++) {
+            int op = random.nextInt(8);
+            int x = random.nextInt(100);
+            if (op <= 2) {
+                int pos = random.nextInt(expected.size() + 1);
+                unrolled.addAtPos(pos, x);
+                expected.add(pos, x);
+            }
+            else if (op == 3 && !expected.isEmpty()) {
+                int pos = random.nextInt(expected.size());
+                same &= unrolled.removeAtPos(pos).equals(expected.remove(pos));
+            }
+            else if (op == 4) {
+                same &= unrolled.remove(x) == expected.remove((Integer) x);
+            }
+            else if (op == 5 && !expected.isEmpty()) {
+                int pos = random.nextInt(expected.size());
+                same &= unrolled.get(pos).equals(expected.get(pos))
+                        && unrolled.kthToLast(pos + 1).equals(expected.get(expected.size() - 1 - pos));
+            }
+            else if (op == 6 && random.nextInt(100) == 0) {
+                unrolled.reverseList();
+                Collections.reverse(expected);
+            }
+            else if (op == 7 && !expected.isEmpty()) {
+                same &= (random.nextBoolean() ? unrolled.deleteFirst().equals(expected.remove(0))
+                                              : unrolled.deleteLast().equals(expected.remove(expected.size() - 1)));
+            }
+            same &= unrolled.size() == expected.size();
+        }
+        int i = 0;
+        for (int item : unrolled) same &= item == expected.get(i++);
+        System.out.println("agrees with ArrayList: " + same);
+
+        // a million elements: allocation, and 1000 random positional reads
+        int N = 1000000;
+        Integer[] items = new Integer[N];
+        for (int k = 0; k < N; k++) items[k] = k;
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(thread);
+        SinglyLinkedList<Integer> singly = new SinglyLinkedList<Integer>();
+        for (int k = N - 1; k >= 0; k--) singly.addFirst(items[k]);
+        long singlyBytes = bean.getThreadAllocatedBytes(thread) - before;
+        before = bean.getThreadAllocatedBytes(thread);
+        DoublyLinkedList<Integer> doubly = new DoublyLinkedList<Integer>();
+        for (int k = 0; k < N; k++) doubly.addLast(items[k]);
+        long doublyBytes = bean.getThreadAllocatedBytes(thread) - before;
+        before = bean.getThreadAllocatedBytes(thread);
+        UnrolledLinkedList<Integer> big = new UnrolledLinkedList<Integer>();
+        for (int k = 0; k < N; k++) big.addLast(items[k]);
+        long unrolledBytes = bean.getThreadAllocatedBytes(thread) - before;
+
+        int[] positions = new int[1000];
+        for (int k = 0; k < positions.length; k++) positions[k] = random.nextInt(N);
+        long start = System.nanoTime();
+        for (int pos : positions) singly.get(pos);
+        double singlyMs = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        for (int pos : positions) doubly.getByIndex(pos);
+        double doublyMs = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        for (int pos : positions) big.get(pos);
+        double unrolledMs = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%d elements   bytes/element   1000 gets ms%n", N);
+        System.out.printf("  singly     %13.1f %14.1f%n", (double) singlyBytes / N, singlyMs);
+        System.out.printf("  doubly     %13.1f %14.1f%n", (double) doublyBytes / N, doublyMs);
+        System.out.printf("  unrolled   %13.1f %14.1f%n", (double) unrolledBytes / N, unrolledMs);
+    }
+}
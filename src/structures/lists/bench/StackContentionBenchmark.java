@@ -0,0 +1,126 @@
+package structures.lists.bench;
+
+import structures.lists.ConcurrentStack;
+import structures.lists.Stack;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*************************************************************************
+ *  Compilation:  javac StackContentionBenchmark.java
+ *  Execution:    java StackContentionBenchmark [maxThreads] [millis]
+ *  Dependencies: Stack.java ConcurrentStack.java
+ *
+ *  Throughput of push-pop pairs on one shared stack, from 1 thread to
+ *  maxThreads, for a Stack behind a lock, a Treiber stack alone and a
+ *  Treiber stack with elimination.
+ *
+ *  % java StackContentionBenchmark 64 300
+ *  1 processors, Mops/s
+ *  threads       locked      treiber  elimination
+ *        1        32.33        61.52        64.52
+ *        2        79.80        65.51        61.56
+ *        4        59.10        61.81        58.54
+ *        8        50.69        59.07        55.19
+ *       16        44.22        56.10        59.19
+ *       32        42.87        54.90        54.22
+ *       64        44.62        49.73        51.94
+ *
+ *************************************************************************/
+
+/**
+ *  The <tt>StackContentionBenchmark</tt> class measures how a shared stack
+ *  scales with the number of threads that use it at once. Every thread pushes
+ *  an item and pops one, as fast as it can, for the given time; the table gives
+ *  the millions of operations per second of all the threads together, the
+ *  best of three runs after a warm-up run.
+ *  <p>
+ *  The stacks are a {@link Stack} whose operations hold its monitor, a
+ *  {@link ConcurrentStack} without an elimination array, and a
+ *  <tt>ConcurrentStack</tt> with one slot for every two threads. The number of
+ *  threads doubles from 1 to <tt>maxThreads</tt>; with more threads than
+ *  processors, the extra threads only show the cost of preemption.
+ */
+public class StackContentionBenchmark {
+
+    private interface Operations {
+        void push(Integer item);
+        Integer pop();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int millis = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        System.out.printf("%d processors, Mops/s%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%7s %12s %12s %12s%n", "threads", "locked", "treiber", "elimination");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            Stack<Integer> stack = new Stack<Integer>();
+            Operations locked = new Operations() {
+                public void push(Integer item) { synchronized (stack) { stack.push(item); } }
+                public Integer pop()           { synchronized (stack) { return stack.pop(); } }
+            };
+            ConcurrentStack<Integer> treiber = new ConcurrentStack<Integer>(0);
+            Operations plain = new Operations() {
+                public void push(Integer item) { treiber.push(item); }
+                public Integer pop()           { return treiber.pop(); }
+            };
+            ConcurrentStack<Integer> eliminating = new ConcurrentStack<Integer>(Math.max(1, threads / 2));
+            Operations elimination = new Operations() {
+                public void push(Integer item) { eliminating.push(item); }
+                public Integer pop()           { return eliminating.pop(); }
+            };
+            System.out.printf("%7d %12.2f %12.2f %12.2f%n", threads,
+                              best(locked, threads, millis), best(plain, threads, millis), best(elimination, threads, millis));
+        }
+    }
+
+    // one warm-up run, then the best of three
+    private static double best(Operations stack, int threads, int millis) throws InterruptedException {
+        double best = 0.0;
+        for (int run = 0; run < 4; run++) {
+            double mops = run(stack, threads, millis);
+            if (run > 0) best = Math.max(best, mops);
+        }
+        return best;
+    }
+
+    // millions of operations per second of threads doing push-pop pairs for millis
+    private static double run(Operations stack, int threads, int millis) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        long[] ops = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread(() -> {
+                Integer item = id;
+                long count = 0;
+                ready.countDown();
+                try {
+                    go.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop.get()) {
+                    stack.push(item);
+                    item = stack.pop();
+                    count += 2;
+                }
+                ops[id] = count;
+            });
+            workers[t].start();
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        Thread.sleep(millis);
+        stop.set(true);
+        for (Thread worker : workers) worker.join();
+        long elapsed = System.nanoTime() - start;
+        long total = 0;
+        for (long count : ops) total += count;
+        return total * 1e3 / elapsed;
+    }
+}